@@ -0,0 +1,139 @@
+package com.pragmatists.manipulation.benchmarks;
+
+import com.pragmatists.manipulation.bytecode.characteristics.ClassCharacteristic;
+import com.pragmatists.manipulation.bytecode.characteristics.MethodCharacteristic;
+import com.pragmatists.manipulation.bytecode.generation.ClassBytecodeGenerator;
+import com.pragmatists.manipulation.bytecode.generation.MethodGenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.pragmatists.manipulation.bytecode.generation.MethodGenerator.DEFAULT_CONSTRUCTOR_OF_OBJECT_SUBCLASS;
+import static com.pragmatists.manipulation.type.Types.internalName;
+import static com.pragmatists.manipulation.type.Types.methodDescriptor;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Class files the benchmarks run against: the test fixtures of the library and synthetic classes of growing size.
+ * Each fixture names a method with a single return that's extracted or modified by the benchmarks.
+ */
+public enum ClassFixture {
+    /**
+     * examples.classes.Calculator, a single one-line method.
+     */
+    SMALL_CALCULATOR("examples.classes.Calculator", "add", methodDescriptor(String.class, long.class, long.class),
+            () -> resource("examples/classes/Calculator.class")),
+
+    /**
+     * test.types.Modified from the test resources, a few methods with multiple returns.
+     */
+    SMALL_MODIFIED("test.types.Modified", "foo", methodDescriptor(null),
+            () -> resource("Modified.class")),
+
+    /**
+     * Synthetic class with 100 methods.
+     */
+    MEDIUM_SYNTHETIC("pkg.MediumSynthetic", SyntheticClass.METHOD_NAME, SyntheticClass.METHOD_DESCRIPTOR,
+            () -> SyntheticClass.generate("pkg.MediumSynthetic", 100)),
+
+    /**
+     * Synthetic class with 5000 methods, about 420 KB of bytecode.
+     */
+    LARGE_SYNTHETIC("pkg.LargeSynthetic", SyntheticClass.METHOD_NAME, SyntheticClass.METHOD_DESCRIPTOR,
+            () -> SyntheticClass.generate("pkg.LargeSynthetic", 5000));
+
+    private final String className;
+    private final String methodName;
+    private final String methodDescriptor;
+    private final Supplier<byte[]> bytecodeSupplier;
+
+    ClassFixture(String className, String methodName, String methodDescriptor, Supplier<byte[]> bytecodeSupplier) {
+        this.className = className;
+        this.methodName = methodName;
+        this.methodDescriptor = methodDescriptor;
+        this.bytecodeSupplier = bytecodeSupplier;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public String getMethodDescriptor() {
+        return methodDescriptor;
+    }
+
+    /**
+     * @return a fresh copy of the fixture's bytecode
+     */
+    public byte[] bytecode() {
+        return bytecodeSupplier.get();
+    }
+
+    /**
+     * @return bytecode of the given class of the benchmarks, read from the class path
+     */
+    static byte[] classFile(Class<?> c) {
+        return resource(c.getName().replace('.', '/') + ".class");
+    }
+
+    private static byte[] resource(String path) {
+        try (InputStream is = ClassFixture.class.getClassLoader().getResourceAsStream(path)) {
+            if (is == null) {
+                throw new IllegalStateException(String.format("Missing fixture: %s", path));
+            }
+            return is.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class SyntheticClass {
+        private static final String METHOD_NAME = "method0";
+        private static final String METHOD_DESCRIPTOR = methodDescriptor(String.class, long.class, long.class);
+
+        /**
+         * Every method is {@code String methodN(long x, long y)} printing and returning {@code String.valueOf(x * y + N)}.
+         */
+        private static byte[] generate(String className, int methods) {
+            List<MethodGenerator> generators = new ArrayList<>();
+            generators.add(DEFAULT_CONSTRUCTOR_OF_OBJECT_SUBCLASS);
+            for (int i = 0; i < methods; i++) {
+                long constant = i;
+                MethodCharacteristic characteristic =
+                        new MethodCharacteristic(ACC_PUBLIC, "method" + i, List.of(long.class, long.class), String.class);
+                generators.add(MethodGenerator.builder()
+                        .methodCharacteristic(characteristic)
+                        .methodBodyWriter(mv -> {
+                            MethodGenerator.soutPrintlnInstructions(mv, "method " + constant);
+                            mv.visitVarInsn(LLOAD, 1);
+                            mv.visitVarInsn(LLOAD, 3);
+                            mv.visitInsn(LMUL);
+                            mv.visitLdcInsn(constant);
+                            mv.visitInsn(LADD);
+                            mv.visitMethodInsn(INVOKESTATIC, internalName(String.class), "valueOf", methodDescriptor(String.class, long.class), false);
+                        })
+                        .build());
+            }
+
+            return ClassBytecodeGenerator.builder()
+                    .characteristic(ClassCharacteristic.builder()
+                            .javaVersion(V11)
+                            .accessFlag(ACC_PUBLIC)
+                            .name(className)
+                            .superName(Object.class.getName())
+                            .interfaces(new String[0])
+                            .build())
+                    .methodGenerators(generators)
+                    .build()
+                    .generate();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.pragmatists.manipulation.benchmarks;
+
+import com.pragmatists.manipulation.loaders.ClassSubstitutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static test.ClassFileUtils.generateClass;
+
+/**
+ * Time of loading 2000 classes with a fresh {@link ClassSubstitutor} from the given number of threads, each of them
+ * loading all the classes in its own order, so the threads mostly compete for the same classes. The classes extend one
+ * of 16 base classes, which are loaded while their subclasses are being defined.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentLoadingBenchmark {
+    private static final int CLASSES = 2000;
+    private static final int SUPER_CLASSES = 16;
+
+    @Param({"1", "4", "16"})
+    private int threads;
+
+    private Map<String, byte[]> classNamesToBytecode;
+    private List<List<String>> loadingOrders;
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        classNamesToBytecode = new HashMap<>();
+        for (int i = 0; i < SUPER_CLASSES; i++) {
+            classNamesToBytecode.put(superClassName(i), generateClass(superClassName(i), "java.lang.Object"));
+        }
+        List<String> classNames = new ArrayList<>();
+        for (int i = 0; i < CLASSES; i++) {
+            classNames.add(className(i));
+            classNamesToBytecode.put(className(i), generateClass(className(i), superClassName(i % SUPER_CLASSES)));
+        }
+
+        loadingOrders = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            List<String> order = new ArrayList<>(classNames);
+            Collections.shuffle(order, new Random(thread));
+            loadingOrders.add(order);
+        }
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int loadClasses() throws Exception {
+        ClassSubstitutor classSubstitutor = new ClassSubstitutor(classNamesToBytecode);
+        List<Callable<Integer>> loaders = new ArrayList<>();
+        for (List<String> order : loadingOrders) {
+            loaders.add(() -> {
+                int hash = 0;
+                for (String className : order) {
+                    hash += classSubstitutor.loadClass(className).hashCode();
+                }
+                return hash;
+            });
+        }
+
+        int hash = 0;
+        for (Future<Integer> loaded : executor.invokeAll(loaders)) {
+            hash += loaded.get();
+        }
+        return hash;
+    }
+
+    private static String className(int i) {
+        return "pkg.Loaded" + i;
+    }
+
+    private static String superClassName(int i) {
+        return "pkg.LoadedBase" + i;
+    }
+}
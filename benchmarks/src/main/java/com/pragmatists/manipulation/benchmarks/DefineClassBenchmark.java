@@ -0,0 +1,33 @@
+package com.pragmatists.manipulation.benchmarks;
+
+import com.pragmatists.manipulation.loaders.ClassSubstitutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of defining a class with a fresh {@link ClassSubstitutor}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DefineClassBenchmark {
+    @Param
+    private ClassFixture fixture;
+
+    private Map<String, byte[]> classNamesToBytecode;
+
+    @Setup
+    public void setUp() {
+        classNamesToBytecode = Map.of(fixture.getClassName(), fixture.bytecode());
+    }
+
+    @Benchmark
+    public Class<?> defineClass() throws ClassNotFoundException {
+        return new ClassSubstitutor(classNamesToBytecode).loadClass(fixture.getClassName());
+    }
+}
@@ -0,0 +1,34 @@
+package com.pragmatists.manipulation.benchmarks;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.bytecode.extraction.InstructionsExtractor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link InstructionsExtractor#extract(byte[])} of a single method.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtractionBenchmark {
+    @Param
+    private ClassFixture fixture;
+
+    private byte[] bytecode;
+
+    @Setup
+    public void setUp() {
+        bytecode = fixture.bytecode();
+    }
+
+    @Benchmark
+    public Optional<Instructions> extract() {
+        return new InstructionsExtractor(fixture.getMethodName(), fixture.getMethodDescriptor()).extract(bytecode);
+    }
+}
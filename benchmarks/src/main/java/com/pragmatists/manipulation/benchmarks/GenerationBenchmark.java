@@ -0,0 +1,85 @@
+package com.pragmatists.manipulation.benchmarks;
+
+import com.pragmatists.manipulation.bytecode.characteristics.ClassCharacteristic;
+import com.pragmatists.manipulation.bytecode.characteristics.MethodCharacteristic;
+import com.pragmatists.manipulation.bytecode.generation.ClassBytecodeGenerator;
+import com.pragmatists.manipulation.bytecode.generation.GenerationDiagnostics;
+import com.pragmatists.manipulation.bytecode.generation.MethodGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.pragmatists.manipulation.bytecode.generation.MethodGenerator.DEFAULT_CONSTRUCTOR_OF_OBJECT_SUBCLASS;
+import static java.util.Collections.emptyList;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.V11;
+
+/**
+ * Throughput of {@link ClassBytecodeGenerator#generate()} with each kind of {@link GenerationDiagnostics}. Tracing
+ * prints to a sink discarding its output, so only the cost of the disassembly is measured, not the console's.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenerationBenchmark {
+    @Param({"NONE", "CHECK_ONLY", "TRACE"})
+    private String diagnostics;
+
+    @Param({"1", "50", "2000"})
+    private int methods;
+
+    private ClassBytecodeGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = ClassBytecodeGenerator.builder()
+                .characteristic(ClassCharacteristic.builder()
+                        .javaVersion(V11)
+                        .accessFlag(ACC_PUBLIC)
+                        .name("pkg.GeneratedClass")
+                        .superName(Object.class.getName())
+                        .interfaces(new String[0])
+                        .build())
+                .methodGenerators(methodGenerators(methods))
+                .diagnostics(diagnostics(diagnostics))
+                .build();
+    }
+
+    @Benchmark
+    public byte[] generate() {
+        return generator.generate();
+    }
+
+    private static List<MethodGenerator> methodGenerators(int count) {
+        List<MethodGenerator> generators = new ArrayList<>();
+        generators.add(DEFAULT_CONSTRUCTOR_OF_OBJECT_SUBCLASS);
+        for (int i = 0; i < count; i++) {
+            String message = "method " + i;
+            generators.add(MethodGenerator.builder()
+                    .methodCharacteristic(new MethodCharacteristic(ACC_PUBLIC, "method" + i, emptyList(), null))
+                    .methodBodyWriter(mv -> MethodGenerator.soutPrintlnInstructions(mv, message))
+                    .build());
+        }
+        return generators;
+    }
+
+    private static GenerationDiagnostics diagnostics(String name) {
+        switch (name) {
+            case "NONE":
+                return GenerationDiagnostics.none();
+            case "CHECK_ONLY":
+                return GenerationDiagnostics.checkOnly();
+            case "TRACE":
+                return GenerationDiagnostics.trace(new PrintWriter(OutputStream.nullOutputStream()));
+            default:
+                throw new IllegalArgumentException(String.format("Unknown diagnostics: %s", name));
+        }
+    }
+}
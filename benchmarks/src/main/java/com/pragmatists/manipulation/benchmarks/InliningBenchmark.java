@@ -0,0 +1,104 @@
+package com.pragmatists.manipulation.benchmarks;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.bytecode.extraction.ExtractingMethodVisitorProvider;
+import com.pragmatists.manipulation.bytecode.extraction.InstructionsExtractor;
+import com.pragmatists.manipulation.bytecode.modification.InstructionsModifier;
+import com.pragmatists.manipulation.bytecode.modification.MethodInliner;
+import com.pragmatists.manipulation.loaders.ClassSubstitutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.pragmatists.manipulation.benchmarks.ClassFixture.classFile;
+
+/**
+ * Time of hashing 1024 ints with {@link Hasher#hashAll(int[])}, which calls {@link Mixer#mix(int)} for each of them,
+ * as compiled and with the calls replaced with the body of mix by a {@link MethodInliner}. mix is larger than
+ * {@code MaxInlineSize}: C2 inlines it anyway once it's hot, but C1 doesn't, so the gain shows with
+ * {@code -XX:TieredStopAtLevel=1}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InliningBenchmark {
+    private static final int MAX_INLINED_CODE_SIZE = 100;
+
+    public enum Variant {
+        ORIGINAL, INLINED
+    }
+
+    @Param
+    private Variant variant;
+
+    private MethodHandle hashAll;
+    private int[] values;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        values = ThreadLocalRandom.current().ints(1024).toArray();
+
+        String hasherName = Hasher.class.getName();
+        byte[] bytecode = classFile(Hasher.class);
+        if (variant == Variant.INLINED) {
+            MethodInliner inliner = new MethodInliner(MAX_INLINED_CODE_SIZE);
+            Instructions mix = new InstructionsExtractor("mix", "(I)I", ExtractingMethodVisitorProvider.wholeMethod())
+                    .extract(classFile(Mixer.class))
+                    .orElseThrow();
+            if (!inliner.inline(Mixer.class.getName(), "mix", "(I)I", mix)) {
+                throw new IllegalStateException("Mixer.mix is too large to be inlined.");
+            }
+            bytecode = InstructionsModifier.modifyMethodsInClassfile(bytecode, List.of(inliner.inlineCallsIn("hashAll", "([I)I")));
+        }
+
+        Class<?> hasher = new ClassSubstitutor(Map.of(hasherName, bytecode)).loadClass(hasherName);
+        hashAll = MethodHandles.publicLookup()
+                .findVirtual(hasher, "hashAll", MethodType.methodType(int.class, int[].class))
+                .bindTo(hasher.getConstructor().newInstance());
+    }
+
+    @Benchmark
+    public int c2() throws Throwable {
+        return (int) hashAll.invokeExact(values);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-XX:TieredStopAtLevel=1")
+    public int c1() throws Throwable {
+        return (int) hashAll.invokeExact(values);
+    }
+
+    public static class Hasher {
+        public int hashAll(int[] values) {
+            int hash = 17;
+            for (int value : values) {
+                hash = hash * 31 + Mixer.mix(value);
+            }
+            return hash;
+        }
+    }
+
+    public static class Mixer {
+        /**
+         * MurmurHash3's finalizer followed by a rotation, about 50 bytes of bytecode.
+         */
+        public static int mix(int value) {
+            int h = value;
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            h ^= h >>> 16;
+            return (h << 7) | (h >>> 25);
+        }
+    }
+}
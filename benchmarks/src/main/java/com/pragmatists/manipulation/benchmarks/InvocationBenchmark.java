@@ -0,0 +1,77 @@
+package com.pragmatists.manipulation.benchmarks;
+
+import com.pragmatists.manipulation.invocation.DirectInvokers;
+import com.pragmatists.manipulation.loaders.ClassSubstitutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.pragmatists.manipulation.benchmarks.ClassFixture.classFile;
+
+/**
+ * Time of calling {@link Accumulator#accumulate(long, int)} of a class loaded by a {@link ClassSubstitutor} through
+ * {@link Method#invoke}, a {@link MethodHandle} held in a field and a {@link DirectInvokers direct invoker}, compared
+ * with a call compiled against the original class.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvocationBenchmark {
+    private final Accumulator accumulator = new Accumulator();
+    private Object substituted;
+    private Method method;
+    private MethodHandle methodHandle;
+    private Accumulating invoker;
+    private long total;
+    private int value;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        String className = Accumulator.class.getName();
+        Class<?> substitutedClass = new ClassSubstitutor(Map.of(className, classFile(Accumulator.class))).loadClass(className);
+        substituted = substitutedClass.getConstructor().newInstance();
+        method = substitutedClass.getMethod("accumulate", long.class, int.class);
+        methodHandle = MethodHandles.publicLookup()
+                .findVirtual(substitutedClass, "accumulate", MethodType.methodType(long.class, long.class, int.class))
+                .asType(MethodType.methodType(long.class, Object.class, long.class, int.class));
+        invoker = DirectInvokers.invoker(Accumulating.class, method);
+    }
+
+    @Benchmark
+    public long compiled() {
+        return total = accumulator.accumulate(total, value++);
+    }
+
+    @Benchmark
+    public long reflection() throws ReflectiveOperationException {
+        return total = (long) method.invoke(substituted, total, value++);
+    }
+
+    @Benchmark
+    public long methodHandle() throws Throwable {
+        return total = (long) methodHandle.invokeExact(substituted, total, value++);
+    }
+
+    @Benchmark
+    public long directInvoker() {
+        return total = invoker.accumulate(substituted, total, value++);
+    }
+
+    public interface Accumulating {
+        long accumulate(Object accumulator, long total, int value);
+    }
+
+    public static class Accumulator {
+        public long accumulate(long total, int value) {
+            return total * 31 + value;
+        }
+    }
+}
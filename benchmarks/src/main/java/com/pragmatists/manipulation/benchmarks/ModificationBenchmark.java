@@ -0,0 +1,67 @@
+package com.pragmatists.manipulation.benchmarks;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.bytecode.modification.AppendingMethodVisitor;
+import com.pragmatists.manipulation.bytecode.modification.InstructionsModifier;
+import com.pragmatists.manipulation.bytecode.modification.MethodModification;
+import com.pragmatists.manipulation.bytecode.modification.ModifyingMethodVisitorProvider;
+import com.pragmatists.manipulation.bytecode.modification.PrependingMethodVisitor;
+import com.pragmatists.manipulation.bytecode.modification.WritingStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.pragmatists.manipulation.type.Types.internalName;
+import static com.pragmatists.manipulation.type.Types.methodDescriptor;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.POP2;
+
+/**
+ * Throughput of prepending and appending a small snippet to a single method of a class with
+ * {@link InstructionsModifier#modifyMethodsInClassfile}, for each {@link WritingStrategy}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModificationBenchmark {
+    @Param
+    private ClassFixture fixture;
+
+    @Param
+    private WritingStrategy writingStrategy;
+
+    private byte[] bytecode;
+    private List<MethodModification> prepending;
+    private List<MethodModification> appending;
+
+    @Setup
+    public void setUp() {
+        bytecode = fixture.bytecode();
+
+        Instructions instructions = new Instructions();
+        instructions.collectInstruction(mv -> {
+            mv.visitMethodInsn(INVOKESTATIC, internalName(System.class), "nanoTime", methodDescriptor(long.class), false);
+            mv.visitInsn(POP2);
+        });
+        prepending = modification(instructions, PrependingMethodVisitor::new);
+        appending = modification(instructions, AppendingMethodVisitor::new);
+    }
+
+    @Benchmark
+    public byte[] prepend() {
+        return InstructionsModifier.modifyMethodsInClassfile(bytecode, prepending, writingStrategy);
+    }
+
+    @Benchmark
+    public byte[] append() {
+        return InstructionsModifier.modifyMethodsInClassfile(bytecode, appending, writingStrategy);
+    }
+
+    private List<MethodModification> modification(Instructions instructions, ModifyingMethodVisitorProvider provider) {
+        return List.of(new MethodModification(fixture.getMethodName(), fixture.getMethodDescriptor(), instructions, provider));
+    }
+}
@@ -0,0 +1,64 @@
+package com.pragmatists.manipulation.benchmarks;
+
+import com.pragmatists.manipulation.bytecode.modification.InstructionsModifier;
+import com.pragmatists.manipulation.bytecode.modification.MethodModification;
+import com.pragmatists.manipulation.loaders.ClassSubstitutor;
+import com.pragmatists.manipulation.profiling.CallSiteCounters;
+import com.pragmatists.manipulation.profiling.TimingProbes;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of invoking {@code Calculator#add(long, long)} without probes, with its call sites counted and with a timing
+ * probe. The differences against NONE are the overheads of the probes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProbeOverheadBenchmark {
+    public enum Probe {
+        NONE, CALL_SITE_COUNTERS, TIMING_PROBE
+    }
+
+    @Param
+    private Probe probe;
+
+    private MethodHandle add;
+    private long x = 20;
+    private long y = 22;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        ClassFixture fixture = ClassFixture.SMALL_CALCULATOR;
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(fixture.bytecode(), modifications(fixture));
+        Class<?> calculator = new ClassSubstitutor(Map.of(fixture.getClassName(), bytecode)).loadClass(fixture.getClassName());
+        add = MethodHandles.publicLookup()
+                .findVirtual(calculator, fixture.getMethodName(), MethodType.methodType(String.class, long.class, long.class))
+                .bindTo(calculator.getConstructor().newInstance());
+    }
+
+    @Benchmark
+    public String invoke() throws Throwable {
+        return (String) add.invokeExact(x, y);
+    }
+
+    private List<MethodModification> modifications(ClassFixture fixture) {
+        switch (probe) {
+            case CALL_SITE_COUNTERS:
+                return List.of(CallSiteCounters.countCallsIn(fixture.getClassName(), fixture.getMethodName(), fixture.getMethodDescriptor()));
+            case TIMING_PROBE:
+                return List.of(TimingProbes.probe(fixture.getClassName(), fixture.getMethodName(), fixture.getMethodDescriptor()));
+            default:
+                return List.of();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.pragmatists.manipulation.agent;
+
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.util.Arrays;
+
+import static com.pragmatists.manipulation.type.Types.binaryToInternal;
+
+/**
+ * BytecodeManipulationAgent is the entry point of the library used as a Java agent, which modifies classes while they
+ * are loaded instead of loading modified copies with a {@link com.pragmatists.manipulation.loaders.ClassSubstitutor}.
+ * Modified classes keep their identity, as they are loaded by the same class loaders as unmodified ones would be.
+ * <p>
+ * The agent is started with {@code -javaagent:bytecode-manipulation-poc.jar} or attached to a running JVM, and the
+ * modifications are registered in {@link #rules()}, e.g. in the beginning of the application's main method:
+ * <pre>
+ *     BytecodeManipulationAgent.rules().register("com.example.Service",
+ *             new MethodModification("handle", instructions, PrependingMethodVisitor::new));
+ * </pre>
+ * Only classes loaded after their rules are registered are modified, unless {@link #retransform()} is called. The
+ * library's dependencies (ASM) must be available on the class path of the application.
+ */
+public class BytecodeManipulationAgent {
+    private static final ModificationRules RULES = new ModificationRules();
+    private static volatile Instrumentation instrumentation;
+
+    private BytecodeManipulationAgent() {
+    }
+
+    public static void premain(String agentArgs, Instrumentation instrumentation) {
+        install(instrumentation);
+    }
+
+    public static void agentmain(String agentArgs, Instrumentation instrumentation) {
+        install(instrumentation);
+        retransform();
+    }
+
+    /**
+     * @return rules applied by the agent
+     */
+    public static ModificationRules rules() {
+        return RULES;
+    }
+
+    /**
+     * Applies the rules to the classes which have been loaded before their rules were registered.
+     *
+     * @throws IllegalStateException if the agent has not been started
+     */
+    public static void retransform() {
+        Instrumentation current = instrumentation;
+        if (current == null) {
+            throw new IllegalStateException("The agent has not been started.");
+        }
+
+        Class<?>[] classesWithRules = Arrays.stream(current.getAllLoadedClasses())
+                .filter(current::isModifiableClass)
+                .filter(c -> RULES.hasModificationsFor(binaryToInternal(c.getName())))
+                .toArray(Class<?>[]::new);
+        if (classesWithRules.length == 0) {
+            return;
+        }
+
+        try {
+            current.retransformClasses(classesWithRules);
+        } catch (UnmodifiableClassException e) {
+            throw new IllegalStateException("Could not retransform classes with registered rules", e);
+        }
+    }
+
+    private static synchronized void install(Instrumentation newInstrumentation) {
+        if (instrumentation != null) {
+            return;
+        }
+        newInstrumentation.addTransformer(new ModifyingClassFileTransformer(RULES), newInstrumentation.isRetransformClassesSupported());
+        instrumentation = newInstrumentation;
+    }
+}
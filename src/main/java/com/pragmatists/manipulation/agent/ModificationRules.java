@@ -0,0 +1,52 @@
+package com.pragmatists.manipulation.agent;
+
+import com.pragmatists.manipulation.bytecode.modification.MethodModification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.pragmatists.manipulation.type.Types.binaryToInternal;
+
+/**
+ * ModificationRules maps classes to the {@link MethodModification}s to be applied to them when they are loaded. The
+ * rules are kept by internal class names, as passed to a {@link java.lang.instrument.ClassFileTransformer}, so
+ * finding out that a class has no rules costs a single hash lookup.
+ */
+public class ModificationRules {
+    private final Map<String, List<MethodModification>> modificationsByInternalName = new ConcurrentHashMap<>();
+
+    /**
+     * @param className    fully qualified name of the class to be modified, e.g. {@code java.lang.String}
+     * @param modification modification to be applied after the ones already registered for the class
+     * @return this, for chaining
+     */
+    public ModificationRules register(String className, MethodModification modification) {
+        modificationsByInternalName
+                .computeIfAbsent(binaryToInternal(className), k -> new CopyOnWriteArrayList<>())
+                .add(modification);
+        return this;
+    }
+
+    /**
+     * @param internalName internal name of a class, e.g. {@code java/lang/String}
+     * @return modifications registered for the class, in the order of registration
+     */
+    public List<MethodModification> modificationsFor(String internalName) {
+        List<MethodModification> modifications = modificationsByInternalName.get(internalName);
+        return modifications == null ? List.of() : List.copyOf(modifications);
+    }
+
+    public boolean hasModificationsFor(String internalName) {
+        return modificationsByInternalName.containsKey(internalName);
+    }
+
+    /**
+     * @return internal names of all the classes with registered modifications
+     */
+    public Set<String> getInternalClassNames() {
+        return Set.copyOf(modificationsByInternalName.keySet());
+    }
+}
@@ -0,0 +1,85 @@
+package com.pragmatists.manipulation.agent;
+
+import com.pragmatists.manipulation.bytecode.hierarchy.ClassFileLocator;
+import com.pragmatists.manipulation.bytecode.hierarchy.ClassHierarchy;
+import com.pragmatists.manipulation.bytecode.modification.InstructionsModifier;
+import com.pragmatists.manipulation.bytecode.modification.MethodModification;
+import com.pragmatists.manipulation.bytecode.modification.WritingStrategy;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.ref.WeakReference;
+import java.security.ProtectionDomain;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * ModifyingClassFileTransformer applies {@link ModificationRules} to classes while they are loaded. Classes without
+ * rules are rejected by their name before any parsing, and the methods of modified classes which are not modified
+ * are copied as they are (see {@link WritingStrategy#COPY_UNMODIFIED_METHODS}).
+ * <p>
+ * Common super classes needed to compute frames are resolved from class files of the loader of the modified class.
+ * Exceptions thrown by a {@link ClassFileTransformer} are ignored by the JVM, so a class which could not be modified
+ * is loaded unmodified, and the failure is passed to the failure handler, which by default logs it with the
+ * {@link System.Logger} of this class.
+ */
+public class ModifyingClassFileTransformer implements ClassFileTransformer {
+    private static final System.Logger LOGGER = System.getLogger(ModifyingClassFileTransformer.class.getName());
+    private static final BiConsumer<String, RuntimeException> LOG_FAILURE = (className, failure) ->
+            LOGGER.log(System.Logger.Level.WARNING, String.format("Could not modify class %s", className), failure);
+
+    private final ModificationRules rules;
+    private final BiConsumer<String, RuntimeException> failureHandler;
+    private final ClassHierarchy bootstrapHierarchy = ClassHierarchy.ofClassLoader(null);
+    private final Map<ClassLoader, ClassHierarchy> hierarchies = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public ModifyingClassFileTransformer(ModificationRules rules) {
+        this(rules, LOG_FAILURE);
+    }
+
+    /**
+     * @param failureHandler called with the internal name of a class which could not be modified and the cause
+     */
+    public ModifyingClassFileTransformer(ModificationRules rules, BiConsumer<String, RuntimeException> failureHandler) {
+        this.rules = rules;
+        this.failureHandler = failureHandler;
+    }
+
+    @Override
+    public byte[] transform(ClassLoader loader,
+                            String className,
+                            Class<?> classBeingRedefined,
+                            ProtectionDomain protectionDomain,
+                            byte[] classfileBuffer) {
+        if (className == null || !rules.hasModificationsFor(className)) {
+            return null;
+        }
+
+        List<MethodModification> modifications = rules.modificationsFor(className);
+        try {
+            return InstructionsModifier.modifyMethodsInClassfile(
+                    classfileBuffer, modifications, WritingStrategy.COPY_UNMODIFIED_METHODS, hierarchyOf(loader));
+        } catch (RuntimeException e) {
+            failureHandler.accept(className, e);
+            return null;
+        }
+    }
+
+    private ClassHierarchy hierarchyOf(ClassLoader loader) {
+        if (loader == null) {
+            return bootstrapHierarchy;
+        }
+        return hierarchies.computeIfAbsent(loader, ModifyingClassFileTransformer::weaklyReferencingHierarchy);
+    }
+
+    // The hierarchy must not keep the loader reachable, or it would never be removed from the WeakHashMap.
+    private static ClassHierarchy weaklyReferencingHierarchy(ClassLoader loader) {
+        WeakReference<ClassLoader> loaderReference = new WeakReference<>(loader);
+        return new ClassHierarchy(internalName -> {
+            ClassLoader referencedLoader = loaderReference.get();
+            return referencedLoader == null ? null : ClassFileLocator.ofClassLoader(referencedLoader).locate(internalName);
+        });
+    }
+}
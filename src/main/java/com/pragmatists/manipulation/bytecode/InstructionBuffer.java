@@ -0,0 +1,532 @@
+package com.pragmatists.manipulation.bytecode;
+
+import com.pragmatists.manipulation.config.Config;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import static org.objectweb.asm.Opcodes.DLOAD;
+import static org.objectweb.asm.Opcodes.DSTORE;
+import static org.objectweb.asm.Opcodes.INVOKEINTERFACE;
+import static org.objectweb.asm.Opcodes.LLOAD;
+import static org.objectweb.asm.Opcodes.LSTORE;
+import static org.objectweb.asm.Opcodes.RET;
+import static org.objectweb.asm.Opcodes.SIPUSH;
+
+/**
+ * InstructionBuffer records visited instructions compactly: the kind of each instruction, its opcode and its int
+ * operands are stored in a growing {@code int[]}, while the operands which are objects (names, descriptors, labels,
+ * constants...) are stored in a side table and referred to by their index. Replaying the buffer into a
+ * {@link MethodVisitor} walks the arrays and allocates nothing per instruction.
+ * <p>
+ * Arbitrary {@link AppendInstruction}s can be stored as well, they're replayed in order with the recorded instructions.
+ * <p>
+ * InstructionBuffer is not thread-safe while being written, but once filled it can be replayed concurrently.
+ */
+public class InstructionBuffer {
+    static final int INSN = 0;
+    static final int INT_INSN = 1;
+    static final int VAR_INSN = 2;
+    static final int TYPE_INSN = 3;
+    static final int FIELD_INSN = 4;
+    static final int METHOD_INSN = 5;
+    static final int INVOKE_DYNAMIC_INSN = 6;
+    static final int JUMP_INSN = 7;
+    static final int LABEL = 8;
+    static final int LDC_INSN = 9;
+    static final int IINC_INSN = 10;
+    static final int TABLE_SWITCH_INSN = 11;
+    static final int LOOKUP_SWITCH_INSN = 12;
+    static final int MULTI_ANEW_ARRAY_INSN = 13;
+    static final int TRY_CATCH_BLOCK = 14;
+    static final int LOCAL_VARIABLE = 15;
+    static final int LINE_NUMBER = 16;
+    static final int MAXS = 17;
+    static final int FRAME = 18;
+    static final int APPEND_INSTRUCTION = 19;
+
+    private static final int INITIAL_CODE_CAPACITY = 32;
+    private static final int INITIAL_CONSTANTS_CAPACITY = 16;
+
+    private int[] code = new int[INITIAL_CODE_CAPACITY];
+    private int codeLength;
+    private Object[] constants = new Object[INITIAL_CONSTANTS_CAPACITY];
+    private int constantsLength;
+    private int size;
+
+    /**
+     * @return number of recorded entries, i.e. instructions, labels, debug information and AppendInstructions
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return a MethodVisitor recording every visited instruction into this buffer
+     */
+    public MethodVisitor recorder() {
+        return new Recorder();
+    }
+
+    public void add(AppendInstruction appendInstruction) {
+        Objects.requireNonNull(appendInstruction);
+        record(APPEND_INSTRUCTION, constant(appendInstruction));
+    }
+
+    /**
+     * Visits the given MethodVisitor with all the recorded entries, in the order of recording.
+     */
+    public void replay(MethodVisitor mv) {
+        replay(mv, 0, codeLength, null);
+    }
+
+    /**
+     * Visits the given MethodVisitor with the recorded instructions, and passes the {@link AppendInstruction}s to the
+     * given consumer instead of letting them visit the MethodVisitor, in the order of recording.
+     */
+    void replay(MethodVisitor mv, Consumer<AppendInstruction> appendInstructionConsumer) {
+        replay(mv, 0, codeLength, appendInstructionConsumer);
+    }
+
+    /**
+     * @return the entries of this buffer as separate AppendInstructions, each one replaying a single entry
+     */
+    public AppendInstruction[] toAppendInstructions() {
+        AppendInstruction[] result = new AppendInstruction[size];
+        int index = 0;
+        for (int offset = 0; offset < codeLength; offset += recordLength(code, offset)) {
+            int start = offset;
+            int end = offset + recordLength(code, offset);
+            result[index++] = mv -> replay(mv, start, end, null);
+        }
+        return result;
+    }
+
+    private void replay(MethodVisitor mv, int from, int to, Consumer<AppendInstruction> appendInstructionConsumer) {
+        int[] code = this.code;
+        Object[] constants = this.constants;
+        int offset = from;
+        while (offset < to) {
+            switch (code[offset]) {
+                case INSN:
+                    mv.visitInsn(code[offset + 1]);
+                    break;
+                case INT_INSN:
+                    mv.visitIntInsn(code[offset + 1], code[offset + 2]);
+                    break;
+                case VAR_INSN:
+                    mv.visitVarInsn(code[offset + 1], code[offset + 2]);
+                    break;
+                case TYPE_INSN:
+                    mv.visitTypeInsn(code[offset + 1], (String) constants[code[offset + 2]]);
+                    break;
+                case FIELD_INSN:
+                    mv.visitFieldInsn(code[offset + 1], (String) constants[code[offset + 2]],
+                            (String) constants[code[offset + 3]], (String) constants[code[offset + 4]]);
+                    break;
+                case METHOD_INSN:
+                    mv.visitMethodInsn(code[offset + 1], (String) constants[code[offset + 2]],
+                            (String) constants[code[offset + 3]], (String) constants[code[offset + 4]], code[offset + 5] != 0);
+                    break;
+                case INVOKE_DYNAMIC_INSN:
+                    mv.visitInvokeDynamicInsn((String) constants[code[offset + 1]], (String) constants[code[offset + 2]],
+                            (Handle) constants[code[offset + 3]], (Object[]) constants[code[offset + 4]]);
+                    break;
+                case JUMP_INSN:
+                    mv.visitJumpInsn(code[offset + 1], (Label) constants[code[offset + 2]]);
+                    break;
+                case LABEL:
+                    mv.visitLabel((Label) constants[code[offset + 1]]);
+                    break;
+                case LDC_INSN:
+                    mv.visitLdcInsn(constants[code[offset + 1]]);
+                    break;
+                case IINC_INSN:
+                    mv.visitIincInsn(code[offset + 1], code[offset + 2]);
+                    break;
+                case TABLE_SWITCH_INSN:
+                    mv.visitTableSwitchInsn(code[offset + 1], code[offset + 2], (Label) constants[code[offset + 3]],
+                            (Label[]) constants[code[offset + 4]]);
+                    break;
+                case LOOKUP_SWITCH_INSN:
+                    mv.visitLookupSwitchInsn((Label) constants[code[offset + 1]], (int[]) constants[code[offset + 2]],
+                            (Label[]) constants[code[offset + 3]]);
+                    break;
+                case MULTI_ANEW_ARRAY_INSN:
+                    mv.visitMultiANewArrayInsn((String) constants[code[offset + 1]], code[offset + 2]);
+                    break;
+                case TRY_CATCH_BLOCK:
+                    mv.visitTryCatchBlock((Label) constants[code[offset + 1]], (Label) constants[code[offset + 2]],
+                            (Label) constants[code[offset + 3]], (String) constants[code[offset + 4]]);
+                    break;
+                case LOCAL_VARIABLE:
+                    mv.visitLocalVariable((String) constants[code[offset + 1]], (String) constants[code[offset + 2]],
+                            (String) constants[code[offset + 3]], (Label) constants[code[offset + 4]],
+                            (Label) constants[code[offset + 5]], code[offset + 6]);
+                    break;
+                case LINE_NUMBER:
+                    mv.visitLineNumber(code[offset + 1], (Label) constants[code[offset + 2]]);
+                    break;
+                case MAXS:
+                    mv.visitMaxs(code[offset + 1], code[offset + 2]);
+                    break;
+                case FRAME:
+                    mv.visitFrame(code[offset + 1], code[offset + 2], (Object[]) constants[code[offset + 3]],
+                            code[offset + 4], (Object[]) constants[code[offset + 5]]);
+                    break;
+                case APPEND_INSTRUCTION:
+                    AppendInstruction appendInstruction = (AppendInstruction) constants[code[offset + 1]];
+                    if (appendInstructionConsumer == null) {
+                        appendInstruction.accept(mv);
+                    } else {
+                        appendInstructionConsumer.accept(appendInstruction);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException(String.format("Unknown entry kind %d at %d", code[offset], offset));
+            }
+            offset += recordLength(code, offset);
+        }
+    }
+
+    /**
+     * @return number of local variable slots used by the recorded instructions, i.e. the highest local variable index
+     * used plus its size; locals used by {@link AppendInstruction}s are not known and not counted
+     */
+    public int localsSize() {
+        int localsSize = 0;
+        for (int offset = 0; offset < codeLength; offset += recordLength(code, offset)) {
+            switch (code[offset]) {
+                case VAR_INSN:
+                    localsSize = Math.max(localsSize, code[offset + 2] + localSize(code[offset + 1]));
+                    break;
+                case IINC_INSN:
+                    localsSize = Math.max(localsSize, code[offset + 1] + 1);
+                    break;
+                case LOCAL_VARIABLE:
+                    String descriptor = (String) constants[code[offset + 2]];
+                    localsSize = Math.max(localsSize, code[offset + 6] + Type.getType(descriptor).getSize());
+                    break;
+                default:
+                    break;
+            }
+        }
+        return localsSize;
+    }
+
+    /**
+     * @return estimated size in bytes of the code of the recorded instructions; wide and far jump forms, constant pool
+     * indices above 255 and {@link AppendInstruction}s are not taken into account
+     */
+    public int codeSizeEstimate() {
+        int codeSize = 0;
+        for (int offset = 0; offset < codeLength; offset += recordLength(code, offset)) {
+            switch (code[offset]) {
+                case INSN:
+                    codeSize += 1;
+                    break;
+                case INT_INSN:
+                    codeSize += code[offset + 1] == SIPUSH ? 3 : 2;
+                    break;
+                case VAR_INSN:
+                    codeSize += code[offset + 2] <= 3 && code[offset + 1] != RET ? 1 : 2;
+                    break;
+                case TYPE_INSN:
+                case FIELD_INSN:
+                case JUMP_INSN:
+                case IINC_INSN:
+                    codeSize += 3;
+                    break;
+                case METHOD_INSN:
+                    codeSize += code[offset + 1] == INVOKEINTERFACE ? 5 : 3;
+                    break;
+                case INVOKE_DYNAMIC_INSN:
+                    codeSize += 5;
+                    break;
+                case LDC_INSN:
+                    Object value = constants[code[offset + 1]];
+                    codeSize += value instanceof Long || value instanceof Double ? 3 : 2;
+                    break;
+                case TABLE_SWITCH_INSN:
+                    codeSize += 16 + 4 * ((Label[]) constants[code[offset + 4]]).length;
+                    break;
+                case LOOKUP_SWITCH_INSN:
+                    codeSize += 12 + 8 * ((Label[]) constants[code[offset + 3]]).length;
+                    break;
+                case MULTI_ANEW_ARRAY_INSN:
+                    codeSize += 4;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return codeSize;
+    }
+
+    /**
+     * @return whether any try-catch blocks were recorded
+     */
+    public boolean hasTryCatchBlocks() {
+        return contains(TRY_CATCH_BLOCK);
+    }
+
+    /**
+     * @return whether any {@link AppendInstruction}s were added
+     */
+    public boolean hasAppendInstructions() {
+        return contains(APPEND_INSTRUCTION);
+    }
+
+    private boolean contains(int kind) {
+        for (int offset = 0; offset < codeLength; offset += recordLength(code, offset)) {
+            if (code[offset] == kind) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int localSize(int varOpcode) {
+        return varOpcode == LLOAD || varOpcode == DLOAD || varOpcode == LSTORE || varOpcode == DSTORE ? 2 : 1;
+    }
+
+    static int recordLength(int[] code, int offset) {
+        switch (code[offset]) {
+            case LABEL:
+            case LDC_INSN:
+            case INSN:
+            case APPEND_INSTRUCTION:
+                return 2;
+            case INT_INSN:
+            case VAR_INSN:
+            case TYPE_INSN:
+            case JUMP_INSN:
+            case IINC_INSN:
+            case MULTI_ANEW_ARRAY_INSN:
+            case LINE_NUMBER:
+            case MAXS:
+                return 3;
+            case LOOKUP_SWITCH_INSN:
+                return 4;
+            case FIELD_INSN:
+            case INVOKE_DYNAMIC_INSN:
+            case TABLE_SWITCH_INSN:
+            case TRY_CATCH_BLOCK:
+                return 5;
+            case METHOD_INSN:
+            case FRAME:
+                return 6;
+            case LOCAL_VARIABLE:
+                return 7;
+            default:
+                throw new IllegalStateException(String.format("Unknown entry kind %d at %d", code[offset], offset));
+        }
+    }
+
+    private int constant(Object value) {
+        if (constantsLength == constants.length) {
+            constants = Arrays.copyOf(constants, constants.length * 2);
+        }
+        constants[constantsLength] = value;
+        return constantsLength++;
+    }
+
+    private void record(int kind, int a) {
+        ensureCodeCapacity(2);
+        code[codeLength++] = kind;
+        code[codeLength++] = a;
+        size++;
+    }
+
+    private void record(int kind, int a, int b) {
+        ensureCodeCapacity(3);
+        code[codeLength++] = kind;
+        code[codeLength++] = a;
+        code[codeLength++] = b;
+        size++;
+    }
+
+    private void record(int kind, int a, int b, int c) {
+        ensureCodeCapacity(4);
+        code[codeLength++] = kind;
+        code[codeLength++] = a;
+        code[codeLength++] = b;
+        code[codeLength++] = c;
+        size++;
+    }
+
+    private void record(int kind, int a, int b, int c, int d) {
+        ensureCodeCapacity(5);
+        code[codeLength++] = kind;
+        code[codeLength++] = a;
+        code[codeLength++] = b;
+        code[codeLength++] = c;
+        code[codeLength++] = d;
+        size++;
+    }
+
+    private void record(int kind, int a, int b, int c, int d, int e) {
+        ensureCodeCapacity(6);
+        code[codeLength++] = kind;
+        code[codeLength++] = a;
+        code[codeLength++] = b;
+        code[codeLength++] = c;
+        code[codeLength++] = d;
+        code[codeLength++] = e;
+        size++;
+    }
+
+    private void record(int kind, int a, int b, int c, int d, int e, int f) {
+        ensureCodeCapacity(7);
+        code[codeLength++] = kind;
+        code[codeLength++] = a;
+        code[codeLength++] = b;
+        code[codeLength++] = c;
+        code[codeLength++] = d;
+        code[codeLength++] = e;
+        code[codeLength++] = f;
+        size++;
+    }
+
+    private void ensureCodeCapacity(int additional) {
+        if (codeLength + additional > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, codeLength + additional));
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof InstructionBuffer)) {
+            return false;
+        }
+
+        InstructionBuffer that = (InstructionBuffer) o;
+        return Arrays.equals(code, 0, codeLength, that.code, 0, that.codeLength)
+                && Arrays.deepEquals(Arrays.copyOf(constants, constantsLength), Arrays.copyOf(that.constants, that.constantsLength));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < codeLength; i++) {
+            result = 31 * result + code[i];
+        }
+        return result;
+    }
+
+    private class Recorder extends MethodVisitor {
+        private Recorder() {
+            super(Config.ASM_VERSION);
+        }
+
+        @Override
+        public void visitInsn(int opcode) {
+            record(INSN, opcode);
+        }
+
+        @Override
+        public void visitIntInsn(int opcode, int operand) {
+            record(INT_INSN, opcode, operand);
+        }
+
+        @Override
+        public void visitVarInsn(int opcode, int var) {
+            record(VAR_INSN, opcode, var);
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            record(TYPE_INSN, opcode, constant(type));
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+            record(FIELD_INSN, opcode, constant(owner), constant(name), constant(descriptor));
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            record(METHOD_INSN, opcode, constant(owner), constant(name), constant(descriptor), isInterface ? 1 : 0);
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+            record(INVOKE_DYNAMIC_INSN, constant(name), constant(descriptor), constant(bootstrapMethodHandle), constant(bootstrapMethodArguments));
+        }
+
+        @Override
+        public void visitJumpInsn(int opcode, Label label) {
+            record(JUMP_INSN, opcode, constant(label));
+        }
+
+        @Override
+        public void visitLabel(Label label) {
+            record(LABEL, constant(label));
+        }
+
+        @Override
+        public void visitLdcInsn(Object value) {
+            record(LDC_INSN, constant(value));
+        }
+
+        @Override
+        public void visitIincInsn(int var, int increment) {
+            record(IINC_INSN, var, increment);
+        }
+
+        @Override
+        public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+            record(TABLE_SWITCH_INSN, min, max, constant(dflt), constant(labels));
+        }
+
+        @Override
+        public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+            record(LOOKUP_SWITCH_INSN, constant(dflt), constant(keys), constant(labels));
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+            record(MULTI_ANEW_ARRAY_INSN, constant(descriptor), numDimensions);
+        }
+
+        @Override
+        public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+            record(TRY_CATCH_BLOCK, constant(start), constant(end), constant(handler), constant(type));
+        }
+
+        @Override
+        public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+            record(LOCAL_VARIABLE, constant(name), constant(descriptor), constant(signature), constant(start), constant(end), index);
+        }
+
+        @Override
+        public void visitLineNumber(int line, Label start) {
+            record(LINE_NUMBER, line, constant(start));
+        }
+
+        @Override
+        public void visitMaxs(int maxStack, int maxLocals) {
+            record(MAXS, maxStack, maxLocals);
+        }
+
+        @Override
+        public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+            // ClassReader reuses the arrays between frames.
+            Object[] localCopy = local == null ? null : Arrays.copyOf(local, numLocal);
+            Object[] stackCopy = stack == null ? null : Arrays.copyOf(stack, numStack);
+            record(FRAME, type, numLocal, constant(localCopy), numStack, constant(stackCopy));
+        }
+    }
+}
@@ -2,33 +2,134 @@ package com.pragmatists.manipulation.bytecode;
 
 import com.pragmatists.manipulation.bytecode.characteristics.MethodCharacteristic;
 import lombok.EqualsAndHashCode;
-import lombok.Getter;
 import org.objectweb.asm.MethodVisitor;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
-@Getter
+/**
+ * Instructions collect bytecode instructions to be later appended to a method by a {@link MethodVisitor}. The
+ * instructions are either recorded through the MethodVisitor returned by {@link #recorder()}, which stores them in a
+ * compact {@link InstructionBuffer}, or collected as {@link AppendInstruction}s. Both can be mixed, the order is kept.
+ * <p>
+ * {@link #appendMethodInstructions(MethodVisitor)} replays the instructions as they were recorded, with the same labels
+ * and local variable indices. Instructions extracted from another method, which use labels or local variables of their
+ * own, should be {@link #splice(MethodVisitor, int) spliced} instead.
+ * <p>
+ * Subclasses wrapping other Instructions, e.g. ones returned by {@link #splicedAt(int)}, share the recorded
+ * instructions with the wrapped ones: instructions recorded or collected through either are appended by both.
+ */
 @EqualsAndHashCode
 public class Instructions {
     private MethodCharacteristic methodCharacteristic;
-    private final List<AppendInstruction> instructionAdditions;
+    private final InstructionBuffer buffer;
 
     public Instructions() {
-        this.instructionAdditions = new ArrayList<>();
+        this.buffer = new InstructionBuffer();
+    }
+
+    /**
+     * @param wrapped instructions whose recorded instructions and method characteristic are shared; subclasses
+     *                override {@link #appendMethodInstructions(MethodVisitor)} to append them in their own way
+     */
+    protected Instructions(Instructions wrapped) {
+        this.buffer = wrapped.buffer;
+        this.methodCharacteristic = wrapped.methodCharacteristic;
     }
 
     public void collectInstruction(AppendInstruction appendInstruction) {
         Objects.requireNonNull(appendInstruction);
-        instructionAdditions.add(appendInstruction);
+        buffer.add(appendInstruction);
+    }
+
+    /**
+     * @return a MethodVisitor recording the visited instructions, without allocating an {@link AppendInstruction} per
+     * instruction
+     */
+    public MethodVisitor recorder() {
+        return buffer.recorder();
     }
 
     public void appendMethodInstructions(MethodVisitor methodVisitor) {
-        instructionAdditions.forEach(instructionAddition -> instructionAddition.accept(methodVisitor));
+        buffer.replay(methodVisitor);
+    }
+
+    /**
+     * Appends the instructions with fresh labels, so they can be spliced into a method more than once. Local variables
+     * of the parameters of the method the instructions come from (see {@link #getMethodCharacteristic()}) are kept,
+     * so the instructions keep using the parameters of the host method, while their other local variables are moved
+     * above the ones used by the host method.
+     *
+     * @param firstFreeLocal the lowest local variable index not used by the host method
+     */
+    public void splice(MethodVisitor methodVisitor, int firstFreeLocal) {
+        splice(methodVisitor, 0, firstFreeLocal);
+    }
+
+    /**
+     * Appends the instructions with fresh labels, with the local variables of parameters moved to start at
+     * parametersBase, and the other local variables moved to start at firstFreeLocal.
+     */
+    public void splice(MethodVisitor methodVisitor, int parametersBase, int firstFreeLocal) {
+        appendMethodInstructions(new InstructionsSplicer(methodVisitor, getParameterSlots(), parametersBase, firstFreeLocal));
+    }
+
+    /**
+     * @return instructions splicing these instructions each time they're appended
+     * @see #splice(MethodVisitor, int)
+     */
+    public Instructions splicedAt(int firstFreeLocal) {
+        return new SplicedInstructions(this, firstFreeLocal);
+    }
+
+    /**
+     * @return number of local variable slots taken by the parameters, including {@code this}, of the method the
+     * instructions come from, or 0 if the method is not known
+     */
+    public int getParameterSlots() {
+        if (methodCharacteristic == null) {
+            return 0;
+        }
+
+        return methodCharacteristic.getParameterSlots();
+    }
+
+    /**
+     * @return number of local variable slots used by the recorded instructions, including the parameters
+     */
+    public int getLocalsSize() {
+        return buffer.localsSize();
+    }
+
+    /**
+     * @return estimated size in bytes of the code of the recorded instructions
+     */
+    public int getCodeSizeEstimate() {
+        return buffer.codeSizeEstimate();
+    }
+
+    public boolean hasTryCatchBlocks() {
+        return buffer.hasTryCatchBlocks();
+    }
+
+    InstructionBuffer getBuffer() {
+        return buffer;
+    }
+
+    public MethodCharacteristic getMethodCharacteristic() {
+        return methodCharacteristic;
     }
 
     public void setMethodCharacteristic(MethodCharacteristic methodCharacteristic) {
         this.methodCharacteristic = methodCharacteristic;
     }
+
+    /**
+     * @return a read-only copy of the collected instructions, each recorded instruction as a separate
+     * AppendInstruction; prefer {@link #appendMethodInstructions(MethodVisitor)}, which doesn't allocate. Instructions
+     * are added with {@link #collectInstruction(AppendInstruction)} or {@link #recorder()}.
+     */
+    public List<AppendInstruction> getInstructionAdditions() {
+        return List.of(buffer.toAppendInstructions());
+    }
 }
@@ -0,0 +1,74 @@
+package com.pragmatists.manipulation.bytecode;
+
+import com.pragmatists.manipulation.config.Config;
+import org.objectweb.asm.MethodVisitor;
+
+import java.util.BitSet;
+
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.RET;
+
+/**
+ * InstructionsOptimizer shrinks recorded instructions before they're injected into methods, with the peephole
+ * simplifications of {@link PeepholeMethodVisitor}: constant folding, dead store elimination and short constant
+ * instructions. A local variable is considered dead if the instructions never read it and it's not a parameter of the
+ * method the instructions come from, so the instructions must not pass values to the host method through local
+ * variables. Instructions with {@link AppendInstruction}s are optimized without dead store elimination, as it's not
+ * known which local variables those read. The {@link AppendInstruction}s themselves are kept as they are.
+ * <p>
+ * Only the instructions recorded in the given {@link Instructions} are optimized, so instructions wrapping others,
+ * e.g. ones returned by {@link Instructions#splicedAt(int)}, should be created from optimized instructions.
+ */
+public final class InstructionsOptimizer {
+    private InstructionsOptimizer() {
+    }
+
+    /**
+     * @return new, optimized instructions with the same method characteristic, and their code sizes
+     * @throws IllegalArgumentException if the instructions are of a subclass of {@link Instructions}, which might
+     *                                  generate instructions other than the recorded ones
+     */
+    public static OptimizationResult optimize(Instructions instructions) {
+        if (instructions.getClass() != Instructions.class) {
+            throw new IllegalArgumentException(String.format("Only recorded instructions can be optimized, not %s.",
+                    instructions.getClass().getName()));
+        }
+
+        InstructionBuffer buffer = instructions.getBuffer();
+        Instructions optimized = new Instructions();
+        optimized.setMethodCharacteristic(instructions.getMethodCharacteristic());
+
+        BitSet readLocals = readLocals(buffer);
+        int parameterSlots = instructions.getParameterSlots();
+        boolean storesMayBeDead = !buffer.hasAppendInstructions();
+        PeepholeMethodVisitor peephole = new PeepholeMethodVisitor(optimized.recorder(),
+                local -> storesMayBeDead && local >= parameterSlots && !readLocals.get(local));
+        buffer.replay(peephole, appendInstruction -> {
+            peephole.flush();
+            optimized.collectInstruction(appendInstruction);
+        });
+        peephole.flush();
+
+        return new OptimizationResult(optimized, instructions.getCodeSizeEstimate(), optimized.getCodeSizeEstimate());
+    }
+
+    private static BitSet readLocals(InstructionBuffer buffer) {
+        BitSet readLocals = new BitSet();
+        buffer.replay(new MethodVisitor(Config.ASM_VERSION) {
+            @Override
+            public void visitVarInsn(int opcode, int var) {
+                if ((opcode >= ILOAD && opcode <= ALOAD) || opcode == RET) {
+                    readLocals.set(var);
+                }
+            }
+
+            @Override
+            public void visitIincInsn(int var, int increment) {
+                readLocals.set(var);
+            }
+        }, appendInstruction -> {
+        });
+        return readLocals;
+    }
+}
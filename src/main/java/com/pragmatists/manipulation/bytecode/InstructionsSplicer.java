@@ -0,0 +1,100 @@
+package com.pragmatists.manipulation.bytecode;
+
+import com.pragmatists.manipulation.config.Config;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * InstructionsSplicer adapts instructions taken from one method to be replayed into another one. Each label gets a
+ * fresh counterpart, so the same instructions can be spliced into a method any number of times. Local variables of
+ * the parameters of the source method are moved to start at {@code parametersBase}, and its other local variables to
+ * start at {@code firstFreeLocal}. Frames and maxs of the source method are dropped, they're computed for the
+ * host method.
+ * <p>
+ * A splicer must be used for one splice only.
+ */
+class InstructionsSplicer extends MethodVisitor {
+    private final Map<Label, Label> labels = new IdentityHashMap<>();
+    private final int parameterSlots;
+    private final int parametersBase;
+    private final int firstFreeLocal;
+
+    InstructionsSplicer(MethodVisitor mv, int parameterSlots, int parametersBase, int firstFreeLocal) {
+        super(Config.ASM_VERSION, mv);
+        this.parameterSlots = parameterSlots;
+        this.parametersBase = parametersBase;
+        this.firstFreeLocal = firstFreeLocal;
+    }
+
+    @Override
+    public void visitVarInsn(int opcode, int var) {
+        super.visitVarInsn(opcode, local(var));
+    }
+
+    @Override
+    public void visitIincInsn(int var, int increment) {
+        super.visitIincInsn(local(var), increment);
+    }
+
+    @Override
+    public void visitJumpInsn(int opcode, Label label) {
+        super.visitJumpInsn(opcode, label(label));
+    }
+
+    @Override
+    public void visitLabel(Label label) {
+        super.visitLabel(label(label));
+    }
+
+    @Override
+    public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+        super.visitTableSwitchInsn(min, max, label(dflt), labels(labels));
+    }
+
+    @Override
+    public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+        super.visitLookupSwitchInsn(label(dflt), keys, labels(labels));
+    }
+
+    @Override
+    public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+        super.visitTryCatchBlock(label(start), label(end), label(handler), type);
+    }
+
+    @Override
+    public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+        super.visitLocalVariable(name, descriptor, signature, label(start), label(end), local(index));
+    }
+
+    @Override
+    public void visitLineNumber(int line, Label start) {
+        super.visitLineNumber(line, label(start));
+    }
+
+    @Override
+    public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+    }
+
+    @Override
+    public void visitMaxs(int maxStack, int maxLocals) {
+    }
+
+    private int local(int index) {
+        return index < parameterSlots ? parametersBase + index : firstFreeLocal + index - parameterSlots;
+    }
+
+    private Label label(Label label) {
+        return labels.computeIfAbsent(label, original -> new Label());
+    }
+
+    private Label[] labels(Label[] labels) {
+        Label[] spliced = new Label[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            spliced[i] = label(labels[i]);
+        }
+        return spliced;
+    }
+}
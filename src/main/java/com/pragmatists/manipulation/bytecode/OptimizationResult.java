@@ -0,0 +1,18 @@
+package com.pragmatists.manipulation.bytecode;
+
+import lombok.Value;
+
+/**
+ * OptimizationResult holds instructions optimized by {@link InstructionsOptimizer} with their estimated code sizes in
+ * bytes before and after the optimization.
+ */
+@Value
+public class OptimizationResult {
+    private final Instructions instructions;
+    private final int codeSizeBefore;
+    private final int codeSizeAfter;
+
+    public int getSavedBytes() {
+        return codeSizeBefore - codeSizeAfter;
+    }
+}
@@ -0,0 +1,458 @@
+package com.pragmatists.manipulation.bytecode;
+
+import com.pragmatists.manipulation.config.Config;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * PeepholeMethodVisitor simplifies straight-line sequences of instructions before passing them on. Constants, local
+ * variable loads and stores and other instructions without operands are held back until a label, a jump, an
+ * invocation or any other instruction which may start or end a basic block, so the simplifications never cross a
+ * jump target. Meanwhile:
+ * <ul>
+ * <li>arithmetic on int and long constants is folded, and identity operations ({@code x + 0}, {@code x * 1}...) are
+ * dropped,</li>
+ * <li>numeric and string constants and loads which are popped right away are dropped, as are self-assignments,</li>
+ * <li>stores to dead local variables are replaced with pops, and so can be dropped with the value stored,</li>
+ * <li>constants are pushed with the shortest instructions, e.g. {@code iconst_2} or {@code bipush} instead of
+ * {@code ldc}.</li>
+ * </ul>
+ * {@link #flush()} must be called after the last instruction.
+ */
+class PeepholeMethodVisitor extends MethodVisitor {
+    private static final int NO_OPERAND = -1;
+
+    private final List<Pending> pending = new ArrayList<>();
+    private final IntPredicate isDeadLocal;
+
+    /**
+     * @param isDeadLocal tells if a local variable is never read, so storing into it can be dropped
+     */
+    PeepholeMethodVisitor(MethodVisitor mv, IntPredicate isDeadLocal) {
+        super(Config.ASM_VERSION, mv);
+        this.isDeadLocal = isDeadLocal;
+    }
+
+    @Override
+    public void visitInsn(int opcode) {
+        if (opcode >= ICONST_M1 && opcode <= DCONST_1) {
+            pushConstant(constantOf(opcode));
+        } else if (!simplified(opcode)) {
+            pending.add(new Pending(opcode, NO_OPERAND, null));
+        }
+    }
+
+    @Override
+    public void visitIntInsn(int opcode, int operand) {
+        if (opcode == BIPUSH || opcode == SIPUSH) {
+            pushConstant(operand);
+        } else {
+            flush();
+            super.visitIntInsn(opcode, operand);
+        }
+    }
+
+    @Override
+    public void visitLdcInsn(Object value) {
+        if (value instanceof Number || value instanceof String) {
+            pushConstant(value);
+        } else { // classes, method types, handles and dynamic constants are resolved, which may fail or load classes
+            flush();
+            super.visitLdcInsn(value);
+        }
+    }
+
+    @Override
+    public void visitVarInsn(int opcode, int var) {
+        if (opcode >= ISTORE && opcode <= ASTORE) {
+            if (isDeadLocal.test(var)) {
+                visitInsn(opcode == LSTORE || opcode == DSTORE ? POP2 : POP);
+                return;
+            }
+            Pending last = last(1);
+            if (last != null && last.opcode == opcode - (ISTORE - ILOAD) && last.operand == var) {
+                removeLast(1);
+                return;
+            }
+        } else if (opcode == RET) {
+            flush();
+            super.visitVarInsn(opcode, var);
+            return;
+        }
+        pending.add(new Pending(opcode, var, null));
+    }
+
+    @Override
+    public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+        if (!isDeadLocal.test(index)) {
+            flush();
+            super.visitLocalVariable(name, descriptor, signature, start, end, index);
+        }
+    }
+
+    @Override
+    public void visitTypeInsn(int opcode, String type) {
+        flush();
+        super.visitTypeInsn(opcode, type);
+    }
+
+    @Override
+    public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+        flush();
+        super.visitFieldInsn(opcode, owner, name, descriptor);
+    }
+
+    @Override
+    public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+        flush();
+        super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+    }
+
+    @Override
+    public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+        flush();
+        super.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+    }
+
+    @Override
+    public void visitJumpInsn(int opcode, Label label) {
+        flush();
+        super.visitJumpInsn(opcode, label);
+    }
+
+    @Override
+    public void visitLabel(Label label) {
+        flush();
+        super.visitLabel(label);
+    }
+
+    @Override
+    public void visitIincInsn(int var, int increment) {
+        flush();
+        super.visitIincInsn(var, increment);
+    }
+
+    @Override
+    public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+        flush();
+        super.visitTableSwitchInsn(min, max, dflt, labels);
+    }
+
+    @Override
+    public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+        flush();
+        super.visitLookupSwitchInsn(dflt, keys, labels);
+    }
+
+    @Override
+    public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+        flush();
+        super.visitMultiANewArrayInsn(descriptor, numDimensions);
+    }
+
+    @Override
+    public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+        flush();
+        super.visitTryCatchBlock(start, end, handler, type);
+    }
+
+    @Override
+    public void visitLineNumber(int line, Label start) {
+        flush();
+        super.visitLineNumber(line, start);
+    }
+
+    @Override
+    public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+        flush();
+        super.visitFrame(type, numLocal, local, numStack, stack);
+    }
+
+    @Override
+    public void visitMaxs(int maxStack, int maxLocals) {
+        flush();
+        super.visitMaxs(maxStack, maxLocals);
+    }
+
+    @Override
+    public void visitEnd() {
+        flush();
+        super.visitEnd();
+    }
+
+    /**
+     * Passes on the instructions held back.
+     */
+    void flush() {
+        for (Pending instruction : pending) {
+            if (instruction.isConstant()) {
+                pushShortest(instruction.constant);
+            } else if (instruction.operand != NO_OPERAND) {
+                super.visitVarInsn(instruction.opcode, instruction.operand);
+            } else {
+                super.visitInsn(instruction.opcode);
+            }
+        }
+        pending.clear();
+    }
+
+    private boolean simplified(int opcode) {
+        Pending last = last(1);
+        Pending beforeLast = last(2);
+        switch (opcode) {
+            case POP:
+                return removeIf(last != null && (last.pushesSingleSlot() || last.opcode == DUP), 1);
+            case POP2:
+                return removeIf(last != null && (last.pushesTwoSlots() || last.opcode == DUP2), 1)
+                        || removeIf(last != null && last.pushesSingleSlot() && beforeLast != null && beforeLast.pushesSingleSlot(), 2);
+            case IADD:
+            case ISUB:
+            case IOR:
+            case IXOR:
+            case ISHL:
+            case ISHR:
+            case IUSHR:
+            case LSHL:
+            case LSHR:
+            case LUSHR:
+                return foldedInt(opcode, last, beforeLast) || removeIf(isConstant(last, 0), 1);
+            case IMUL:
+            case IDIV:
+                return foldedInt(opcode, last, beforeLast) || removeIf(isConstant(last, 1), 1);
+            case IAND:
+            case IREM:
+                return foldedInt(opcode, last, beforeLast);
+            case LADD:
+            case LSUB:
+            case LOR:
+            case LXOR:
+                return foldedLong(opcode, last, beforeLast) || removeIf(isConstant(last, 0L), 1);
+            case LMUL:
+            case LDIV:
+                return foldedLong(opcode, last, beforeLast) || removeIf(isConstant(last, 1L), 1);
+            case LAND:
+            case LREM:
+                return foldedLong(opcode, last, beforeLast);
+            case INEG:
+            case I2L:
+            case I2B:
+            case I2C:
+            case I2S:
+                return last != null && last.constant instanceof Integer && replaceLast(convertedInt(opcode, (Integer) last.constant));
+            case LNEG:
+            case L2I:
+                return last != null && last.constant instanceof Long && replaceLast(convertedLong(opcode, (Long) last.constant));
+            default:
+                return false;
+        }
+    }
+
+    private boolean foldedInt(int opcode, Pending last, Pending beforeLast) {
+        if (last == null || beforeLast == null || !(last.constant instanceof Integer)) {
+            return false;
+        }
+
+        int y = (Integer) last.constant;
+        if (opcode >= LSHL && opcode <= LUSHR) {
+            if (!(beforeLast.constant instanceof Long)) {
+                return false;
+            }
+            long x = (Long) beforeLast.constant;
+            removeLast(2);
+            pushConstant(opcode == LSHL ? x << y : opcode == LSHR ? x >> y : x >>> y);
+            return true;
+        }
+
+        if (!(beforeLast.constant instanceof Integer) || (y == 0 && (opcode == IDIV || opcode == IREM))) {
+            return false; // division by zero is left to throw at run time
+        }
+        int x = (Integer) beforeLast.constant;
+        removeLast(2);
+        pushConstant(intOperation(opcode, x, y));
+        return true;
+    }
+
+    private boolean foldedLong(int opcode, Pending last, Pending beforeLast) {
+        if (last == null || beforeLast == null || !(last.constant instanceof Long) || !(beforeLast.constant instanceof Long)) {
+            return false;
+        }
+
+        long x = (Long) beforeLast.constant;
+        long y = (Long) last.constant;
+        if (y == 0 && (opcode == LDIV || opcode == LREM)) {
+            return false;
+        }
+        removeLast(2);
+        pushConstant(longOperation(opcode, x, y));
+        return true;
+    }
+
+    private static int intOperation(int opcode, int x, int y) {
+        switch (opcode) {
+            case IADD:
+                return x + y;
+            case ISUB:
+                return x - y;
+            case IMUL:
+                return x * y;
+            case IDIV:
+                return x / y;
+            case IREM:
+                return x % y;
+            case IAND:
+                return x & y;
+            case IOR:
+                return x | y;
+            case IXOR:
+                return x ^ y;
+            case ISHL:
+                return x << y;
+            case ISHR:
+                return x >> y;
+            case IUSHR:
+                return x >>> y;
+            default:
+                throw new IllegalArgumentException(String.format("Not an int operation: %d", opcode));
+        }
+    }
+
+    private static long longOperation(int opcode, long x, long y) {
+        switch (opcode) {
+            case LADD:
+                return x + y;
+            case LSUB:
+                return x - y;
+            case LMUL:
+                return x * y;
+            case LDIV:
+                return x / y;
+            case LREM:
+                return x % y;
+            case LAND:
+                return x & y;
+            case LOR:
+                return x | y;
+            case LXOR:
+                return x ^ y;
+            default:
+                throw new IllegalArgumentException(String.format("Not a long operation: %d", opcode));
+        }
+    }
+
+    private static Object convertedInt(int opcode, int value) {
+        switch (opcode) {
+            case INEG:
+                return -value;
+            case I2L:
+                return (long) value;
+            case I2B:
+                return (int) (byte) value;
+            case I2C:
+                return (int) (char) value;
+            default:
+                return (int) (short) value;
+        }
+    }
+
+    private static Object convertedLong(int opcode, long value) {
+        return opcode == LNEG ? (Object) (-value) : (Object) (int) value;
+    }
+
+    private void pushConstant(Object value) {
+        pending.add(new Pending(LDC, NO_OPERAND, value));
+    }
+
+    private void pushShortest(Object value) {
+        if (value instanceof Integer) {
+            int intValue = (Integer) value;
+            if (intValue >= -1 && intValue <= 5) {
+                super.visitInsn(ICONST_0 + intValue);
+            } else if (intValue >= Byte.MIN_VALUE && intValue <= Byte.MAX_VALUE) {
+                super.visitIntInsn(BIPUSH, intValue);
+            } else if (intValue >= Short.MIN_VALUE && intValue <= Short.MAX_VALUE) {
+                super.visitIntInsn(SIPUSH, intValue);
+            } else {
+                super.visitLdcInsn(value);
+            }
+        } else if (value.equals(0L) || value.equals(1L)) {
+            super.visitInsn(LCONST_0 + ((Long) value).intValue());
+        } else if (value.equals(0f) || value.equals(1f) || value.equals(2f)) { // Float.equals tells 0 from -0
+            super.visitInsn(FCONST_0 + ((Float) value).intValue());
+        } else if (value.equals(0d) || value.equals(1d)) {
+            super.visitInsn(DCONST_0 + ((Double) value).intValue());
+        } else {
+            super.visitLdcInsn(value);
+        }
+    }
+
+    private static Object constantOf(int opcode) {
+        if (opcode <= ICONST_5) {
+            return opcode - ICONST_0;
+        } else if (opcode <= LCONST_1) {
+            return (long) (opcode - LCONST_0);
+        } else if (opcode <= FCONST_2) {
+            return (float) (opcode - FCONST_0);
+        }
+        return (double) (opcode - DCONST_0);
+    }
+
+    private static boolean isConstant(Pending instruction, Object value) {
+        return instruction != null && value.equals(instruction.constant);
+    }
+
+    private Pending last(int n) {
+        return pending.size() >= n ? pending.get(pending.size() - n) : null;
+    }
+
+    private boolean removeIf(boolean condition, int n) {
+        if (condition) {
+            removeLast(n);
+        }
+        return condition;
+    }
+
+    private void removeLast(int n) {
+        for (int i = 0; i < n; i++) {
+            pending.remove(pending.size() - 1);
+        }
+    }
+
+    private boolean replaceLast(Object constant) {
+        removeLast(1);
+        pushConstant(constant);
+        return true;
+    }
+
+    private static class Pending {
+        private final int opcode;
+        private final int operand;
+        private final Object constant;
+
+        private Pending(int opcode, int operand, Object constant) {
+            this.opcode = opcode;
+            this.operand = operand;
+            this.constant = constant;
+        }
+
+        private boolean isConstant() {
+            return constant != null;
+        }
+
+        private boolean pushesSingleSlot() {
+            return isConstant() ? !(constant instanceof Long || constant instanceof Double)
+                    : opcode == ILOAD || opcode == FLOAD || opcode == ALOAD || opcode == ACONST_NULL;
+        }
+
+        private boolean pushesTwoSlots() {
+            return isConstant() ? constant instanceof Long || constant instanceof Double
+                    : opcode == LLOAD || opcode == DLOAD;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.pragmatists.manipulation.bytecode;
+
+import lombok.EqualsAndHashCode;
+import org.objectweb.asm.MethodVisitor;
+
+import java.util.List;
+
+/**
+ * Instructions spliced each time they're appended, see {@link Instructions#splicedAt(int)}.
+ */
+@EqualsAndHashCode(callSuper = true)
+class SplicedInstructions extends Instructions {
+    private final Instructions spliced;
+    private final int firstFreeLocal;
+
+    SplicedInstructions(Instructions spliced, int firstFreeLocal) {
+        super(spliced);
+        this.spliced = spliced;
+        this.firstFreeLocal = firstFreeLocal;
+    }
+
+    @Override
+    public void appendMethodInstructions(MethodVisitor methodVisitor) {
+        spliced.splice(methodVisitor, firstFreeLocal);
+    }
+
+    @Override
+    public int getLocalsSize() {
+        return spliced.getLocalsSize();
+    }
+
+    @Override
+    public int getCodeSizeEstimate() {
+        return spliced.getCodeSizeEstimate();
+    }
+
+    @Override
+    public boolean hasTryCatchBlocks() {
+        return spliced.hasTryCatchBlocks();
+    }
+
+    @Override
+    public List<AppendInstruction> getInstructionAdditions() {
+        return List.of(this::appendMethodInstructions);
+    }
+}
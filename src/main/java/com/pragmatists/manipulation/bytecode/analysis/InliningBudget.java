@@ -0,0 +1,55 @@
+package com.pragmatists.manipulation.bytecode.analysis;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * InliningBudget holds the sizes of the {@link InliningThreshold}s methods are checked against after a modification,
+ * and whether crossing any of them fails the modification.
+ */
+@Value
+public class InliningBudget {
+    /**
+     * Defaults of HotSpot on x86_64, crossings are only reported.
+     */
+    public static final InliningBudget HOTSPOT_DEFAULTS = new InliningBudget(35, 325, 8000, false);
+
+    private final int maxInlineSize;
+    private final int freqInlineSize;
+    private final int hugeMethodLimit;
+    private final boolean failingOnCrossing;
+
+    /**
+     * @return the same budget, but failing modifications which make a method cross any threshold
+     */
+    public InliningBudget failingOnCrossing() {
+        return new InliningBudget(maxInlineSize, freqInlineSize, hugeMethodLimit, true);
+    }
+
+    public int sizeOf(InliningThreshold threshold) {
+        switch (threshold) {
+            case MAX_INLINE_SIZE:
+                return maxInlineSize;
+            case FREQ_INLINE_SIZE:
+                return freqInlineSize;
+            default:
+                return hugeMethodLimit;
+        }
+    }
+
+    /**
+     * @return thresholds which a method growing from sizeBefore to sizeAfter outgrows
+     */
+    public List<InliningThreshold> crossedThresholds(int sizeBefore, int sizeAfter) {
+        List<InliningThreshold> crossed = new ArrayList<>();
+        for (InliningThreshold threshold : InliningThreshold.values()) {
+            int size = sizeOf(threshold);
+            if (sizeBefore <= size && sizeAfter > size) {
+                crossed.add(threshold);
+            }
+        }
+        return crossed;
+    }
+}
@@ -0,0 +1,29 @@
+package com.pragmatists.manipulation.bytecode.analysis;
+
+/**
+ * Method code sizes at which HotSpot changes how it compiles a method, named after the JVM flags setting them.
+ */
+public enum InliningThreshold {
+    /**
+     * Methods up to this size are inlined regardless of how often they're called.
+     */
+    MAX_INLINE_SIZE("MaxInlineSize"),
+    /**
+     * Frequently called methods up to this size are inlined.
+     */
+    FREQ_INLINE_SIZE("FreqInlineSize"),
+    /**
+     * Methods larger than this are not compiled at all, unless {@code -XX:-DontCompileHugeMethods} is given.
+     */
+    HUGE_METHOD_LIMIT("HugeMethodLimit");
+
+    private final String flagName;
+
+    InliningThreshold(String flagName) {
+        this.flagName = flagName;
+    }
+
+    public String getFlagName() {
+        return flagName;
+    }
+}
@@ -0,0 +1,26 @@
+package com.pragmatists.manipulation.bytecode.analysis;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * MethodSizeChange describes how the code size of a method changed with a modification, and which
+ * {@link InliningThreshold}s the method outgrew. Methods added by the modification have the size of 0 before.
+ */
+@Value
+public class MethodSizeChange {
+    private final String methodName;
+    private final String descriptor;
+    private final int sizeBefore;
+    private final int sizeAfter;
+    private final List<InliningThreshold> crossedThresholds;
+
+    public int getGrowth() {
+        return sizeAfter - sizeBefore;
+    }
+
+    public boolean isCrossingThresholds() {
+        return !crossedThresholds.isEmpty();
+    }
+}
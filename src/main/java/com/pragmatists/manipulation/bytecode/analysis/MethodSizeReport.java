@@ -0,0 +1,30 @@
+package com.pragmatists.manipulation.bytecode.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares method code sizes of a class before and after a modification.
+ */
+public final class MethodSizeReport {
+    private MethodSizeReport() {
+    }
+
+    /**
+     * @return changes of the methods whose code size changed, in the order of the modified class file
+     */
+    public static List<MethodSizeChange> compare(byte[] originalBytecode, byte[] modifiedBytecode, InliningBudget budget) {
+        Map<String, Integer> sizesBefore = MethodSizes.of(originalBytecode);
+        List<MethodSizeChange> changes = new ArrayList<>();
+        MethodSizes.of(modifiedBytecode).forEach((method, sizeAfter) -> {
+            int sizeBefore = sizesBefore.getOrDefault(method, 0);
+            if (sizeBefore != sizeAfter) {
+                int descriptorStart = method.indexOf('(');
+                changes.add(new MethodSizeChange(method.substring(0, descriptorStart), method.substring(descriptorStart),
+                        sizeBefore, sizeAfter, budget.crossedThresholds(sizeBefore, sizeAfter)));
+            }
+        });
+        return changes;
+    }
+}
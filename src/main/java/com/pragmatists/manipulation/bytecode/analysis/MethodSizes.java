@@ -0,0 +1,63 @@
+package com.pragmatists.manipulation.bytecode.analysis;
+
+import org.objectweb.asm.ClassReader;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * MethodSizes reads the exact sizes of the code of methods, i.e. the {@code code_length} of their {@code Code}
+ * attributes, straight from a class file, without visiting the instructions.
+ */
+public final class MethodSizes {
+    private static final String CODE_ATTRIBUTE = "Code";
+    private static final int ATTRIBUTE_HEADER_SIZE = 6; // name index and length
+    private static final int MEMBER_HEADER_SIZE = 6; // access flags, name index and descriptor index
+    private static final int CODE_LENGTH_OFFSET = 4; // after max_stack and max_locals
+
+    private MethodSizes() {
+    }
+
+    /**
+     * @return code sizes in bytes by method name followed by descriptor (e.g. {@code "add(JJ)Ljava/lang/String;"}), in
+     * the order of the class file; abstract and native methods are left out
+     */
+    public static Map<String, Integer> of(byte[] classFile) {
+        ClassReader reader = new ClassReader(classFile);
+        char[] buffer = new char[reader.getMaxStringLength()];
+
+        int offset = reader.header + 6; // access flags, this class and super class
+        offset += 2 + 2 * reader.readUnsignedShort(offset); // interfaces
+        int fieldsCount = reader.readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < fieldsCount; i++) {
+            offset = skipAttributes(reader, offset + MEMBER_HEADER_SIZE);
+        }
+
+        int methodsCount = reader.readUnsignedShort(offset);
+        offset += 2;
+        Map<String, Integer> sizes = new LinkedHashMap<>(methodsCount * 2);
+        for (int i = 0; i < methodsCount; i++) {
+            String name = reader.readUTF8(offset + 2, buffer);
+            String descriptor = reader.readUTF8(offset + 4, buffer);
+            int attributesCount = reader.readUnsignedShort(offset + MEMBER_HEADER_SIZE);
+            offset += MEMBER_HEADER_SIZE + 2;
+            for (int j = 0; j < attributesCount; j++) {
+                if (CODE_ATTRIBUTE.equals(reader.readUTF8(offset, buffer))) {
+                    sizes.put(name + descriptor, reader.readInt(offset + ATTRIBUTE_HEADER_SIZE + CODE_LENGTH_OFFSET));
+                }
+                offset += ATTRIBUTE_HEADER_SIZE + reader.readInt(offset + 2);
+            }
+        }
+        return sizes;
+    }
+
+    private static int skipAttributes(ClassReader reader, int offset) {
+        int attributesCount = reader.readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < attributesCount; i++) {
+            offset += ATTRIBUTE_HEADER_SIZE + reader.readInt(offset + 2);
+        }
+        return offset;
+    }
+}
@@ -1,5 +1,6 @@
 package com.pragmatists.manipulation.bytecode.characteristics;
 
+import com.pragmatists.manipulation.type.MethodDescriptor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
@@ -7,7 +8,7 @@ import org.objectweb.asm.Type;
 
 import java.util.List;
 
-import static com.pragmatists.manipulation.type.Types.methodDescriptor;
+import static org.objectweb.asm.Opcodes.ACC_STATIC;
 
 @Getter
 @EqualsAndHashCode
@@ -17,18 +18,16 @@ public class MethodCharacteristic {
     private final String name;
     private final List<Class> paramTypes;
     private final Class returnType;
-    private final Type returnType_;
+    private final MethodDescriptor methodDescriptor;
     private final String signature = null; // not supported yet
     private final String[] exceptions = new String[0]; // not supported
-    private final String descriptor;
 
     public MethodCharacteristic(int accessFlag, String name, List<Class> paramTypes, Class returnType) {
         this.accessFlag = accessFlag;
         this.name = name;
         this.paramTypes = paramTypes;
         this.returnType = returnType;
-        this.descriptor = methodDescriptor(returnType, paramTypes.toArray(new Class[0]));
-        this.returnType_ = classToType(returnType);
+        this.methodDescriptor = MethodDescriptor.of(returnType, paramTypes.toArray(new Class[0]));
     }
 
     public MethodCharacteristic(int accessFlag, String name, String descriptor) {
@@ -36,20 +35,22 @@ public class MethodCharacteristic {
         this.name = name;
         this.paramTypes = null;
         this.returnType = null;
-        this.descriptor = descriptor;
-        this.returnType_ = Type.getReturnType(descriptor);
+        this.methodDescriptor = MethodDescriptor.of(descriptor);
     }
 
-    public Type getReturnType() {
-        return returnType_;
+    public String getDescriptor() {
+        return methodDescriptor.getDescriptor();
     }
 
-    private Type classToType(Class c) {
-        if (c == null) {
-            return Type.VOID_TYPE;
-        }
+    public Type getReturnType() {
+        return methodDescriptor.getReturnType();
+    }
 
-        return Type.getType(c);
+    /**
+     * @return number of local variable slots taken by the parameters, including {@code this}
+     */
+    public int getParameterSlots() {
+        return methodDescriptor.getParameterSlots((accessFlag & ACC_STATIC) != 0);
     }
 }
 
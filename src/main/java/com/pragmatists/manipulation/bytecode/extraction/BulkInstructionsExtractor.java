@@ -0,0 +1,146 @@
+package com.pragmatists.manipulation.bytecode.extraction;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.bytecode.characteristics.MethodCharacteristic;
+import com.pragmatists.manipulation.config.Config;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static java.util.stream.Collectors.groupingBy;
+
+/**
+ * BulkInstructionsExtractor extracts {@link Instructions} of many methods of many classes in parallel. Each class is
+ * read once, by a separate task of a {@link ForkJoinPool}, no matter how many of its methods are selected. Unlike
+ * {@link InstructionsExtractor}, a BulkInstructionsExtractor keeps no state between extractions, so it can be shared
+ * between threads.
+ */
+public class BulkInstructionsExtractor {
+    private final ForkJoinPool pool;
+    private final ExtractingMethodVisitorProvider methodVisitorProvider;
+
+    /**
+     * Extracts with {@link LinearExtractingMethodVisitor}s, using the common pool.
+     */
+    public BulkInstructionsExtractor() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Extracts with {@link LinearExtractingMethodVisitor}s, using the given pool.
+     */
+    public BulkInstructionsExtractor(ForkJoinPool pool) {
+        this(pool, LinearExtractingMethodVisitor::of);
+    }
+
+    /**
+     * @param pool                  pool running the extraction tasks
+     * @param methodVisitorProvider function providing an {@link ExtractingMethodVisitor} given
+     *                              {@link MethodCharacteristic} of the currently visited method; a new
+     *                              ExtractingMethodVisitor must be provided on each call
+     */
+    public BulkInstructionsExtractor(ForkJoinPool pool, ExtractingMethodVisitorProvider methodVisitorProvider) {
+        this.pool = Objects.requireNonNull(pool);
+        this.methodVisitorProvider = Objects.requireNonNull(methodVisitorProvider);
+    }
+
+    /**
+     * @param classNamesToBytecode bytecode of classes mapped by their fully qualified names
+     * @param selectors            methods whose instructions are to be extracted
+     * @return instructions mapped by the selectors; selectors of methods that weren't found (or of classes without
+     * bytecode) are not mapped. If a selector without descriptor matches several methods, the instructions of the one
+     * visited last are returned.
+     */
+    public Map<MethodSelector, Instructions> extract(Map<String, byte[]> classNamesToBytecode,
+                                                     Collection<MethodSelector> selectors) {
+        Map<String, List<MethodSelector>> selectorsByClassName = selectors.stream()
+                .filter(selector -> classNamesToBytecode.containsKey(selector.getClassName()))
+                .collect(groupingBy(MethodSelector::getClassName));
+
+        List<ForkJoinTask<Map<MethodSelector, Instructions>>> tasks = new ArrayList<>();
+        selectorsByClassName.forEach((className, classSelectors) -> {
+            byte[] bytecode = classNamesToBytecode.get(className);
+            tasks.add(pool.submit(() -> extractFromClass(bytecode, classSelectors)));
+        });
+
+        Map<MethodSelector, Instructions> result = new HashMap<>();
+        for (ForkJoinTask<Map<MethodSelector, Instructions>> task : tasks) {
+            result.putAll(join(task));
+        }
+        return result;
+    }
+
+    private Map<MethodSelector, Instructions> extractFromClass(byte[] bytecode, List<MethodSelector> selectors) {
+        ClassReader classReader = new ClassReader(bytecode);
+        SelectingClassVisitor visitor = new SelectingClassVisitor(selectors, methodVisitorProvider);
+        classReader.accept(visitor, 0);
+        return visitor.getExtracted();
+    }
+
+    private static Map<MethodSelector, Instructions> join(ForkJoinTask<Map<MethodSelector, Instructions>> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while extracting instructions", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to extract instructions", e.getCause());
+        }
+    }
+
+    /**
+     * Visits a single class, collecting instructions of all the selected methods.
+     */
+    private static class SelectingClassVisitor extends ClassVisitor {
+        private final Map<String, List<MethodSelector>> selectorsByNameAndDescriptor = new HashMap<>();
+        private final Map<String, List<MethodSelector>> selectorsByNameOnly = new HashMap<>();
+        private final ExtractingMethodVisitorProvider methodVisitorProvider;
+        private final Map<MethodSelector, ExtractingMethodVisitor> visitors = new HashMap<>();
+
+        private SelectingClassVisitor(List<MethodSelector> selectors, ExtractingMethodVisitorProvider methodVisitorProvider) {
+            super(Config.ASM_VERSION);
+            this.methodVisitorProvider = methodVisitorProvider;
+            selectors.forEach(selector -> {
+                if (selector.getMethodDescriptor() == null) {
+                    selectorsByNameOnly.computeIfAbsent(selector.getMethodName(), k -> new ArrayList<>()).add(selector);
+                } else {
+                    selectorsByNameAndDescriptor.computeIfAbsent(selector.getMethodName() + selector.getMethodDescriptor(), k -> new ArrayList<>()).add(selector);
+                }
+            });
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            List<MethodSelector> matching = new ArrayList<>();
+            matching.addAll(selectorsByNameAndDescriptor.getOrDefault(name + descriptor, List.of()));
+            matching.addAll(selectorsByNameOnly.getOrDefault(name, List.of()));
+            if (matching.isEmpty()) {
+                return null;
+            }
+
+            MethodCharacteristic characteristic = new MethodCharacteristic(access, name, descriptor);
+            ExtractingMethodVisitor extractingMethodVisitor = methodVisitorProvider.apply(null, characteristic);
+            matching.forEach(selector -> visitors.put(selector, extractingMethodVisitor));
+            return extractingMethodVisitor;
+        }
+
+        private Map<MethodSelector, Instructions> getExtracted() {
+            Map<MethodSelector, Instructions> extracted = new HashMap<>();
+            visitors.forEach((selector, visitor) -> extracted.put(selector, visitor.getInstructions()));
+            return extracted;
+        }
+    }
+}
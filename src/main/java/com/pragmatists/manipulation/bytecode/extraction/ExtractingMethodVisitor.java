@@ -6,11 +6,11 @@ import org.objectweb.asm.MethodVisitor;
 
 /**
  * A MethodVisitor that will extract bytecode instructions and collect them as {@link Instructions}.
- * When ExtractingMethodVisitor visits an instruction that it wants to extract, it should call
- * {@link Instructions#collectInstruction}, e.g.:
+ * When ExtractingMethodVisitor visits an instruction that it wants to extract, it should pass it to the
+ * {@link Instructions#recorder() recorder} of the Instructions, e.g.:
  * <pre>{@code
  *      public void visitInsn(int opcode) {
- *             instructions.collectInstruction(mv -> mv.visitInsn(opcode));
+ *             recorder.visitInsn(opcode);
  *      }
  * }</pre>
  * This way the instructions can be later visited by a different MethodVisitor, e.g. one called by a
@@ -7,4 +7,19 @@ import java.util.function.BiFunction;
 
 @FunctionalInterface
 public interface ExtractingMethodVisitorProvider extends BiFunction<MethodVisitor, MethodCharacteristic, ExtractingMethodVisitor> {
+
+    /**
+     * @return provider of {@link LinearExtractingMethodVisitor}s, which extract instructions up to the first return
+     */
+    static ExtractingMethodVisitorProvider linear() {
+        return LinearExtractingMethodVisitor::of;
+    }
+
+    /**
+     * @return provider of {@link WholeMethodExtractingMethodVisitor}s, which extract all instructions of methods with
+     * any number of returns
+     */
+    static ExtractingMethodVisitorProvider wholeMethod() {
+        return WholeMethodExtractingMethodVisitor::of;
+    }
 }
@@ -16,7 +16,8 @@ import java.util.function.Function;
  * ExtractingMethodVisitors collect desired instructions as {@link Instructions}.
  * <p>
  * CAVEAT: Currently the default ExtractingMethodVisitor implementation used by MethodInstructionExtractor is
- * {@link LinearExtractingMethodVisitor} which is limited almost to only methods with single return opcode.
+ * {@link LinearExtractingMethodVisitor} which is limited almost to only methods with single return opcode. Methods with
+ * multiple return opcodes can be extracted with {@link ExtractingMethodVisitorProvider#wholeMethod()}.
  */
 public class InstructionsExtractor extends ClassVisitor {
     private final String methodName;
@@ -44,7 +45,19 @@ public class InstructionsExtractor extends ClassVisitor {
      * @param methodDescriptor the descriptor of that method
      */
     public InstructionsExtractor(String methodName, String methodDescriptor) {
-        this(methodName, methodDescriptor, null);
+        this(methodName, methodDescriptor, (ClassVisitor) null);
+    }
+
+    /**
+     * @param methodName            the name of a method whose instructions are to be extracted
+     * @param methodDescriptor      the descriptor of that method
+     * @param methodVisitorProvider function providing an {@link ExtractingMethodVisitor} given
+     *                              {@link MethodCharacteristic} of the currently visited method
+     */
+    public InstructionsExtractor(String methodName,
+                                 String methodDescriptor,
+                                 ExtractingMethodVisitorProvider methodVisitorProvider) {
+        this(methodName, methodDescriptor, null, v -> v, methodVisitorProvider, ClassReader::new);
     }
 
     /**
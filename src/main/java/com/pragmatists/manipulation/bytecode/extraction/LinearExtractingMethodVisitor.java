@@ -6,9 +6,6 @@ import com.pragmatists.manipulation.config.Config;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
-import org.objectweb.asm.Type;
-
-import static com.pragmatists.manipulation.type.Types.correspondingReturnBytecode;
 
 /**
  * This is a basic {@link ExtractingMethodVisitor} that will collect all instructions until it encounters a return opcode
@@ -19,6 +16,7 @@ import static com.pragmatists.manipulation.type.Types.correspondingReturnBytecod
  */
 class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
     private final Instructions instructions = new Instructions();
+    private final MethodVisitor recorder = instructions.recorder();
     private final int returnOpcode;
 
     private boolean pastReturn = false;
@@ -30,9 +28,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
     }
 
     static LinearExtractingMethodVisitor of(MethodVisitor methodVisitor, MethodCharacteristic methodCharacteristic) {
-        String descriptor = methodCharacteristic.getDescriptor();
-        Type returnType = Type.getReturnType(descriptor);
-        int returnOpcode = correspondingReturnBytecode(returnType);
+        int returnOpcode = methodCharacteristic.getMethodDescriptor().getReturnOpcode();
         return new LinearExtractingMethodVisitor(methodCharacteristic, returnOpcode, methodVisitor);
     }
 
@@ -48,7 +44,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitInsn(opcode));
+        recorder.visitInsn(opcode);
         super.visitInsn(opcode);
     }
 
@@ -58,7 +54,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitIntInsn(opcode, operand));
+        recorder.visitIntInsn(opcode, operand);
         super.visitIntInsn(opcode, operand);
     }
 
@@ -68,7 +64,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitVarInsn(opcode, var));
+        recorder.visitVarInsn(opcode, var);
         super.visitVarInsn(opcode, var);
     }
 
@@ -78,7 +74,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitTypeInsn(opcode, type));
+        recorder.visitTypeInsn(opcode, type);
         super.visitTypeInsn(opcode, type);
     }
 
@@ -88,7 +84,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitFieldInsn(opcode, owner, name, descriptor));
+        recorder.visitFieldInsn(opcode, owner, name, descriptor);
         super.visitFieldInsn(opcode, owner, name, descriptor);
     }
 
@@ -99,7 +95,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitMethodInsn(opcode, owner, name, descriptor));
+        recorder.visitMethodInsn(opcode, owner, name, descriptor);
         super.visitMethodInsn(opcode, owner, name, descriptor);
     }
 
@@ -109,7 +105,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitMethodInsn(opcode, owner, name, descriptor, isInterface));
+        recorder.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
         super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
     }
 
@@ -119,7 +115,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments));
+        recorder.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
         super.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
     }
 
@@ -129,7 +125,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitJumpInsn(opcode, label));
+        recorder.visitJumpInsn(opcode, label);
         super.visitJumpInsn(opcode, label);
     }
 
@@ -139,7 +135,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitLabel(label));
+        recorder.visitLabel(label);
         super.visitLabel(label);
     }
 
@@ -149,7 +145,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitLdcInsn(value));
+        recorder.visitLdcInsn(value);
         super.visitLdcInsn(value);
     }
 
@@ -159,7 +155,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitIincInsn(var, increment));
+        recorder.visitIincInsn(var, increment);
         super.visitIincInsn(var, increment);
     }
 
@@ -169,7 +165,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitTableSwitchInsn(min, max, dflt, labels));
+        recorder.visitTableSwitchInsn(min, max, dflt, labels);
         super.visitTableSwitchInsn(min, max, dflt, labels);
     }
 
@@ -179,7 +175,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitLookupSwitchInsn(dflt, keys, labels));
+        recorder.visitLookupSwitchInsn(dflt, keys, labels);
         super.visitLookupSwitchInsn(dflt, keys, labels);
     }
 
@@ -189,7 +185,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitMultiANewArrayInsn(descriptor, numDimensions));
+        recorder.visitMultiANewArrayInsn(descriptor, numDimensions);
         super.visitMultiANewArrayInsn(descriptor, numDimensions);
     }
 
@@ -199,7 +195,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitTryCatchBlock(start, end, handler, type));
+        recorder.visitTryCatchBlock(start, end, handler, type);
         super.visitTryCatchBlock(start, end, handler, type);
     }
 
@@ -209,7 +205,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitLocalVariable(name, descriptor, signature, start, end, index));
+        recorder.visitLocalVariable(name, descriptor, signature, start, end, index);
         super.visitLocalVariable(name, descriptor, signature, start, end, index);
     }
 
@@ -219,7 +215,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitLineNumber(line, start));
+        recorder.visitLineNumber(line, start);
         super.visitLineNumber(line, start);
     }
 
@@ -229,7 +225,7 @@ class LinearExtractingMethodVisitor extends ExtractingMethodVisitor {
             return;
         }
 
-        instructions.collectInstruction(mv -> mv.visitMaxs(maxStack, maxLocals));
+        recorder.visitMaxs(maxStack, maxLocals);
         super.visitMaxs(maxStack, maxLocals);
     }
 }
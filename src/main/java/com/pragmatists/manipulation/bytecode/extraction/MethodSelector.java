@@ -0,0 +1,35 @@
+package com.pragmatists.manipulation.bytecode.extraction;
+
+import lombok.Value;
+
+/**
+ * MethodSelector identifies a method whose instructions are to be extracted by a {@link BulkInstructionsExtractor}.
+ */
+@Value
+public class MethodSelector {
+    private final String className;
+    private final String methodName;
+    private final String methodDescriptor;
+
+    /**
+     * @param className        fully qualified name of the class declaring the method
+     * @param methodName       the name of the method
+     * @param methodDescriptor the descriptor of the method, or {@code null} if methodName is unique within the class
+     */
+    public MethodSelector(String className, String methodName, String methodDescriptor) {
+        this.className = className;
+        this.methodName = methodName;
+        this.methodDescriptor = methodDescriptor;
+    }
+
+    /**
+     * Use this factory method only if the methodName argument value uniquely identifies a method in the class.
+     */
+    public static MethodSelector of(String className, String methodName) {
+        return new MethodSelector(className, methodName, null);
+    }
+
+    public static MethodSelector of(String className, String methodName, String methodDescriptor) {
+        return new MethodSelector(className, methodName, methodDescriptor);
+    }
+}
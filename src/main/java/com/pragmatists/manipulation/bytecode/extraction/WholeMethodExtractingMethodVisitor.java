@@ -0,0 +1,114 @@
+package com.pragmatists.manipulation.bytecode.extraction;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.bytecode.characteristics.MethodCharacteristic;
+import com.pragmatists.manipulation.config.Config;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.objectweb.asm.Opcodes.GOTO;
+import static org.objectweb.asm.Opcodes.IRETURN;
+import static org.objectweb.asm.Opcodes.RETURN;
+
+/**
+ * This {@link ExtractingMethodVisitor} collects all instructions of the method, so that methods with multiple return
+ * instructions can be extracted as well. The method is buffered until its end, and then each return instruction is
+ * replaced with a jump to a label placed after the method's last instruction, leaving the returned value on the stack
+ * just like {@link LinearExtractingMethodVisitor} does. The last instruction is dropped if it's a return, so the
+ * common path falls through to that label without a jump.
+ * <p>
+ * All labels of the method are replaced with new ones, which are used consistently by the jumps, switches, try/catch
+ * blocks, local variables and line numbers of the extracted instructions. Stack map frames are not extracted, they have
+ * to be computed by the {@link org.objectweb.asm.ClassWriter ClassWriter} of the class the instructions are added to.
+ */
+class WholeMethodExtractingMethodVisitor extends ExtractingMethodVisitor {
+    private final Instructions instructions = new Instructions();
+    private final MethodVisitor originalMethodVisitor;
+    private final MethodNode method;
+
+    private WholeMethodExtractingMethodVisitor(MethodCharacteristic methodCharacteristic, MethodVisitor methodVisitor) {
+        super(Config.ASM_VERSION, new MethodNode(Config.ASM_VERSION));
+        this.originalMethodVisitor = methodVisitor;
+        this.method = (MethodNode) this.mv;
+        instructions.setMethodCharacteristic(methodCharacteristic);
+    }
+
+    static WholeMethodExtractingMethodVisitor of(MethodVisitor methodVisitor, MethodCharacteristic methodCharacteristic) {
+        return new WholeMethodExtractingMethodVisitor(methodCharacteristic, methodVisitor);
+    }
+
+    @Override
+    Instructions getInstructions() {
+        return instructions;
+    }
+
+    @Override
+    public void visitEnd() {
+        super.visitEnd();
+        extract();
+        if (originalMethodVisitor != null) {
+            method.accept(originalMethodVisitor);
+        }
+    }
+
+    private void extract() {
+        Map<LabelNode, LabelNode> newLabels = new HashMap<>();
+        for (AbstractInsnNode instruction = method.instructions.getFirst(); instruction != null; instruction = instruction.getNext()) {
+            if (instruction instanceof LabelNode) {
+                newLabels.put((LabelNode) instruction, new LabelNode());
+            }
+        }
+
+        MethodVisitor recorder = instructions.recorder();
+        if (method.tryCatchBlocks != null) {
+            for (TryCatchBlockNode tryCatchBlock : method.tryCatchBlocks) {
+                recorder.visitTryCatchBlock(label(newLabels, tryCatchBlock.start), label(newLabels, tryCatchBlock.end),
+                        label(newLabels, tryCatchBlock.handler), tryCatchBlock.type);
+            }
+        }
+
+        AbstractInsnNode lastInstruction = lastOpcode(method);
+        Label exit = new Label();
+        for (AbstractInsnNode instruction = method.instructions.getFirst(); instruction != null; instruction = instruction.getNext()) {
+            int opcode = instruction.getOpcode();
+            if (instruction.getType() == AbstractInsnNode.FRAME) {
+                continue;
+            }
+            if (opcode >= IRETURN && opcode <= RETURN) {
+                if (instruction != lastInstruction) {
+                    recorder.visitJumpInsn(GOTO, exit);
+                }
+                continue;
+            }
+            instruction.clone(newLabels).accept(recorder);
+        }
+        recorder.visitLabel(exit);
+
+        if (method.localVariables != null) {
+            for (LocalVariableNode localVariable : method.localVariables) {
+                recorder.visitLocalVariable(localVariable.name, localVariable.desc, localVariable.signature,
+                        label(newLabels, localVariable.start), label(newLabels, localVariable.end), localVariable.index);
+            }
+        }
+    }
+
+    private static AbstractInsnNode lastOpcode(MethodNode method) {
+        AbstractInsnNode instruction = method.instructions.getLast();
+        while (instruction != null && instruction.getOpcode() < 0) {
+            instruction = instruction.getPrevious();
+        }
+        return instruction;
+    }
+
+    private static Label label(Map<LabelNode, LabelNode> newLabels, LabelNode label) {
+        return newLabels.get(label).getLabel();
+    }
+}
@@ -1,36 +1,65 @@
 package com.pragmatists.manipulation.bytecode.generation;
 
 import com.pragmatists.manipulation.bytecode.characteristics.ClassCharacteristic;
+import com.pragmatists.manipulation.bytecode.hierarchy.ClassHierarchy;
+import com.pragmatists.manipulation.bytecode.hierarchy.HierarchyAwareClassWriter;
 import lombok.Builder;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
-import org.objectweb.asm.util.CheckClassAdapter;
-import org.objectweb.asm.util.TraceClassVisitor;
 
-import java.io.PrintWriter;
 import java.util.List;
 
+import static org.objectweb.asm.Opcodes.ACC_INTERFACE;
+
 /**
  * ClassBytecodeGenerator generates Java bytecode based on {@link ClassCharacteristic} and {@link MethodGenerator}s fields.
+ * By default no diagnostics are applied; see {@link GenerationDiagnostics} for checking and tracing the generated
+ * classes.
  */
 public class ClassBytecodeGenerator {
     private final ClassCharacteristic characteristic;
     private final List<MethodGenerator> methodGenerators;
+    private final ClassHierarchy classHierarchy;
+    private final GenerationDiagnostics diagnostics;
 
+    /**
+     * @param characteristic   characteristic of the generated class
+     * @param methodGenerators generators of the methods of the class
+     * @param classHierarchy   hierarchy used to find common super classes while computing frames, the shared one if
+     *                         {@code null}
+     * @param diagnostics      diagnostics applied while generating, {@link GenerationDiagnostics#none()} if
+     *                         {@code null}
+     */
     @Builder
-    public ClassBytecodeGenerator(ClassCharacteristic characteristic, List<MethodGenerator> methodGenerators) {
+    public ClassBytecodeGenerator(ClassCharacteristic characteristic,
+                                  List<MethodGenerator> methodGenerators,
+                                  ClassHierarchy classHierarchy,
+                                  GenerationDiagnostics diagnostics) {
         this.characteristic = characteristic;
         this.methodGenerators = methodGenerators;
+        this.classHierarchy = classHierarchy != null ? classHierarchy : ClassHierarchy.shared();
+        this.diagnostics = diagnostics != null ? diagnostics : GenerationDiagnostics.none();
+    }
+
+    /**
+     * Generates the class using a {@link HierarchyAwareClassWriter} computing frames.
+     */
+    public byte[] generate() {
+        return generate(new HierarchyAwareClassWriter(ClassWriter.COMPUTE_FRAMES, classHierarchy));
     }
 
     public byte[] generate(ClassWriter classWriter) {
-        PrintWriter printWriter = new PrintWriter(System.out);
-        ClassVisitor tracingVisitor = new TraceClassVisitor(classWriter, printWriter);
-        ClassVisitor checkClassAdapter = new CheckClassAdapter(tracingVisitor, false);
+        if (classWriter instanceof HierarchyAwareClassWriter) {
+            boolean isInterface = (characteristic.getAccessFlag() & ACC_INTERFACE) != 0;
+            ((HierarchyAwareClassWriter) classWriter)
+                    .declareType(characteristic.getInternalName(), characteristic.getSuperInternalName(), isInterface);
+        }
+
+        ClassVisitor classVisitor = diagnostics.wrap(classWriter);
 
-        checkClassAdapter.visit(characteristic.getJavaVersion(), characteristic.getAccessFlag(), characteristic.getInternalName(), characteristic.getSignature(), characteristic.getSuperInternalName(), characteristic.getInterfaces());
-        methodGenerators.forEach(methodGenerator -> methodGenerator.accept(checkClassAdapter));
-        checkClassAdapter.visitEnd();
+        classVisitor.visit(characteristic.getJavaVersion(), characteristic.getAccessFlag(), characteristic.getInternalName(), characteristic.getSignature(), characteristic.getSuperInternalName(), characteristic.getInterfaces());
+        methodGenerators.forEach(methodGenerator -> methodGenerator.accept(classVisitor));
+        classVisitor.visitEnd();
 
         return classWriter.toByteArray();
     }
@@ -0,0 +1,44 @@
+package com.pragmatists.manipulation.bytecode.generation;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.util.CheckClassAdapter;
+import org.objectweb.asm.util.TraceClassVisitor;
+
+import java.io.PrintWriter;
+import java.util.Objects;
+
+/**
+ * GenerationDiagnostics decides which diagnostic visitors {@link ClassBytecodeGenerator} puts in front of the
+ * ClassWriter. Checking and tracing are meant for development: they verify and disassemble every generated class.
+ */
+@FunctionalInterface
+public interface GenerationDiagnostics {
+    /**
+     * @param classVisitor the visitor writing the class
+     * @return the visitor the generator should visit, which delegates to the given one
+     */
+    ClassVisitor wrap(ClassVisitor classVisitor);
+
+    /**
+     * @return diagnostics doing nothing, i.e. no verification, formatting or I/O
+     */
+    static GenerationDiagnostics none() {
+        return classVisitor -> classVisitor;
+    }
+
+    /**
+     * @return diagnostics checking that the generated class is valid, without data flow analysis
+     */
+    static GenerationDiagnostics checkOnly() {
+        return classVisitor -> new CheckClassAdapter(classVisitor, false);
+    }
+
+    /**
+     * @param sink where the textual representation of the generated class is printed
+     * @return diagnostics checking the generated class and printing it to the sink
+     */
+    static GenerationDiagnostics trace(PrintWriter sink) {
+        Objects.requireNonNull(sink);
+        return classVisitor -> new CheckClassAdapter(new TraceClassVisitor(classVisitor, sink), false);
+    }
+}
@@ -3,7 +3,6 @@ package com.pragmatists.manipulation.bytecode.generation;
 import com.pragmatists.manipulation.bytecode.AppendInstruction;
 import com.pragmatists.manipulation.bytecode.Instructions;
 import com.pragmatists.manipulation.bytecode.characteristics.MethodCharacteristic;
-import com.pragmatists.manipulation.type.Types;
 import lombok.Builder;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodVisitor;
@@ -51,7 +50,7 @@ public class MethodGenerator {
 
         appendInstruction.accept(methodVisitor);
 
-        methodVisitor.visitInsn(Types.correspondingReturnBytecode(mc.getReturnType()));
+        methodVisitor.visitInsn(mc.getMethodDescriptor().getReturnOpcode());
         methodVisitor.visitMaxs(AUTO_CALCULATE, AUTO_CALCULATE);
         methodVisitor.visitEnd();
     }
@@ -0,0 +1,35 @@
+package com.pragmatists.manipulation.bytecode.hierarchy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * ClassFileLocator finds the bytecode of a class given its internal name, without loading the class.
+ */
+@FunctionalInterface
+public interface ClassFileLocator {
+    String CLASS_FILE_EXTENSION = ".class";
+
+    /**
+     * @param internalName internal name of a class, e.g. {@code java/lang/String}
+     * @return the bytecode of the class, or {@code null} if it could not be found
+     */
+    byte[] locate(String internalName);
+
+    /**
+     * @param classLoader class loader whose resources are searched for class files, {@code null} for the system
+     *                    class loader
+     * @return locator reading class files as resources of the class loader
+     */
+    static ClassFileLocator ofClassLoader(ClassLoader classLoader) {
+        ClassLoader resourceLoader = classLoader != null ? classLoader : ClassLoader.getSystemClassLoader();
+        return internalName -> {
+            try (InputStream is = resourceLoader.getResourceAsStream(internalName + CLASS_FILE_EXTENSION)) {
+                return is == null ? null : is.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Could not read class file of %s", internalName), e);
+            }
+        };
+    }
+}
@@ -0,0 +1,131 @@
+package com.pragmatists.manipulation.bytecode.hierarchy;
+
+import com.pragmatists.manipulation.cache.BoundedCache;
+import com.pragmatists.manipulation.cache.CacheStatistics;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * ClassHierarchy resolves common super classes of types, as needed by a {@link org.objectweb.asm.ClassWriter} computing
+ * frames, by reading the headers of class files found by a {@link ClassFileLocator}. No class is ever loaded in the
+ * process. Both the parsed headers and the resolved common super classes are kept in bounded caches, so a single
+ * ClassHierarchy is meant to be shared between many transformations.
+ * <p>
+ * Like ASM's default implementation, ClassHierarchy treats interfaces as {@code java/lang/Object}.
+ */
+public class ClassHierarchy {
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+    private static final String OBJECT_INTERNAL_NAME = "java/lang/Object";
+    private static final char KEY_SEPARATOR = ' ';
+
+    private final ClassFileLocator classFileLocator;
+    private final BoundedCache<String, TypeInfo> types;
+    private final BoundedCache<String, String> commonSuperClasses;
+
+    public ClassHierarchy(ClassFileLocator classFileLocator) {
+        this(classFileLocator, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param classFileLocator locator of the class files of resolved types
+     * @param cacheSize        maximum number of entries of each of the caches
+     */
+    public ClassHierarchy(ClassFileLocator classFileLocator, int cacheSize) {
+        this.classFileLocator = Objects.requireNonNull(classFileLocator);
+        this.types = new BoundedCache<>(cacheSize);
+        this.commonSuperClasses = new BoundedCache<>(cacheSize);
+    }
+
+    /**
+     * @return ClassHierarchy reading class files through the class loader that loaded this library
+     */
+    public static ClassHierarchy shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    public static ClassHierarchy ofClassLoader(ClassLoader classLoader) {
+        return new ClassHierarchy(ClassFileLocator.ofClassLoader(classLoader));
+    }
+
+    /**
+     * @param type1 internal name of a class
+     * @param type2 internal name of another class
+     * @return internal name of the closest common super class of the two
+     * @throws TypeNotPresentException if the class file of a type in the hierarchy could not be found
+     */
+    public String getCommonSuperClass(String type1, String type2) {
+        return getCommonSuperClass(type1, type2, Map.of());
+    }
+
+    /**
+     * Statistics of common super class resolutions: how many were answered from the cache and how many missed.
+     */
+    public CacheStatistics getStatistics() {
+        return commonSuperClasses.statistics();
+    }
+
+    String getCommonSuperClass(String type1, String type2, Map<String, TypeInfo> declaredTypes) {
+        if (type1.equals(type2)) {
+            return type1;
+        }
+        if (OBJECT_INTERNAL_NAME.equals(type1) || OBJECT_INTERNAL_NAME.equals(type2)) {
+            return OBJECT_INTERNAL_NAME;
+        }
+
+        if (declaredTypes.containsKey(type1) || declaredTypes.containsKey(type2)) {
+            // Types declared by a single writer must not leak into the shared cache.
+            return resolveCommonSuperClass(type1, type2, declaredTypes);
+        }
+
+        return commonSuperClasses.get(type1 + KEY_SEPARATOR + type2, key -> resolveCommonSuperClass(type1, type2, declaredTypes));
+    }
+
+    private String resolveCommonSuperClass(String type1, String type2, Map<String, TypeInfo> declaredTypes) {
+        TypeInfo info1 = typeInfo(type1, declaredTypes);
+        TypeInfo info2 = typeInfo(type2, declaredTypes);
+        if (info1.isInterface() || info2.isInterface()) {
+            return OBJECT_INTERNAL_NAME;
+        }
+
+        Set<String> superClassesOfType2 = new HashSet<>();
+        for (String current = type2; current != null; current = superName(current, declaredTypes)) {
+            superClassesOfType2.add(current);
+        }
+
+        for (String current = type1; current != null; current = superName(current, declaredTypes)) {
+            if (superClassesOfType2.contains(current)) {
+                return current;
+            }
+        }
+        return OBJECT_INTERNAL_NAME;
+    }
+
+    private String superName(String internalName, Map<String, TypeInfo> declaredTypes) {
+        return OBJECT_INTERNAL_NAME.equals(internalName) ? null : typeInfo(internalName, declaredTypes).getSuperName();
+    }
+
+    private TypeInfo typeInfo(String internalName, Map<String, TypeInfo> declaredTypes) {
+        TypeInfo declared = declaredTypes.get(internalName);
+        if (declared != null) {
+            return declared;
+        }
+
+        TypeInfo typeInfo = types.get(internalName, this::readTypeInfo);
+        if (typeInfo == null) {
+            throw new TypeNotPresentException(internalName.replace('/', '.'), null);
+        }
+        return typeInfo;
+    }
+
+    private TypeInfo readTypeInfo(String internalName) {
+        byte[] classBytecode = classFileLocator.locate(internalName);
+        return classBytecode == null ? null : TypeInfo.of(classBytecode);
+    }
+
+    private static class SharedHolder {
+        private static final ClassHierarchy INSTANCE = ofClassLoader(ClassHierarchy.class.getClassLoader());
+    }
+}
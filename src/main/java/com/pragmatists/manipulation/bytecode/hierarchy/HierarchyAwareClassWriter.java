@@ -0,0 +1,53 @@
+package com.pragmatists.manipulation.bytecode.hierarchy;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HierarchyAwareClassWriter is a {@link ClassWriter} resolving common super classes through a {@link ClassHierarchy}
+ * instead of loading classes, which is what ASM's default implementation does when computing frames.
+ * <p>
+ * The class being written is usually not available to the ClassHierarchy yet (it's being generated or modified), so it
+ * has to be declared with {@link #declareType}. This is done automatically for the class read by the ClassReader passed
+ * to the constructor.
+ */
+public class HierarchyAwareClassWriter extends ClassWriter {
+    private final ClassHierarchy classHierarchy;
+    private final Map<String, TypeInfo> declaredTypes = new HashMap<>();
+
+    public HierarchyAwareClassWriter(int flags, ClassHierarchy classHierarchy) {
+        super(flags);
+        this.classHierarchy = classHierarchy;
+    }
+
+    /**
+     * @param classReader    the ClassReader used to read the original class, see
+     *                       {@link ClassWriter#ClassWriter(ClassReader, int)}
+     * @param flags          option flags of the ClassWriter
+     * @param classHierarchy hierarchy resolving common super classes
+     */
+    public HierarchyAwareClassWriter(ClassReader classReader, int flags, ClassHierarchy classHierarchy) {
+        super(classReader, flags);
+        this.classHierarchy = classHierarchy;
+        declaredTypes.put(classReader.getClassName(), TypeInfo.of(classReader));
+    }
+
+    /**
+     * Makes a type, whose class file is not available to the ClassHierarchy, known to this ClassWriter only.
+     *
+     * @param internalName internal name of the type
+     * @param superName    internal name of its super class, {@code null} only for {@code java/lang/Object}
+     * @param isInterface  whether the type is an interface
+     */
+    public void declareType(String internalName, String superName, boolean isInterface) {
+        declaredTypes.put(internalName, new TypeInfo(superName, isInterface));
+    }
+
+    @Override
+    protected String getCommonSuperClass(String type1, String type2) {
+        return classHierarchy.getCommonSuperClass(type1, type2, declaredTypes);
+    }
+}
@@ -0,0 +1,23 @@
+package com.pragmatists.manipulation.bytecode.hierarchy;
+
+import lombok.Value;
+import org.objectweb.asm.ClassReader;
+
+import static org.objectweb.asm.Opcodes.ACC_INTERFACE;
+
+/**
+ * The part of a class's header needed to find common super classes.
+ */
+@Value
+class TypeInfo {
+    private final String superName;
+    private final boolean isInterface;
+
+    static TypeInfo of(ClassReader classReader) {
+        return new TypeInfo(classReader.getSuperName(), (classReader.getAccess() & ACC_INTERFACE) != 0);
+    }
+
+    static TypeInfo of(byte[] classBytecode) {
+        return of(new ClassReader(classBytecode));
+    }
+}
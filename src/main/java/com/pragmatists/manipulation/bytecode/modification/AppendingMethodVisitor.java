@@ -2,32 +2,197 @@ package com.pragmatists.manipulation.bytecode.modification;
 
 import com.pragmatists.manipulation.bytecode.Instructions;
 import com.pragmatists.manipulation.config.Config;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.objectweb.asm.Opcodes.ATHROW;
 import static org.objectweb.asm.Opcodes.IRETURN;
 import static org.objectweb.asm.Opcodes.RETURN;
 
 /**
  * AppendingMethodVisitor injects instructions just before each of the method's return instructions.
+ * <p>
+ * Created by {@link #onEveryExit()}, it also runs the instructions when the method exits by throwing, the way a
+ * {@code finally} block would: the method's code is covered by a catch-all handler, registered after the method's own
+ * handlers, which runs the instructions and rethrows. The injected returns are left out of the handler's ranges, so
+ * the instructions run exactly once on every exit, and the normal path has no additional branches. In this mode:
+ * <ul>
+ * <li>the instructions must leave the operand stack as they found it, as they run with the thrown exception on it,</li>
+ * <li>frames must be computed by the {@link org.objectweb.asm.ClassWriter} (which is always the case for
+ * {@link InstructionsModifier#modifyMethodsInClassfile}),</li>
+ * <li>constructors are not supported, since a handler cannot cover the call to the super constructor.</li>
+ * </ul>
  */
 public class AppendingMethodVisitor extends ModifyingMethodVisitor {
     private final MethodVisitor originalMethodVisitor;
     private final Instructions instructions;
+    private final boolean onEveryExit;
+    private final List<Label> coveredRanges = new ArrayList<>(); // pairs of start and end labels
+    private Label rangeStart;
+    private boolean rangeHasCode;
 
     public AppendingMethodVisitor(MethodVisitor mv, Instructions instructions) {
+        this(mv, instructions, false);
+    }
+
+    /**
+     * @param onEveryExit whether the instructions are also run when the method exits by throwing
+     */
+    public AppendingMethodVisitor(MethodVisitor mv, Instructions instructions, boolean onEveryExit) {
         super(Config.ASM_VERSION, mv);
         this.originalMethodVisitor = mv;
         this.instructions = instructions;
+        this.onEveryExit = onEveryExit;
+    }
+
+    /**
+     * @return provider of AppendingMethodVisitors which run the instructions on every exit of the method, including
+     * exits by throwing
+     */
+    public static ModifyingMethodVisitorProvider onEveryExit() {
+        return (mv, instructions) -> new AppendingMethodVisitor(mv, instructions, true);
+    }
+
+    @Override
+    public void visitCode() {
+        super.visitCode();
+        if (onEveryExit) {
+            startRange();
+        }
     }
 
     @Override
     public void visitInsn(int opcode) {
         if (isReturnOpcode(opcode)) {
+            if (onEveryExit) {
+                endRange();
+            }
             instructions.appendMethodInstructions(originalMethodVisitor);
         }
 
         originalMethodVisitor.visitInsn(opcode);
         originalMethodVisitor.visitEnd();
+
+        if (onEveryExit && isReturnOpcode(opcode)) {
+            startRange();
+        } else {
+            rangeHasCode = true;
+        }
+    }
+
+    @Override
+    public void visitMaxs(int maxStack, int maxLocals) {
+        if (onEveryExit) {
+            endRange();
+            Label handler = new Label();
+            for (int i = 0; i < coveredRanges.size(); i += 2) {
+                originalMethodVisitor.visitTryCatchBlock(coveredRanges.get(i), coveredRanges.get(i + 1), handler, null);
+            }
+            if (!coveredRanges.isEmpty()) {
+                originalMethodVisitor.visitLabel(handler);
+                instructions.appendMethodInstructions(originalMethodVisitor);
+                originalMethodVisitor.visitInsn(ATHROW);
+            }
+        }
+
+        super.visitMaxs(maxStack, maxLocals);
+    }
+
+    @Override
+    public void visitIntInsn(int opcode, int operand) {
+        rangeHasCode = true;
+        super.visitIntInsn(opcode, operand);
+    }
+
+    @Override
+    public void visitVarInsn(int opcode, int var) {
+        rangeHasCode = true;
+        super.visitVarInsn(opcode, var);
+    }
+
+    @Override
+    public void visitTypeInsn(int opcode, String type) {
+        rangeHasCode = true;
+        super.visitTypeInsn(opcode, type);
+    }
+
+    @Override
+    public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+        rangeHasCode = true;
+        super.visitFieldInsn(opcode, owner, name, descriptor);
+    }
+
+    @Override
+    public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+        rangeHasCode = true;
+        super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+    }
+
+    @Override
+    public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+        rangeHasCode = true;
+        super.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+    }
+
+    @Override
+    public void visitJumpInsn(int opcode, Label label) {
+        rangeHasCode = true;
+        super.visitJumpInsn(opcode, label);
+    }
+
+    @Override
+    public void visitLdcInsn(Object value) {
+        rangeHasCode = true;
+        super.visitLdcInsn(value);
+    }
+
+    @Override
+    public void visitIincInsn(int var, int increment) {
+        rangeHasCode = true;
+        super.visitIincInsn(var, increment);
+    }
+
+    @Override
+    public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+        rangeHasCode = true;
+        super.visitTableSwitchInsn(min, max, dflt, labels);
+    }
+
+    @Override
+    public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+        rangeHasCode = true;
+        super.visitLookupSwitchInsn(dflt, keys, labels);
+    }
+
+    @Override
+    public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+        rangeHasCode = true;
+        super.visitMultiANewArrayInsn(descriptor, numDimensions);
+    }
+
+    private void startRange() {
+        rangeStart = new Label();
+        rangeHasCode = false;
+        originalMethodVisitor.visitLabel(rangeStart);
+    }
+
+    // Ranges without instructions are dropped, as the JVM rejects empty exception handler ranges.
+    private void endRange() {
+        if (rangeStart == null) {
+            return;
+        }
+
+        if (rangeHasCode) {
+            Label rangeEnd = new Label();
+            originalMethodVisitor.visitLabel(rangeEnd);
+            coveredRanges.add(rangeStart);
+            coveredRanges.add(rangeEnd);
+        }
+        rangeStart = null;
     }
 
     private boolean isReturnOpcode(int opcode) {
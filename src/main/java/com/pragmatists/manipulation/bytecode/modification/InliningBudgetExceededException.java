@@ -0,0 +1,28 @@
+package com.pragmatists.manipulation.bytecode.modification;
+
+import com.pragmatists.manipulation.bytecode.analysis.MethodSizeChange;
+
+import java.util.stream.Collectors;
+
+/**
+ * Thrown when a modification makes methods outgrow thresholds of an
+ * {@link com.pragmatists.manipulation.bytecode.analysis.InliningBudget InliningBudget} failing on crossing.
+ */
+public class InliningBudgetExceededException extends IllegalStateException {
+    private final transient ModificationResult result;
+
+    InliningBudgetExceededException(ModificationResult result) {
+        super(result.getThresholdCrossings().stream()
+                .map(change -> String.format("%s%s grew from %d to %d bytes, crossing %s", change.getMethodName(),
+                        change.getDescriptor(), change.getSizeBefore(), change.getSizeAfter(), change.getCrossedThresholds()))
+                .collect(Collectors.joining("; ", "Modification exceeds the inlining budget: ", "")));
+        this.result = result;
+    }
+
+    /**
+     * @return the result of the failed modification, including the modified bytecode
+     */
+    public ModificationResult getResult() {
+        return result;
+    }
+}
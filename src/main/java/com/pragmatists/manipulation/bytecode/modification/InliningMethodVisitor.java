@@ -0,0 +1,86 @@
+package com.pragmatists.manipulation.bytecode.modification;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.config.Config;
+import com.pragmatists.manipulation.type.MethodDescriptor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import static org.objectweb.asm.Opcodes.ASTORE;
+import static org.objectweb.asm.Opcodes.DUP;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.POP;
+
+/**
+ * InliningMethodVisitor replaces invocations of the methods inlined by a {@link MethodInliner} with their bodies. The
+ * arguments are popped from the operand stack into local variables above the ones used by the method, the receiver of
+ * an instance method is checked for {@code null}, and the body is {@link Instructions#splice spliced} in using those
+ * local variables as its parameters. The method is buffered until its end to find the first free local variable; all
+ * the inlined bodies share the local variables above it.
+ * <p>
+ * Inlining is not recursive: invocations within the inlined bodies are left as they are.
+ */
+public class InliningMethodVisitor extends ModifyingMethodVisitor {
+    private final MethodVisitor originalMethodVisitor;
+    private final MethodNode method;
+    private final MethodInliner inliner;
+
+    public InliningMethodVisitor(MethodVisitor mv, MethodInliner inliner) {
+        super(Config.ASM_VERSION, new MethodNode(Config.ASM_VERSION));
+        this.originalMethodVisitor = mv;
+        this.method = (MethodNode) this.mv;
+        this.inliner = inliner;
+    }
+
+    @Override
+    public void visitEnd() {
+        super.visitEnd();
+        int parametersBase = LocalVariables.firstFreeLocal(method);
+        method.maxLocals = Math.max(method.maxLocals, parametersBase + inlinedLocalsSize());
+        method.accept(new MethodVisitor(Config.ASM_VERSION, originalMethodVisitor) {
+            @Override
+            public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+                Instructions body = inliner.inlinedBody(opcode, owner, name, descriptor);
+                if (body == null) {
+                    super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+                    return;
+                }
+
+                storeArguments(opcode, descriptor, parametersBase, body.getParameterSlots());
+                body.splice(originalMethodVisitor, parametersBase, parametersBase + body.getParameterSlots());
+            }
+        });
+    }
+
+    private void storeArguments(int opcode, String descriptor, int parametersBase, int parameterSlots) {
+        MethodDescriptor methodDescriptor = MethodDescriptor.of(descriptor);
+        int argumentsBase = parametersBase + parameterSlots - methodDescriptor.getArgumentsSize();
+        for (int i = methodDescriptor.getArgumentCount() - 1; i >= 0; i--) {
+            originalMethodVisitor.visitVarInsn(methodDescriptor.getStoreOpcode(i), argumentsBase + methodDescriptor.getArgumentSlot(i));
+        }
+
+        if (opcode != INVOKESTATIC) {
+            originalMethodVisitor.visitInsn(DUP);
+            originalMethodVisitor.visitMethodInsn(INVOKESTATIC, "java/util/Objects", "requireNonNull",
+                    "(Ljava/lang/Object;)Ljava/lang/Object;", false);
+            originalMethodVisitor.visitInsn(POP);
+            originalMethodVisitor.visitVarInsn(ASTORE, parametersBase);
+        }
+    }
+
+    private int inlinedLocalsSize() {
+        int localsSize = 0;
+        for (AbstractInsnNode instruction = method.instructions.getFirst(); instruction != null; instruction = instruction.getNext()) {
+            if (instruction instanceof MethodInsnNode) {
+                MethodInsnNode invocation = (MethodInsnNode) instruction;
+                Instructions body = inliner.inlinedBody(invocation.getOpcode(), invocation.owner, invocation.name, invocation.desc);
+                if (body != null) {
+                    localsSize = Math.max(localsSize, Math.max(body.getLocalsSize(), body.getParameterSlots()));
+                }
+            }
+        }
+        return localsSize;
+    }
+}
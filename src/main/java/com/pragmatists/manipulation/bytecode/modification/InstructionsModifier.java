@@ -1,25 +1,38 @@
 package com.pragmatists.manipulation.bytecode.modification;
 
 import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.bytecode.analysis.InliningBudget;
+import com.pragmatists.manipulation.bytecode.analysis.MethodSizeReport;
+import com.pragmatists.manipulation.bytecode.hierarchy.ClassHierarchy;
 import com.pragmatists.manipulation.config.Config;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.MethodVisitor;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
- * MethodBytecodeModifier uses special MethodVisitors (@link ModifyingMethodVisitor) to modify instructions of one of
- * the visited class's methods. Several ModifyingMethodVisitors can be combined to apply different changes, but the
+ * MethodBytecodeModifier uses special MethodVisitors (@link ModifyingMethodVisitor) to modify instructions of the
+ * visited class's methods. Several ModifyingMethodVisitors can be combined to apply different changes, but the
  * order of visiting is relevant.
+ * <p>
+ * Any number of {@link MethodModification}s can be applied during a single visitation of a class. The modifications
+ * are looked up by method name and descriptor, and the ones targeting the same method are applied in the order in
+ * which they were given. Methods without modifications are passed through unchanged to the delegate ClassVisitor, which
+ * lets a {@link ClassWriter} seeded with the original {@link ClassReader} copy them as they are (see
+ * {@link WritingStrategy#COPY_UNMODIFIED_METHODS}).
  */
 public class InstructionsModifier extends ClassVisitor {
-    private final String methodName;
-    private final String descriptor;
-    private final Instructions instructions;
+    private final Map<String, List<IndexedModification>> modificationsByNameAndDescriptor = new HashMap<>();
+    private final Map<String, List<IndexedModification>> modificationsByNameOnly = new HashMap<>();
     private final ClassVisitor classVisitor;
-    private final ModifyingMethodVisitorProvider methodVisitorProvider;
 
     /**
      * Use this constructor only if the methodName argument value uniquely identifies a method in the class (i.e. when
@@ -37,14 +50,28 @@ public class InstructionsModifier extends ClassVisitor {
                                 Instructions instructions,
                                 ClassVisitor classVisitor,
                                 ModifyingMethodVisitorProvider methodVisitorProvider) {
+        this(List.of(new MethodModification(methodName, descriptor, instructions, methodVisitorProvider)), classVisitor);
+    }
+
+    /**
+     * @param modifications modifications to be applied, in the order of application for modifications targeting the
+     *                      same method
+     * @param classVisitor  the ClassVisitor this InstructionsModifier delegates to, usually a {@link ClassWriter}
+     */
+    public InstructionsModifier(Collection<MethodModification> modifications, ClassVisitor classVisitor) {
         super(Config.ASM_VERSION, classVisitor);
 
-        Objects.requireNonNull(methodName, "Method name cannot be null");
-        this.methodName = methodName;
-        this.instructions = instructions;
         this.classVisitor = classVisitor;
-        this.methodVisitorProvider = methodVisitorProvider;
-        this.descriptor = descriptor;
+        int index = 0;
+        for (MethodModification modification : modifications) {
+            Objects.requireNonNull(modification, "Modification cannot be null");
+            IndexedModification indexed = new IndexedModification(index++, modification);
+            if (modification.getDescriptor() == null) {
+                modificationsByNameOnly.computeIfAbsent(modification.getMethodName(), k -> new ArrayList<>()).add(indexed);
+            } else {
+                modificationsByNameAndDescriptor.computeIfAbsent(key(modification.getMethodName(), modification.getDescriptor()), k -> new ArrayList<>()).add(indexed);
+            }
+        }
     }
 
     /**
@@ -60,29 +87,122 @@ public class InstructionsModifier extends ClassVisitor {
                                                  byte[] originalBytecode,
                                                  Instructions instructions,
                                                  ModifyingMethodVisitorProvider methodVisitorProvider) {
+        return modifyMethodsInClassfile(originalBytecode,
+                List.of(new MethodModification(methodName, descriptor, instructions, methodVisitorProvider)));
+    }
+
+    /**
+     * Applies all the modifications in a single pass over the original bytecode.
+     *
+     * @param originalBytecode bytecode of the original class having the methods to be modified
+     * @param modifications    modifications to be applied
+     * @return class bytecode modified using the ModifyingMethodVisitors of the modifications
+     */
+    public static byte[] modifyMethodsInClassfile(byte[] originalBytecode, Collection<MethodModification> modifications) {
+        return modifyMethodsInClassfile(originalBytecode, modifications, WritingStrategy.RECOMPUTE_ALL_METHODS);
+    }
+
+    /**
+     * Applies all the modifications in a single pass over the original bytecode.
+     *
+     * @param originalBytecode bytecode of the original class having the methods to be modified
+     * @param modifications    modifications to be applied
+     * @param writingStrategy  decides whether methods without modifications are rewritten or copied as they are
+     * @return class bytecode modified using the ModifyingMethodVisitors of the modifications
+     */
+    public static byte[] modifyMethodsInClassfile(byte[] originalBytecode,
+                                                  Collection<MethodModification> modifications,
+                                                  WritingStrategy writingStrategy) {
+        return modifyMethodsInClassfile(originalBytecode, modifications, writingStrategy, ClassHierarchy.shared());
+    }
+
+    /**
+     * Applies all the modifications in a single pass over the original bytecode.
+     *
+     * @param originalBytecode bytecode of the original class having the methods to be modified
+     * @param modifications    modifications to be applied
+     * @param writingStrategy  decides whether methods without modifications are rewritten or copied as they are
+     * @param classHierarchy   hierarchy used to find common super classes while computing frames
+     * @return class bytecode modified using the ModifyingMethodVisitors of the modifications
+     */
+    public static byte[] modifyMethodsInClassfile(byte[] originalBytecode,
+                                                  Collection<MethodModification> modifications,
+                                                  WritingStrategy writingStrategy,
+                                                  ClassHierarchy classHierarchy) {
         ClassReader classReader = new ClassReader(originalBytecode);
-        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
-        InstructionsModifier modifier =
-                new InstructionsModifier(methodName, descriptor, instructions, classWriter, methodVisitorProvider);
+        ClassWriter classWriter = writingStrategy.classWriter(classReader, classHierarchy);
+        InstructionsModifier modifier = new InstructionsModifier(modifications, classWriter);
 
         classReader.accept(modifier, 0);
         return classWriter.toByteArray();
     }
 
+    /**
+     * Applies all the modifications in a single pass over the original bytecode, and compares the code sizes of the
+     * methods before and after the modification against the inlining budget.
+     *
+     * @param originalBytecode bytecode of the original class having the methods to be modified
+     * @param modifications    modifications to be applied
+     * @param writingStrategy  decides whether methods without modifications are rewritten or copied as they are
+     * @param budget           inlining thresholds the methods are checked against
+     * @return class bytecode modified using the ModifyingMethodVisitors of the modifications, with the size changes
+     * @throws InliningBudgetExceededException if any method crosses a threshold and the budget is failing on crossing
+     */
+    public static ModificationResult modifyMethodsInClassfile(byte[] originalBytecode,
+                                                              Collection<MethodModification> modifications,
+                                                              WritingStrategy writingStrategy,
+                                                              InliningBudget budget) {
+        byte[] bytecode = modifyMethodsInClassfile(originalBytecode, modifications, writingStrategy);
+        ModificationResult result = new ModificationResult(bytecode, MethodSizeReport.compare(originalBytecode, bytecode, budget));
+        if (budget.isFailingOnCrossing() && !result.getThresholdCrossings().isEmpty()) {
+            throw new InliningBudgetExceededException(result);
+        }
+        return result;
+    }
+
     @Override
     public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
         MethodVisitor methodVisitor = classVisitor.visitMethod(access, name, descriptor, signature, exceptions);
-        if (methodIsForModification(name, descriptor, methodVisitor)) {
-            return methodVisitorProvider.apply(methodVisitor, instructions);
-        } else {
-            return methodVisitor;
+        if (methodVisitor == null) {
+            return null;
+        }
+
+        for (MethodModification modification : modificationsFor(name, descriptor)) {
+            methodVisitor = modification.apply(methodVisitor);
+        }
+        return methodVisitor;
+    }
+
+    private List<MethodModification> modificationsFor(String name, String descriptor) {
+        List<IndexedModification> exact = modificationsByNameAndDescriptor.getOrDefault(key(name, descriptor), Collections.emptyList());
+        List<IndexedModification> byName = modificationsByNameOnly.getOrDefault(name, Collections.emptyList());
+        if (exact.isEmpty() && byName.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<IndexedModification> matching = new ArrayList<>(exact.size() + byName.size());
+        matching.addAll(exact);
+        matching.addAll(byName);
+        if (!exact.isEmpty() && !byName.isEmpty()) {
+            matching.sort((first, second) -> Integer.compare(first.index, second.index));
         }
+
+        List<MethodModification> result = new ArrayList<>(matching.size());
+        matching.forEach(indexed -> result.add(indexed.modification));
+        return result;
     }
 
-    private boolean methodIsForModification(String name, String descriptor, MethodVisitor methodVisitor) {
-        return methodVisitor != null
-                && methodName.equals(name)
-                && (this.descriptor == null || this.descriptor.equals(descriptor));
+    private static String key(String name, String descriptor) {
+        return name + descriptor; // descriptors always start with '(' which is not allowed in method names
     }
 
+    private static class IndexedModification {
+        private final int index;
+        private final MethodModification modification;
+
+        private IndexedModification(int index, MethodModification modification) {
+            this.index = index;
+            this.modification = modification;
+        }
+    }
 }
@@ -0,0 +1,48 @@
+package com.pragmatists.manipulation.bytecode.modification;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.IincInsnNode;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+import static org.objectweb.asm.Opcodes.DLOAD;
+import static org.objectweb.asm.Opcodes.DSTORE;
+import static org.objectweb.asm.Opcodes.LLOAD;
+import static org.objectweb.asm.Opcodes.LSTORE;
+
+/**
+ * Helpers for finding local variables which can be used by instructions injected into a buffered method.
+ */
+public final class LocalVariables {
+    private LocalVariables() {
+    }
+
+    /**
+     * The declared max_locals is not trusted, as generated methods may declare 0 and leave computing it to ASM.
+     *
+     * @return the lowest local variable index above all the local variables used by the method
+     */
+    public static int firstFreeLocal(MethodNode method) {
+        int firstFree = method.maxLocals;
+        for (AbstractInsnNode instruction = method.instructions.getFirst(); instruction != null; instruction = instruction.getNext()) {
+            if (instruction instanceof VarInsnNode) {
+                VarInsnNode varInstruction = (VarInsnNode) instruction;
+                firstFree = Math.max(firstFree, varInstruction.var + size(varInstruction.getOpcode()));
+            } else if (instruction instanceof IincInsnNode) {
+                firstFree = Math.max(firstFree, ((IincInsnNode) instruction).var + 1);
+            }
+        }
+        if (method.localVariables != null) {
+            for (LocalVariableNode localVariable : method.localVariables) {
+                int size = "J".equals(localVariable.desc) || "D".equals(localVariable.desc) ? 2 : 1;
+                firstFree = Math.max(firstFree, localVariable.index + size);
+            }
+        }
+        return firstFree;
+    }
+
+    private static int size(int varOpcode) {
+        return varOpcode == LLOAD || varOpcode == DLOAD || varOpcode == LSTORE || varOpcode == DSTORE ? 2 : 1;
+    }
+}
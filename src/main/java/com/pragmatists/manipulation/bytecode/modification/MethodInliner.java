@@ -0,0 +1,94 @@
+package com.pragmatists.manipulation.bytecode.modification;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.bytecode.characteristics.MethodCharacteristic;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.objectweb.asm.Opcodes.ACC_STATIC;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+
+/**
+ * MethodInliner replaces invocations of chosen methods with their bodies. The bodies are registered with
+ * {@link #inline(String, String, String, Instructions)}, extracted as whole methods (see
+ * {@link com.pragmatists.manipulation.bytecode.extraction.ExtractingMethodVisitorProvider#wholeMethod()}), and
+ * injected into methods by the {@link MethodModification}s returned by {@link #inlineCallsIn(String, String)}.
+ * <p>
+ * Only bodies not larger than the maximum code size and without exception handlers are inlined, as the handlers would
+ * clear the operand stack of the calling method. Inlined bodies must only use members accessible from the calling
+ * classes. An instance method is inlined in place of {@code invokevirtual} of the exact owner, name and descriptor, so
+ * it must not be overridden in the subclasses of the owner that the call site may see.
+ * <p>
+ * MethodInliner is thread-safe.
+ */
+public class MethodInliner {
+    /**
+     * HotSpot's default {@code MaxInlineSize}, the size of methods inlined regardless of how often they're called.
+     */
+    public static final int DEFAULT_MAX_CODE_SIZE = 35;
+
+    private final Map<String, Instructions> inlinedMethods = new ConcurrentHashMap<>();
+    private final int maxCodeSize;
+
+    public MethodInliner() {
+        this(DEFAULT_MAX_CODE_SIZE);
+    }
+
+    /**
+     * @param maxCodeSize maximum estimated code size in bytes of inlined methods
+     */
+    public MethodInliner(int maxCodeSize) {
+        this.maxCodeSize = maxCodeSize;
+    }
+
+    /**
+     * @param className  fully qualified name of the class declaring the method
+     * @param methodName the name of the method
+     * @param descriptor descriptor of the method
+     * @param body       instructions of the whole method, with its {@link MethodCharacteristic}
+     * @return whether invocations of the method will be inlined; methods larger than the maximum code size or with
+     * exception handlers are not
+     */
+    public boolean inline(String className, String methodName, String descriptor, Instructions body) {
+        MethodCharacteristic characteristic = body.getMethodCharacteristic();
+        if (characteristic == null || !descriptor.equals(characteristic.getDescriptor())) {
+            throw new IllegalArgumentException(String.format(
+                    "Body of %s.%s%s must be extracted from that method.", className, methodName, descriptor));
+        }
+
+        if (body.getCodeSizeEstimate() > maxCodeSize || body.hasTryCatchBlocks()) {
+            return false;
+        }
+        inlinedMethods.put(key(className.replace('.', '/'), methodName, descriptor), body);
+        return true;
+    }
+
+    /**
+     * @param methodName the name of the method in which invocations are to be inlined
+     * @param descriptor descriptor of the method, or {@code null} if methodName is unique within the class
+     * @return modification inlining the invocations in the method
+     */
+    public MethodModification inlineCallsIn(String methodName, String descriptor) {
+        return new MethodModification(methodName, descriptor, new Instructions(),
+                (mv, instructions) -> new InliningMethodVisitor(mv, this));
+    }
+
+    /**
+     * @return body to be inlined in place of the invocation, or {@code null} if it's not to be inlined
+     */
+    Instructions inlinedBody(int opcode, String owner, String name, String descriptor) {
+        Instructions body = inlinedMethods.get(key(owner, name, descriptor));
+        if (body == null) {
+            return null;
+        }
+
+        boolean isStatic = (body.getMethodCharacteristic().getAccessFlag() & ACC_STATIC) != 0;
+        return opcode == (isStatic ? INVOKESTATIC : INVOKEVIRTUAL) ? body : null;
+    }
+
+    private static String key(String owner, String name, String descriptor) {
+        return owner + '.' + name + descriptor;
+    }
+}
@@ -0,0 +1,48 @@
+package com.pragmatists.manipulation.bytecode.modification;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.objectweb.asm.MethodVisitor;
+
+import java.util.Objects;
+
+/**
+ * MethodModification is a single rule for {@link InstructionsModifier}: the instructions to be injected into a method
+ * identified by its name and descriptor, and the provider of the {@link ModifyingMethodVisitor} that injects them.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class MethodModification {
+    private final String methodName;
+    private final String descriptor;
+    private final Instructions instructions;
+    private final ModifyingMethodVisitorProvider methodVisitorProvider;
+
+    /**
+     * Use this constructor only if the methodName argument value uniquely identifies a method in the class (i.e. when
+     * descriptor unnecessary).
+     */
+    public MethodModification(String methodName,
+                              Instructions instructions,
+                              ModifyingMethodVisitorProvider methodVisitorProvider) {
+        this(methodName, null, instructions, methodVisitorProvider);
+    }
+
+    public MethodModification(String methodName,
+                              String descriptor,
+                              Instructions instructions,
+                              ModifyingMethodVisitorProvider methodVisitorProvider) {
+        Objects.requireNonNull(methodName, "Method name cannot be null");
+        this.methodName = methodName;
+        this.descriptor = descriptor;
+        this.instructions = instructions;
+        this.methodVisitorProvider = methodVisitorProvider;
+    }
+
+    ModifyingMethodVisitor apply(MethodVisitor methodVisitor) {
+        return methodVisitorProvider.apply(methodVisitor, instructions);
+    }
+}
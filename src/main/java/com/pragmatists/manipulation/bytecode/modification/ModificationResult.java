@@ -0,0 +1,25 @@
+package com.pragmatists.manipulation.bytecode.modification;
+
+import com.pragmatists.manipulation.bytecode.analysis.MethodSizeChange;
+import lombok.Value;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * ModificationResult holds the bytecode of a modified class together with the code size changes of its methods.
+ */
+@Value
+public class ModificationResult {
+    private final byte[] bytecode;
+    private final List<MethodSizeChange> methodSizeChanges;
+
+    /**
+     * @return changes of the methods which outgrew any inlining threshold
+     */
+    public List<MethodSizeChange> getThresholdCrossings() {
+        return methodSizeChanges.stream()
+                .filter(MethodSizeChange::isCrossingThresholds)
+                .collect(Collectors.toList());
+    }
+}
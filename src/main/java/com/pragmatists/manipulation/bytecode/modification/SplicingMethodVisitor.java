@@ -0,0 +1,49 @@
+package com.pragmatists.manipulation.bytecode.modification;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.config.Config;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * SplicingMethodVisitor lets another {@link ModifyingMethodVisitor} inject instructions extracted from a different
+ * method, which use labels and local variables of their own. The method is buffered until its end to find the first
+ * local variable it doesn't use, then it's replayed through the visitor created by the wrapped provider, with the
+ * instructions {@link Instructions#splicedAt(int) spliced} above that local variable each time they're injected.
+ */
+public class SplicingMethodVisitor extends ModifyingMethodVisitor {
+    private final MethodVisitor originalMethodVisitor;
+    private final MethodNode method;
+    private final Instructions instructions;
+    private final ModifyingMethodVisitorProvider provider;
+
+    public SplicingMethodVisitor(MethodVisitor mv, Instructions instructions, ModifyingMethodVisitorProvider provider) {
+        super(Config.ASM_VERSION, new MethodNode(Config.ASM_VERSION));
+        this.originalMethodVisitor = mv;
+        this.method = (MethodNode) this.mv;
+        this.instructions = instructions;
+        this.provider = provider;
+    }
+
+    /**
+     * @return provider of visitors splicing the instructions into the method with the visitors of the given provider,
+     * e.g. {@code splicing(AppendingMethodVisitor::new)}
+     */
+    public static ModifyingMethodVisitorProvider splicing(ModifyingMethodVisitorProvider provider) {
+        return (mv, instructions) -> new SplicingMethodVisitor(mv, instructions, provider);
+    }
+
+    @Override
+    public void visitEnd() {
+        super.visitEnd();
+        if (method.instructions.size() == 0) { // abstract or native
+            method.accept(originalMethodVisitor);
+            return;
+        }
+
+        int firstFreeLocal = LocalVariables.firstFreeLocal(method);
+        int splicedLocals = Math.max(instructions.getLocalsSize() - instructions.getParameterSlots(), 0);
+        method.maxLocals = Math.max(method.maxLocals, firstFreeLocal + splicedLocals);
+        method.accept(provider.apply(originalMethodVisitor, instructions.splicedAt(firstFreeLocal)));
+    }
+}
@@ -0,0 +1,44 @@
+package com.pragmatists.manipulation.bytecode.modification;
+
+import com.pragmatists.manipulation.bytecode.hierarchy.ClassHierarchy;
+import com.pragmatists.manipulation.bytecode.hierarchy.HierarchyAwareClassWriter;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * WritingStrategy decides how {@link InstructionsModifier} writes the methods it does not modify. Either way frames are
+ * computed with a {@link HierarchyAwareClassWriter}, so no class gets loaded to find common super classes.
+ */
+public enum WritingStrategy {
+    /**
+     * Every method is re-encoded and has its frames recomputed, the constant pool is built from scratch.
+     */
+    RECOMPUTE_ALL_METHODS {
+        @Override
+        ClassWriter classWriter(ClassReader classReader, ClassHierarchy classHierarchy) {
+            HierarchyAwareClassWriter classWriter = new HierarchyAwareClassWriter(ClassWriter.COMPUTE_FRAMES, classHierarchy);
+            classWriter.declareType(classReader.getClassName(), classReader.getSuperName(), isInterface(classReader));
+            return classWriter;
+        }
+    },
+
+    /**
+     * The ClassWriter is seeded with the original constant pool, so methods without any modification are copied
+     * byte-for-byte and frames are computed only for the rewritten ones. The cost of the transformation is then
+     * proportional to the size of the modified methods rather than of the whole class, but unused constants of the
+     * original class are kept.
+     */
+    COPY_UNMODIFIED_METHODS {
+        @Override
+        ClassWriter classWriter(ClassReader classReader, ClassHierarchy classHierarchy) {
+            return new HierarchyAwareClassWriter(classReader, ClassWriter.COMPUTE_FRAMES, classHierarchy);
+        }
+    };
+
+    abstract ClassWriter classWriter(ClassReader classReader, ClassHierarchy classHierarchy);
+
+    private static boolean isInterface(ClassReader classReader) {
+        return (classReader.getAccess() & Opcodes.ACC_INTERFACE) != 0;
+    }
+}
@@ -0,0 +1,36 @@
+package com.pragmatists.manipulation.cache;
+
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * BytecodeTransformation turns bytecode of a class into bytecode of a transformed class. Its recipe identifies what
+ * the transformation does, so two transformations with equal recipes must produce equal results for the same input;
+ * {@link TransformationCache} relies on that when reusing results of earlier transformations.
+ */
+public interface BytecodeTransformation {
+
+    /**
+     * @return identifier of this transformation, e.g. a name of the modified method together with a version of the
+     * injected instructions
+     */
+    String recipe();
+
+    byte[] apply(byte[] originalBytecode);
+
+    static BytecodeTransformation of(String recipe, UnaryOperator<byte[]> transformation) {
+        Objects.requireNonNull(recipe, "Recipe cannot be null");
+        Objects.requireNonNull(transformation, "Transformation cannot be null");
+        return new BytecodeTransformation() {
+            @Override
+            public String recipe() {
+                return recipe;
+            }
+
+            @Override
+            public byte[] apply(byte[] originalBytecode) {
+                return transformation.apply(originalBytecode);
+            }
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.pragmatists.manipulation.cache;
+
+import lombok.Value;
+
+@Value
+public class CacheStatistics {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+
+    public long getRequests() {
+        return hits + misses;
+    }
+
+    public double getHitRate() {
+        long requests = getRequests();
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
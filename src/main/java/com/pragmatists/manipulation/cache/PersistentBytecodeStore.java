@@ -0,0 +1,344 @@
+package com.pragmatists.manipulation.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * PersistentBytecodeStore keeps transformed bytecode in an append-only file, so that it survives restarts of the JVM.
+ * It is meant to be used as the second tier of a {@link TransformationCache}.
+ * <p>
+ * The file starts with a header, followed by records of the form {@code [key][length][bytecode][crc]}, where the key
+ * is a SHA-256 hash of the content hash of the original class and the recipe of the transformation, and the CRC32
+ * checksum covers the key, the length and the bytecode. Putting a key again appends a new record, which supersedes
+ * the old one. When the store is opened, the records are checked and the file is truncated at the first damaged one
+ * (e.g. one written only partially when the JVM was killed). Records are read through a {@link MappedByteBuffer} and
+ * their checksum is verified on every read.
+ * <p>
+ * When appending a record would make the file larger than the maximum size, the file is compacted: superseded records
+ * are dropped and, if that's not enough, so are the oldest ones, until the records take at most three quarters of the
+ * maximum size.
+ * <p>
+ * A store is thread-safe, but a file can't be used by more than one store at a time: a store holds a lock of a
+ * {@code .lock} file next to its file, so opening the file again, in the same or another JVM, fails until the store is
+ * closed.
+ */
+public class PersistentBytecodeStore implements Closeable {
+    private static final int MAGIC = 0x42435331; // "BCS1"
+    private static final int HEADER_SIZE = Integer.BYTES;
+    private static final int KEY_SIZE = 32;
+    private static final int RECORD_OVERHEAD = KEY_SIZE + Integer.BYTES + Integer.BYTES;
+
+    private final Path file;
+    private final long maximumSize;
+    private final Map<ByteBuffer, Record> index = new LinkedHashMap<>(); // in the order of records in the file
+    private FileChannel lockChannel; // locked for the lifetime of the store, so compactions don't release the lock
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private long fileSize;
+    private long liveSize;
+
+    private PersistentBytecodeStore(Path file, long maximumSize) {
+        this.file = file;
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Opens the store kept in the given file, creating the file if it doesn't exist.
+     *
+     * @param file        the file of the store
+     * @param maximumSize maximum size of the file in bytes, at most 2 GB, as the file is mapped as a whole
+     * @throws IOException if the file exists, is not empty and is not a store, or is used by another store
+     */
+    public static PersistentBytecodeStore open(Path file, long maximumSize) throws IOException {
+        if (maximumSize <= HEADER_SIZE + RECORD_OVERHEAD) {
+            throw new IllegalArgumentException(String.format("Maximum size %d is too small.", maximumSize));
+        }
+        if (maximumSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Maximum size %d is larger than 2 GB.", maximumSize));
+        }
+
+        PersistentBytecodeStore store = new PersistentBytecodeStore(file, maximumSize);
+        store.lock();
+        try {
+            store.load();
+        } catch (IOException | RuntimeException e) {
+            store.lockChannel.close();
+            throw e;
+        }
+        return store;
+    }
+
+    /**
+     * @return bytecode stored for the given content hash and recipe, if there is an intact record of it
+     */
+    public synchronized Optional<byte[]> get(String contentHash, String recipe) {
+        ByteBuffer key = key(contentHash, recipe);
+        Record record = index.get(key);
+        if (record == null) {
+            return Optional.empty();
+        }
+
+        try {
+            ByteBuffer buffer = mappedRange(record.offset, record.size());
+            if (!isIntact(buffer, record.offset, record.length)) {
+                index.remove(key);
+                liveSize -= record.size();
+                return Optional.empty();
+            }
+
+            byte[] bytecode = new byte[record.length];
+            buffer.duplicate().position(Math.toIntExact(record.offset + KEY_SIZE + Integer.BYTES)).get(bytecode);
+            return Optional.of(bytecode);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends a record of the bytecode; bytecode larger than the maximum size of the store is not stored.
+     */
+    public synchronized void put(String contentHash, String recipe, byte[] bytecode) {
+        long recordSize = (long) RECORD_OVERHEAD + bytecode.length;
+        if (HEADER_SIZE + recordSize > maximumSize) {
+            return;
+        }
+
+        ByteBuffer key = key(contentHash, recipe);
+        try {
+            if (fileSize + recordSize > maximumSize) {
+                compact(maximumSize / 4 * 3 - recordSize);
+            }
+
+            ByteBuffer record = ByteBuffer.allocate(Math.toIntExact(recordSize));
+            record.put(key.duplicate()).putInt(bytecode.length).put(bytecode);
+            record.putInt(crc(record.duplicate().flip()));
+            record.flip();
+            writeFully(channel, record, fileSize);
+
+            Record previous = index.remove(key);
+            if (previous != null) {
+                liveSize -= previous.size();
+            }
+            index.put(key, new Record(fileSize, bytecode.length));
+            fileSize += recordSize;
+            liveSize += recordSize;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Rewrites the file without the superseded records.
+     */
+    public synchronized void compact() {
+        try {
+            compact(maximumSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized int entries() {
+        return index.size();
+    }
+
+    /**
+     * @return size of the file in bytes, including superseded records
+     */
+    public synchronized long getFileSize() {
+        return fileSize;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        mapped = null;
+        try {
+            channel.close();
+        } finally {
+            lockChannel.close(); // releases the lock
+        }
+    }
+
+    private void lock() throws IOException {
+        Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        lockChannel = FileChannel.open(lockFile, CREATE, WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) { // held by another store of this JVM
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException(String.format("%s is used by another store.", file));
+        }
+    }
+
+    private void load() throws IOException {
+        channel = FileChannel.open(file, CREATE, READ, WRITE);
+        fileSize = channel.size();
+        if (fileSize == 0) { // a new file
+            writeHeader(channel);
+            fileSize = HEADER_SIZE;
+            return;
+        }
+        if (fileSize < HEADER_SIZE || readHeader() != MAGIC) { // e.g. a wrong path, which mustn't be overwritten
+            channel.close();
+            throw new IOException(String.format("%s is not a bytecode store.", file));
+        }
+
+        long offset = HEADER_SIZE;
+        ByteBuffer buffer = mappedRange(0, fileSize);
+        while (offset + RECORD_OVERHEAD <= fileSize) {
+            int length = buffer.getInt(Math.toIntExact(offset + KEY_SIZE));
+            if (length < 0 || offset + RECORD_OVERHEAD + length > fileSize || !isIntact(buffer, offset, length)) {
+                break;
+            }
+
+            byte[] key = new byte[KEY_SIZE];
+            buffer.duplicate().position(Math.toIntExact(offset)).get(key);
+            Record previous = index.remove(ByteBuffer.wrap(key));
+            if (previous != null) {
+                liveSize -= previous.size();
+            }
+            Record record = new Record(offset, length);
+            index.put(ByteBuffer.wrap(key), record);
+            liveSize += record.size();
+            offset += record.size();
+        }
+
+        if (offset < fileSize) { // a damaged or incomplete record, everything after it is dropped
+            mapped = null;
+            channel.truncate(offset);
+            fileSize = offset;
+        }
+    }
+
+    private int readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        return header.getInt(0);
+    }
+
+    private void compact(long targetSize) throws IOException {
+        Iterator<Record> records = index.values().iterator();
+        while (liveSize > Math.max(targetSize, 0) && records.hasNext()) {
+            liveSize -= records.next().size();
+            records.remove();
+        }
+
+        // The records keep their offsets in the current file until the compacted one replaces it.
+        Map<Record, Long> compactedOffsets = new IdentityHashMap<>();
+        long compactedSize = HEADER_SIZE;
+        Path compacted = file.resolveSibling(file.getFileName() + ".compacting");
+        try (FileChannel target = FileChannel.open(compacted, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            writeHeader(target);
+            for (Record record : index.values()) {
+                ByteBuffer slice = mappedRange(record.offset, record.size()).duplicate();
+                slice.limit(Math.toIntExact(record.offset + record.size())).position(Math.toIntExact(record.offset));
+                writeFully(target, slice, compactedSize);
+                compactedOffsets.put(record, compactedSize);
+                compactedSize += record.size();
+            }
+            target.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(compacted);
+            throw e;
+        }
+
+        mapped = null;
+        channel.close();
+        try {
+            Files.move(compacted, file, REPLACE_EXISTING, ATOMIC_MOVE);
+            compactedOffsets.forEach((record, offset) -> record.offset = offset);
+            fileSize = compactedSize;
+        } finally {
+            channel = FileChannel.open(file, READ, WRITE);
+        }
+    }
+
+    /**
+     * @return mapping of the file covering at least the given range, at absolute positions
+     */
+    private ByteBuffer mappedRange(long offset, long size) throws IOException {
+        if (mapped == null || offset + size > mapped.capacity()) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        }
+        return mapped;
+    }
+
+    private static boolean isIntact(ByteBuffer buffer, long offset, int length) {
+        int start = Math.toIntExact(offset);
+        int checksumPosition = start + KEY_SIZE + Integer.BYTES + length;
+        ByteBuffer checked = buffer.duplicate();
+        checked.limit(checksumPosition).position(start);
+        return crc(checked) == buffer.getInt(checksumPosition);
+    }
+
+    private static int crc(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return (int) crc.getValue();
+    }
+
+    private static void writeHeader(FileChannel channel) throws IOException {
+        channel.truncate(0);
+        writeFully(channel, ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).flip(), 0);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static ByteBuffer key(String contentHash, String recipe) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(contentHash.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(recipe.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest.digest());
+        } catch (NoSuchAlgorithmException e) { // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Record {
+        private long offset;
+        private final int length;
+
+        private Record(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private long size() {
+            return (long) RECORD_OVERHEAD + length;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.pragmatists.manipulation.cache;
+
+import lombok.Value;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * TransformationCache keeps results of {@link BytecodeTransformation}s, so that transforming the same class with the
+ * same recipe again skips the transformation entirely. The results are looked up by a SHA-256 hash of the original
+ * bytecode and the recipe of the transformation, and the least recently used ones are evicted when the cache is full.
+ * <p>
+ * A {@link com.pragmatists.manipulation.loaders.ClassSubstitutor} still defines the classes anew, but can be created
+ * from cached bytecode:
+ * <pre>
+ *     new ClassSubstitutor(TransformationCache.shared().transformAll(originals, transformation));
+ * </pre>
+ * <p>
+ * Transformed classes can also be kept on disk between restarts of the JVM by a {@link PersistentBytecodeStore}. The
+ * store is optional: if it fails to read a class, the class is transformed again, and if it fails to store one, the
+ * transformed class is still returned; the failures are logged.
+ */
+public class TransformationCache {
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+    private static final System.Logger LOGGER = System.getLogger(TransformationCache.class.getName());
+
+    private final BoundedCache<Key, TransformedClass> transformedClasses;
+    private final PersistentBytecodeStore persistentStore;
+
+    public TransformationCache() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param maximumSize maximum number of transformed classes kept in the cache
+     */
+    public TransformationCache(int maximumSize) {
+        this(maximumSize, null);
+    }
+
+    /**
+     * @param maximumSize     maximum number of transformed classes kept in memory
+     * @param persistentStore store consulted when a transformed class is not kept in memory, and updated with every
+     *                        new transformation; {@code null} if transformed classes are to be kept only in memory
+     */
+    public TransformationCache(int maximumSize, PersistentBytecodeStore persistentStore) {
+        this.transformedClasses = new BoundedCache<>(maximumSize);
+        this.persistentStore = persistentStore;
+    }
+
+    /**
+     * @return cache shared by all users of this library within the JVM
+     */
+    public static TransformationCache shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * @return the cached result of transforming the original bytecode with a transformation of the same recipe, or
+     * the result of the given transformation if there is none
+     */
+    public TransformedClass transform(byte[] originalBytecode, BytecodeTransformation transformation) {
+        Objects.requireNonNull(originalBytecode, "Original bytecode cannot be null");
+        Key key = new Key(contentHash(originalBytecode), transformation.recipe());
+        return transformedClasses.get(key, k -> TransformedClass.of(load(k, originalBytecode, transformation)));
+    }
+
+    private byte[] load(Key key, byte[] originalBytecode, BytecodeTransformation transformation) {
+        if (persistentStore == null) {
+            return applyTransformation(originalBytecode.clone(), transformation);
+        }
+
+        return readStored(key).orElseGet(() -> {
+            byte[] transformed = applyTransformation(originalBytecode.clone(), transformation);
+            store(key, transformed);
+            return transformed;
+        });
+    }
+
+    private Optional<byte[]> readStored(Key key) {
+        try {
+            return persistentStore.get(key.contentHash, key.recipe);
+        } catch (UncheckedIOException e) {
+            LOGGER.log(System.Logger.Level.WARNING, String.format("Could not read transformed class %s", key), e);
+            return Optional.empty();
+        }
+    }
+
+    private void store(Key key, byte[] transformed) {
+        try {
+            persistentStore.put(key.contentHash, key.recipe, transformed);
+        } catch (UncheckedIOException e) {
+            LOGGER.log(System.Logger.Level.WARNING, String.format("Could not store transformed class %s", key), e);
+        }
+    }
+
+    private static byte[] applyTransformation(byte[] originalBytecode, BytecodeTransformation transformation) {
+        return Objects.requireNonNull(transformation.apply(originalBytecode), "Transformation returned null");
+    }
+
+    /**
+     * @param classNamesToBytecode bytecode of original classes mapped by their fully qualified names
+     * @return transformed bytecode mapped by the same names, e.g. to be loaded by a
+     * {@link com.pragmatists.manipulation.loaders.ClassSubstitutor}
+     */
+    public Map<String, byte[]> transformAll(Map<String, byte[]> classNamesToBytecode, BytecodeTransformation transformation) {
+        Map<String, byte[]> result = new HashMap<>();
+        classNamesToBytecode.forEach((name, bytecode) -> result.put(name, transform(bytecode, transformation).getBytecode()));
+        return result;
+    }
+
+    public void invalidateAll() {
+        transformedClasses.invalidateAll();
+    }
+
+    public CacheStatistics getStatistics() {
+        return transformedClasses.statistics();
+    }
+
+    static String contentHash(byte[] bytecode) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(bytecode));
+        } catch (NoSuchAlgorithmException e) { // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Value
+    private static class Key {
+        private final String contentHash;
+        private final String recipe;
+    }
+
+    private static class SharedHolder {
+        private static final TransformationCache INSTANCE = new TransformationCache();
+    }
+}
@@ -0,0 +1,48 @@
+package com.pragmatists.manipulation.cache;
+
+import lombok.Value;
+import org.objectweb.asm.ClassReader;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+/**
+ * TransformedClass holds the result of a {@link BytecodeTransformation} together with the basic metadata parsed from
+ * it, so that cached results can be used without reading the bytecode again.
+ */
+@Value
+public class TransformedClass {
+    /**
+     * Fully qualified name of the class, e.g. {@code java.lang.String}
+     */
+    private final String className;
+    /**
+     * Fully qualified name of the super class, or {@code null} for {@code java.lang.Object}
+     */
+    private final String superClassName;
+    private final List<String> interfaceNames;
+    private final byte[] bytecode;
+
+    static TransformedClass of(byte[] bytecode) {
+        ClassReader classReader = new ClassReader(bytecode);
+        String superName = classReader.getSuperName();
+        return new TransformedClass(
+                binaryName(classReader.getClassName()),
+                superName == null ? null : binaryName(superName),
+                Arrays.stream(classReader.getInterfaces()).map(TransformedClass::binaryName).collect(toUnmodifiableList()),
+                bytecode);
+    }
+
+    /**
+     * @return a copy of the transformed bytecode, as the original is shared by all users of the cache
+     */
+    public byte[] getBytecode() {
+        return bytecode.clone();
+    }
+
+    private static String binaryName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+}
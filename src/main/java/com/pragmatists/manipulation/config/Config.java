@@ -1,7 +1,19 @@
 package com.pragmatists.manipulation.config;
 
-import static org.objectweb.asm.Opcodes.ASM7;
+import static org.objectweb.asm.Opcodes.ASM9;
 
 public class Config {
-    public static final int ASM_VERSION = ASM7;
+    public static final int ASM_VERSION = ASM9;
+
+    /**
+     * Number of call sites which can be counted by {@link com.pragmatists.manipulation.profiling.CallSiteCounters},
+     * set with the {@code bytecode.manipulation.callSiteCounters} system property.
+     */
+    public static final int CALL_SITE_COUNTERS_CAPACITY = Integer.getInteger("bytecode.manipulation.callSiteCounters", 1 << 16);
+
+    /**
+     * Number of descriptors interned by {@link com.pragmatists.manipulation.type.MethodDescriptor}, set with the
+     * {@code bytecode.manipulation.internedMethodDescriptors} system property.
+     */
+    public static final int INTERNED_METHOD_DESCRIPTORS = Integer.getInteger("bytecode.manipulation.internedMethodDescriptors", 1 << 14);
 }
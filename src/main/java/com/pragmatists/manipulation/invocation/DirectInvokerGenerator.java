@@ -0,0 +1,242 @@
+package com.pragmatists.manipulation.invocation;
+
+import com.pragmatists.manipulation.bytecode.characteristics.ClassCharacteristic;
+import com.pragmatists.manipulation.bytecode.characteristics.MethodCharacteristic;
+import com.pragmatists.manipulation.bytecode.generation.ClassBytecodeGenerator;
+import com.pragmatists.manipulation.bytecode.generation.MethodGenerator;
+import com.pragmatists.manipulation.type.MethodDescriptor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.pragmatists.manipulation.bytecode.generation.MethodGenerator.DEFAULT_CONSTRUCTOR_OF_OBJECT_SUBCLASS;
+import static com.pragmatists.manipulation.type.Types.internalName;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * DirectInvokerGenerator generates a class implementing a functional interface whose method invokes the target method.
+ * The arguments of the interface method are passed to the target, preceded by the receiver if the target is an
+ * instance method. Where their types differ, e.g. because of type erasure, they're cast, boxed or unboxed; primitive
+ * types must match exactly, and are boxed only to their own boxes or supertypes of them, e.g. {@code int} to
+ * {@link Integer} or {@link Number}, but not to {@link Long}. If the interface overrides the abstract method of a
+ * superinterface with a more specific return type, the class implements both methods.
+ */
+class DirectInvokerGenerator {
+    private static final String OBJECT_CLASS_NAME = Object.class.getName();
+    private static final Set<String> SUPERTYPES_OF_BOXES =
+            Set.of(OBJECT_CLASS_NAME, Serializable.class.getName(), Comparable.class.getName());
+
+    private final Class<?> functionalInterface;
+    private final List<Method> interfaceMethods;
+    private final Method interfaceMethod;
+    private final Method target;
+    private final MethodDescriptor interfaceDescriptor;
+    private final MethodDescriptor targetDescriptor;
+    private final int receivers;
+
+    DirectInvokerGenerator(Class<?> functionalInterface, Method target) {
+        this.functionalInterface = functionalInterface;
+        this.interfaceMethods = abstractMethodsOf(functionalInterface);
+        this.interfaceMethod = interfaceMethods.get(0);
+        this.target = target;
+        this.interfaceDescriptor = MethodDescriptor.of(interfaceMethod.getReturnType(), interfaceMethod.getParameterTypes());
+        this.targetDescriptor = MethodDescriptor.of(target.getReturnType(), target.getParameterTypes());
+        this.receivers = Modifier.isStatic(target.getModifiers()) ? 0 : 1;
+        validate();
+    }
+
+    byte[] generate(String className) {
+        List<MethodGenerator> methodGenerators = new ArrayList<>();
+        methodGenerators.add(DEFAULT_CONSTRUCTOR_OF_OBJECT_SUBCLASS);
+        for (Method method : interfaceMethods) {
+            MethodDescriptor descriptor = MethodDescriptor.of(method.getReturnType(), method.getParameterTypes());
+            methodGenerators.add(MethodGenerator.builder()
+                    .methodCharacteristic(new MethodCharacteristic(ACC_PUBLIC, method.getName(), descriptor.getDescriptor()))
+                    .methodBodyWriter(mv -> invokeTarget(mv, descriptor.getReturnType()))
+                    .build());
+        }
+
+        return ClassBytecodeGenerator.builder()
+                .characteristic(ClassCharacteristic.builder()
+                        .javaVersion(V11)
+                        .accessFlag(ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC)
+                        .name(className)
+                        .superName(OBJECT_CLASS_NAME)
+                        .interfaces(new String[]{internalName(functionalInterface)})
+                        .build())
+                .methodGenerators(methodGenerators)
+                .build()
+                .generate();
+    }
+
+    // The return instruction is appended by the MethodGenerator.
+    private void invokeTarget(MethodVisitor mv, Type expected) {
+        Class<?> owner = target.getDeclaringClass();
+        if (receivers == 1) {
+            loadArgument(mv, 0, Type.getType(owner));
+        }
+        for (int i = 0; i < targetDescriptor.getArgumentCount(); i++) {
+            loadArgument(mv, receivers + i, targetDescriptor.getArgumentType(i));
+        }
+
+        int opcode = receivers == 0 ? INVOKESTATIC : owner.isInterface() ? INVOKEINTERFACE : INVOKEVIRTUAL;
+        mv.visitMethodInsn(opcode, internalName(owner), target.getName(), targetDescriptor.getDescriptor(), owner.isInterface());
+
+        Type returned = targetDescriptor.getReturnType();
+        if (expected.getSort() == Type.VOID) {
+            if (returned.getSort() != Type.VOID) {
+                mv.visitInsn(returned.getSize() == 2 ? POP2 : POP);
+            }
+        } else {
+            convert(mv, returned, expected);
+        }
+    }
+
+    private void loadArgument(MethodVisitor mv, int argument, Type expected) {
+        int slot = 1 + interfaceDescriptor.getArgumentSlot(argument); // the invoker's this is in slot 0
+        mv.visitVarInsn(interfaceDescriptor.getLoadOpcode(argument), slot);
+        convert(mv, interfaceDescriptor.getArgumentType(argument), expected);
+    }
+
+    private static void convert(MethodVisitor mv, Type from, Type to) {
+        if (from.equals(to)) {
+            return;
+        }
+
+        if (isPrimitive(from)) {
+            Type box = boxOf(from);
+            mv.visitMethodInsn(INVOKESTATIC, box.getInternalName(), "valueOf", Type.getMethodDescriptor(box, from), false);
+            checkCast(mv, box, to);
+        } else if (isPrimitive(to)) {
+            Type box = boxOf(to);
+            checkCast(mv, from, box);
+            mv.visitMethodInsn(INVOKEVIRTUAL, box.getInternalName(), unboxingMethodName(to), Type.getMethodDescriptor(to), false);
+        } else {
+            checkCast(mv, from, to);
+        }
+    }
+
+    private static void checkCast(MethodVisitor mv, Type from, Type to) {
+        if (!from.equals(to) && !OBJECT_CLASS_NAME.equals(to.getClassName())) {
+            mv.visitTypeInsn(CHECKCAST, to.getInternalName());
+        }
+    }
+
+    private void validate() {
+        if (interfaceDescriptor.getArgumentCount() != receivers + targetDescriptor.getArgumentCount()) {
+            throw new IllegalArgumentException(String.format("%s takes %d arguments, but %s needs %d.",
+                    interfaceMethod, interfaceDescriptor.getArgumentCount(), target, receivers + targetDescriptor.getArgumentCount()));
+        }
+        if (receivers == 1 && isPrimitive(interfaceDescriptor.getArgumentType(0))) {
+            throw new IllegalArgumentException(String.format("The receiver of %s can't be passed as a primitive.", target));
+        }
+        for (int i = 0; i < targetDescriptor.getArgumentCount(); i++) {
+            requireConvertible(interfaceDescriptor.getArgumentType(receivers + i), targetDescriptor.getArgumentType(i));
+        }
+        if (interfaceDescriptor.getReturnType().getSort() != Type.VOID) {
+            requireConvertible(targetDescriptor.getReturnType(), interfaceDescriptor.getReturnType());
+        }
+    }
+
+    private void requireConvertible(Type from, Type to) {
+        boolean convertible = from.getSort() != Type.VOID && (isPrimitive(from)
+                ? isPrimitive(to) ? from.equals(to) : isBoxOrItsSupertype(to, from)
+                : !isPrimitive(to) || isBoxOrItsSupertype(from, to));
+        if (!convertible) {
+            throw new IllegalArgumentException(String.format("%s can't be converted to %s to invoke %s with %s.",
+                    from.getClassName(), to.getClassName(), target, interfaceMethod));
+        }
+    }
+
+    private static boolean isPrimitive(Type type) {
+        return type.getSort() != Type.OBJECT && type.getSort() != Type.ARRAY;
+    }
+
+    private static boolean isBoxOrItsSupertype(Type reference, Type primitive) {
+        boolean isNumeric = primitive.getSort() != Type.BOOLEAN && primitive.getSort() != Type.CHAR;
+        return reference.equals(boxOf(primitive))
+                || SUPERTYPES_OF_BOXES.contains(reference.getClassName())
+                || isNumeric && reference.getClassName().equals(Number.class.getName());
+    }
+
+    /**
+     * @return the single abstract method of the interface, not counting the public methods of {@link Object}, followed
+     * by the abstract methods of superinterfaces it overrides with a more specific return type
+     * @throws IllegalArgumentException if the class is not a functional interface
+     */
+    private static List<Method> abstractMethodsOf(Class<?> functionalInterface) {
+        if (!functionalInterface.isInterface()) {
+            throw new IllegalArgumentException(String.format("%s is not an interface.", functionalInterface.getName()));
+        }
+
+        List<Method> abstractMethods = Arrays.stream(functionalInterface.getMethods())
+                .filter(method -> Modifier.isAbstract(method.getModifiers()))
+                .filter(method -> !isObjectMethod(method))
+                .collect(Collectors.toList());
+        Method abstractMethod = abstractMethods.stream()
+                .filter(method -> abstractMethods.stream().allMatch(overridden -> overrides(method, overridden)))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(String.format(
+                        "%s is not a functional interface, its abstract methods are %s.", functionalInterface.getName(), abstractMethods)));
+
+        Map<Class<?>, Method> methodsByReturnType = new LinkedHashMap<>(); // methods inherited more than once are implemented once
+        methodsByReturnType.put(abstractMethod.getReturnType(), abstractMethod);
+        abstractMethods.forEach(method -> methodsByReturnType.putIfAbsent(method.getReturnType(), method));
+        return new ArrayList<>(methodsByReturnType.values());
+    }
+
+    private static boolean overrides(Method method, Method overridden) {
+        return method.getName().equals(overridden.getName())
+                && Arrays.equals(method.getParameterTypes(), overridden.getParameterTypes())
+                && overridden.getReturnType().isAssignableFrom(method.getReturnType());
+    }
+
+    private static boolean isObjectMethod(Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes()); // finds only public methods
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static Type boxOf(Type primitive) {
+        switch (primitive.getSort()) {
+            case Type.BOOLEAN:
+                return Type.getType(Boolean.class);
+            case Type.CHAR:
+                return Type.getType(Character.class);
+            case Type.BYTE:
+                return Type.getType(Byte.class);
+            case Type.SHORT:
+                return Type.getType(Short.class);
+            case Type.INT:
+                return Type.getType(Integer.class);
+            case Type.FLOAT:
+                return Type.getType(Float.class);
+            case Type.LONG:
+                return Type.getType(Long.class);
+            case Type.DOUBLE:
+                return Type.getType(Double.class);
+            default:
+                throw new IllegalArgumentException(String.format("%s is not a primitive type.", primitive));
+        }
+    }
+
+    /**
+     * @return name of the method of the box returning the primitive value, e.g. {@code intValue}
+     */
+    private static String unboxingMethodName(Type primitive) {
+        return primitive.getClassName() + "Value";
+    }
+}
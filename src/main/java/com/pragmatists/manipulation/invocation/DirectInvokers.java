@@ -0,0 +1,145 @@
+package com.pragmatists.manipulation.invocation;
+
+import com.pragmatists.manipulation.loaders.BytecodeSources;
+import com.pragmatists.manipulation.loaders.ClassSubstitutor;
+import lombok.Value;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DirectInvokers replace {@link Method#invoke(Object, Object...)} for methods which are called often, e.g. methods of
+ * classes loaded by a {@link ClassSubstitutor}. An invoker is an instance of a generated class implementing a
+ * functional interface given by the caller, whose method calls the target method directly: primitive arguments aren't
+ * boxed, unless the interface takes them as objects, and there are no access checks per call.
+ * <p>
+ * The interface method takes the arguments of the target method, preceded by its receiver if the target is an instance
+ * method; the receiver can be typed as {@link Object}, as the class of the target is usually not visible to the caller.
+ * For example, a {@code String add(long, long)} method of a substituted class can be called through
+ * <pre>{@code
+ * interface Adding {
+ *     String add(Object calculator, long x, long y);
+ * }
+ * Adding adding = DirectInvokers.invoker(Adding.class, calculatorClass.getMethod("add", long.class, long.class));
+ * }</pre>
+ * The target method and its class must be public, as the invoker is defined by another class loader, a
+ * {@link ClassSubstitutor} whose parent is the class loader of the target, so the interface must be visible to it too.
+ * The invokers of all the targets of a class loader share a single ClassSubstitutor, which is unloaded along with the
+ * targets. Invokers are cached per target method and interface; the cache entries are held by the class of the target,
+ * so they don't stop it from being unloaded. Targets loaded by the bootstrap class loader, which can't be a parent,
+ * get the class loader of the interface instead, or the one of DirectInvokers if the interface is a bootstrap class
+ * too; their invokers are held by that class, so they are unloaded along with it.
+ */
+public final class DirectInvokers {
+    private static final String INVOKER_CLASS_NAME_PREFIX = DirectInvokers.class.getPackageName() + ".DirectInvoker$";
+    private static final AtomicLong invokerCount = new AtomicLong();
+    private static final ClassValue<ConcurrentMap<InvokerKey, Object>> invokers = new ClassValue<>() {
+        @Override
+        protected ConcurrentMap<InvokerKey, Object> computeValue(Class<?> parentClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    // Held weakly, so they don't stop the class loaders of the targets from being unloaded; see InvokerLoader.
+    private static final Map<ClassLoader, InvokerLoader> invokerLoaders = new WeakHashMap<>();
+
+    private DirectInvokers() {
+    }
+
+    /**
+     * @param functionalInterface interface the returned invoker implements
+     * @param target              the method called by the invoker
+     * @return invoker of the target
+     * @throws IllegalArgumentException if the interface is not a public functional interface visible to the class
+     *                                  loader of the target, the target is not accessible or its parameter and return
+     *                                  types don't fit the ones of the interface
+     */
+    public static <T> T invoker(Class<T> functionalInterface, Method target) {
+        Class<?> parentClass = parentClass(target.getDeclaringClass(), functionalInterface);
+        Map<InvokerKey, Object> parentInvokers = invokers.get(parentClass);
+        InvokerKey key = new InvokerKey(functionalInterface, target);
+        Object invoker = parentInvokers.get(key);
+        if (invoker == null) {
+            ClassLoader parent = parentClass.getClassLoader();
+            invoker = parentInvokers.computeIfAbsent(key, k -> generate(functionalInterface, target, parent));
+        }
+        return functionalInterface.cast(invoker);
+    }
+
+    private static Object generate(Class<?> functionalInterface, Method target, ClassLoader parent) {
+        Class<?> targetClass = target.getDeclaringClass();
+        if (!Modifier.isPublic(target.getModifiers()) || !Modifier.isPublic(targetClass.getModifiers())) {
+            throw new IllegalArgumentException(String.format("%s is not public.", target));
+        }
+        if (!Modifier.isPublic(functionalInterface.getModifiers())) {
+            throw new IllegalArgumentException(String.format("%s is not public.", functionalInterface.getName()));
+        }
+
+        String className = INVOKER_CLASS_NAME_PREFIX + invokerCount.incrementAndGet();
+        byte[] bytecode = new DirectInvokerGenerator(functionalInterface, target).generate(className);
+        requireVisible(functionalInterface, parent);
+
+        try {
+            return defineInvoker(parent, className, bytecode).getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) { // the class is generated with a public constructor
+            throw new IllegalStateException(String.format("Could not create invoker of %s.", target), e);
+        }
+    }
+
+    private static Class<?> defineInvoker(ClassLoader parent, String className, byte[] bytecode) throws ClassNotFoundException {
+        InvokerLoader invokerLoader;
+        ClassSubstitutor classSubstitutor;
+        synchronized (invokerLoaders) {
+            invokerLoader = invokerLoaders.get(parent);
+            classSubstitutor = invokerLoader == null ? null : invokerLoader.classSubstitutor.get();
+            if (classSubstitutor == null) {
+                invokerLoader = new InvokerLoader();
+                classSubstitutor = new ClassSubstitutor(BytecodeSources.lazy(invokerLoader.bytecodeToDefine::remove), parent);
+                invokerLoader.classSubstitutor = new WeakReference<>(classSubstitutor);
+                invokerLoaders.put(parent, invokerLoader);
+            }
+        }
+        invokerLoader.bytecodeToDefine.put(className, bytecode);
+        return classSubstitutor.loadClass(className);
+    }
+
+    // The class whose class loader is the parent of the invoker and which holds the cached invokers. The target and the
+    // interface can both be loaded by the bootstrap class loader, which can't be a parent.
+    private static Class<?> parentClass(Class<?> targetClass, Class<?> functionalInterface) {
+        if (targetClass.getClassLoader() != null) {
+            return targetClass;
+        }
+        return functionalInterface.getClassLoader() != null ? functionalInterface : DirectInvokers.class;
+    }
+
+    private static void requireVisible(Class<?> type, ClassLoader classLoader) {
+        try {
+            if (Class.forName(type.getName(), false, classLoader) == type) {
+                return;
+            }
+        } catch (ClassNotFoundException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(String.format("%s is not visible to %s.", type.getName(), classLoader));
+    }
+
+    /**
+     * ClassSubstitutor defining the invokers of targets of a class loader, with the bytecode of the invokers being
+     * defined. The ClassSubstitutor is referenced weakly, as it refers to the class loader.
+     */
+    private static class InvokerLoader {
+        private final Map<String, byte[]> bytecodeToDefine = new ConcurrentHashMap<>();
+        private WeakReference<ClassSubstitutor> classSubstitutor;
+    }
+
+    @Value
+    private static class InvokerKey {
+        private final Class<?> functionalInterface;
+        private final Method target;
+    }
+}
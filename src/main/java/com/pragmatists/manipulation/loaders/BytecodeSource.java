@@ -0,0 +1,26 @@
+package com.pragmatists.manipulation.loaders;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * BytecodeSource provides a {@link ClassSubstitutor} with the bytecode of the classes it substitutes. The bytecode of a
+ * class is fetched when the class is loaded for the first time, so sources created by {@link BytecodeSources} don't
+ * read classes which are never loaded.
+ */
+@FunctionalInterface
+public interface BytecodeSource {
+    /**
+     * @param className fully qualified name of the class
+     * @return bytecode of the class between the position and the limit of the buffer, or {@code null} if the class is
+     * not provided by this source
+     * @throws IOException if the bytecode can't be read
+     */
+    ByteBuffer bytecodeOf(String className) throws IOException;
+
+    /**
+     * Called once the class is defined, as its bytecode won't be fetched again.
+     */
+    default void release(String className) {
+    }
+}
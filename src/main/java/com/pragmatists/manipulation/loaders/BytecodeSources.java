@@ -0,0 +1,63 @@
+package com.pragmatists.manipulation.loaders;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Factories of {@link BytecodeSource}s.
+ */
+public final class BytecodeSources {
+    private BytecodeSources() {
+    }
+
+    /**
+     * @return source of the mapped bytecode, which drops the bytecode of each class once it's defined
+     */
+    public static BytecodeSource of(Map<String, byte[]> classNamesToBytecode) {
+        Map<String, byte[]> bytecode = new ConcurrentHashMap<>(classNamesToBytecode);
+        return new BytecodeSource() {
+            @Override
+            public ByteBuffer bytecodeOf(String className) {
+                byte[] classBytecode = bytecode.get(className);
+                return classBytecode == null ? null : ByteBuffer.wrap(classBytecode);
+            }
+
+            @Override
+            public void release(String className) {
+                bytecode.remove(className);
+            }
+        };
+    }
+
+    /**
+     * @param bytecodeProvider function returning bytecode of the class of the given name, or {@code null} if the class
+     *                         is not to be substituted; it's called at most once per substituted class
+     * @return source of the bytecode returned by the provider
+     */
+    public static BytecodeSource lazy(Function<String, byte[]> bytecodeProvider) {
+        return className -> {
+            byte[] bytecode = bytecodeProvider.apply(className);
+            return bytecode == null ? null : ByteBuffer.wrap(bytecode);
+        };
+    }
+
+    /**
+     * @param root root of the package hierarchy, e.g. {@code target/classes}
+     * @return source of the class files in the directory
+     */
+    public static BytecodeSource directory(Path root) {
+        return new DirectoryBytecodeSource(root);
+    }
+
+    /**
+     * @return source of the class files in the jar, see {@link JarBytecodeSource}
+     * @throws IOException if the jar can't be read or is not a valid jar
+     */
+    public static BytecodeSource jar(Path jar) throws IOException {
+        return new JarBytecodeSource(jar);
+    }
+}
@@ -0,0 +1,17 @@
+package com.pragmatists.manipulation.loaders;
+
+/**
+ * ClassDefiner defines classes from bytecode. Unlike a {@link ClassSubstitutor}, which is a class loader of its own,
+ * ClassDefiners created by {@link ClassDefiners} define classes in an existing class loader and package, so defining
+ * many classes doesn't create many class loaders.
+ */
+@FunctionalInterface
+public interface ClassDefiner {
+    /**
+     * @return the class defined from the bytecode
+     * @throws IllegalArgumentException if the class can't be defined by this ClassDefiner, e.g. it's in another
+     *                                  package
+     * @throws LinkageError             if the bytecode is invalid or the class is already defined
+     */
+    Class<?> define(byte[] bytecode);
+}
@@ -0,0 +1,39 @@
+package com.pragmatists.manipulation.loaders;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Factories of {@link ClassDefiner}s. This is the version for Java 11 to 14; the multi-release jar of the library
+ * contains another one for Java 15 and later, which defines throwaway classes as hidden classes.
+ */
+public final class ClassDefiners {
+    private ClassDefiners() {
+    }
+
+    /**
+     * @param lookup lookup with package access in the package the classes are to be defined in
+     * @return ClassDefiner of ordinary classes in the package of the lookup class
+     */
+    public static ClassDefiner inPackageOf(MethodHandles.Lookup lookup) {
+        return new LookupClassDefiner(lookup);
+    }
+
+    /**
+     * Classes which are not referred to by name, e.g. generated implementations of interfaces, can be hidden classes
+     * on Java 15 and later, which are unloaded as soon as they're unreachable, without a class loader of their own.
+     * Before Java 15 they're defined like with {@link #inPackageOf(MethodHandles.Lookup)}.
+     *
+     * @param lookup lookup with package access in the package the classes are to be defined in
+     * @return ClassDefiner of classes which can be unloaded on their own, if the runtime supports it
+     */
+    public static ClassDefiner throwaway(MethodHandles.Lookup lookup) {
+        return new LookupClassDefiner(lookup);
+    }
+
+    /**
+     * @return whether {@link #throwaway(MethodHandles.Lookup)} defines hidden classes
+     */
+    public static boolean isDefiningHiddenClasses() {
+        return false;
+    }
+}
@@ -1,63 +1,113 @@
 package com.pragmatists.manipulation.loaders;
 
 import javax.lang.model.SourceVersion;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-
-import static lombok.Lombok.sneakyThrow;
 
 /**
  * ClassSubstitutor is used to load classes from provided bytecode without checking if the class has been already loaded
  * by any other ClassLoader. The loading is based on mapping of classes's fully qualified names to byte arrays. If a
  * given class name is not mapped to bytecode, a ClassSubstitutor will fallback to its parent, which is by default the
  * class loader which loaded the ClassSubstitutor class.
+ * <p>
+ * Instead of the mapping, a ClassSubstitutor can be given a {@link BytecodeSource}, e.g. a directory or a jar, which
+ * provides the bytecode of a class when the class is loaded for the first time.
+ * <p>
+ * ClassSubstitutor is registered as parallel capable: each class is defined under its own lock (see
+ * {@link #getClassLoadingLock(String)}), so threads loading different classes don't wait for each other, and classes
+ * referring to each other can be loaded concurrently without deadlocks.
+ * <p>
+ * The bytecode of a class is released once the class is defined. To let the classes be unloaded, drop the references
+ * to the ClassSubstitutor and its classes, or use a {@link ClassSubstitutorPool}.
  */
 public class ClassSubstitutor extends ClassLoader {
-    private final Map<String, byte[]> classNamesToBytecode;
-    private final Map<String, Class> loadedClasses = new ConcurrentHashMap<>();
+    static {
+        registerAsParallelCapable();
+    }
+
+    private static final Runnable NO_CALLBACK = () -> {
+    };
+
+    private final BytecodeSource bytecodeSource;
     private final ClassLoader fallBackClassloader;
+    private final Runnable classDefinedCallback;
 
     public ClassSubstitutor(Map<String, byte[]> classNamesToBytecode) {
-        super(ClassSubstitutor.class.getClassLoader());
-        this.classNamesToBytecode = Map.copyOf(classNamesToBytecode);
-        validate(classNamesToBytecode.keySet());
-        this.fallBackClassloader = getParent();
+        this(classNamesToBytecode, ClassSubstitutor.class.getClassLoader(), NO_CALLBACK);
     }
 
     public ClassSubstitutor(Map<String, byte[]> classNamesToBytecode, ClassLoader fallbackClassloader) {
+        this(classNamesToBytecode, fallbackClassloader, NO_CALLBACK);
+    }
+
+    public ClassSubstitutor(BytecodeSource bytecodeSource) {
+        this(bytecodeSource, ClassSubstitutor.class.getClassLoader(), NO_CALLBACK);
+    }
+
+    public ClassSubstitutor(BytecodeSource bytecodeSource, ClassLoader fallbackClassloader) {
+        this(bytecodeSource, fallbackClassloader, NO_CALLBACK);
+    }
+
+    /**
+     * @param classDefinedCallback run each time a class is defined
+     */
+    ClassSubstitutor(Map<String, byte[]> classNamesToBytecode, ClassLoader fallbackClassloader, Runnable classDefinedCallback) {
+        this(BytecodeSources.of(validate(classNamesToBytecode)), fallbackClassloader, classDefinedCallback);
+    }
+
+    private ClassSubstitutor(BytecodeSource bytecodeSource, ClassLoader fallbackClassloader, Runnable classDefinedCallback) {
         super(fallbackClassloader);
-        this.classNamesToBytecode = Map.copyOf(classNamesToBytecode);
-        validate(classNamesToBytecode.keySet());
+        this.bytecodeSource = bytecodeSource;
         this.fallBackClassloader = getParent();
+        this.classDefinedCallback = classDefinedCallback;
     }
 
     // Overriding loadClass instead of findClass to bypass the delegation up the classloader hierarchy.
     @Override
-    public Class<?> loadClass(String name) throws ClassNotFoundException {
-        if (classNamesToBytecode.containsKey(name)) {
-            return loadedClasses.computeIfAbsent(name, this::substituteClass);
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loadedClass = findLoadedClass(name);
+            if (loadedClass == null) {
+                ByteBuffer targetByteCode = fetchBytecode(name);
+                if (targetByteCode == null) {
+                    return fallBackClassloader.loadClass(name);
+                }
+                loadedClass = substituteClass(name, targetByteCode);
+                bytecodeSource.release(name);
+                classDefinedCallback.run();
+            }
+            if (resolve) {
+                resolveClass(loadedClass);
+            }
+            return loadedClass;
         }
+    }
 
-        return fallBackClassloader.loadClass(name);
+    private ByteBuffer fetchBytecode(String name) throws ClassNotFoundException {
+        try {
+            return bytecodeSource.bytecodeOf(name);
+        } catch (IOException e) {
+            throw new ClassNotFoundException(String.format("Could not read bytecode of class %s", name), e);
+        }
     }
 
-    private Class<?> substituteClass(String name) {
-        byte[] targetByteCode = classNamesToBytecode.get(name);
+    // Direct buffers, e.g. slices of a memory-mapped jar, are defined from without copying them to the heap.
+    private Class<?> substituteClass(String name, ByteBuffer targetByteCode) throws ClassNotFoundException {
         try {
-            return defineClass(name, targetByteCode, 0, targetByteCode.length);
+            return defineClass(name, targetByteCode, null);
         } catch (Throwable t) { // We don't want a ClassFormatError to bubble up.
-            // The calling method still has ClassNotFoundException listed in the `throws` clause.
-            throw sneakyThrow(new ClassNotFoundException(
-                    String.format("Could not load bytecode of class %s listed for substitution", name), t));
+            throw new ClassNotFoundException(
+                    String.format("Could not load bytecode of class %s listed for substitution", name), t);
         }
     }
 
-    private void validate(Set<String> classNames) {
-        classNames.forEach(name -> {
+    private static Map<String, byte[]> validate(Map<String, byte[]> classNamesToBytecode) {
+        classNamesToBytecode.keySet().forEach(name -> {
             if (!SourceVersion.isName(name)) { // this doesn't FULLY do the trick, but provides some validation.
                 throw new IllegalArgumentException(String.format("'%s' is an invalid class name.", name));
             }
         });
+        return classNamesToBytecode;
     }
 }
@@ -0,0 +1,175 @@
+package com.pragmatists.manipulation.loaders;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ClassSubstitutorPool hands out {@link ClassSubstitutor}s for sets of classes, so that regenerated classes don't leak
+ * metaspace. Requesting the same classes (the same names and bytecode) again returns the same ClassSubstitutor, as
+ * long as it's pooled. The pool holds at most the given number of ClassSubstitutors and of classes they're created
+ * for; when either is exceeded, the least recently used ClassSubstitutors are evicted. An evicted ClassSubstitutor and
+ * its classes are unloaded by the garbage collector once the application stops using them.
+ * <p>
+ * The ClassSubstitutors are tracked with weak references, so the pool knows how many of them are still alive and how
+ * many classes were unloaded, see {@link #getStatistics()}.
+ * <p>
+ * ClassSubstitutorPool is thread-safe.
+ */
+public class ClassSubstitutorPool {
+    private final int maximumLoaders;
+    private final int maximumClasses;
+    private final ClassLoader parent;
+    private final Map<String, PooledLoader> pooled = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<LoaderReference> alive = new HashSet<>();
+    private final ReferenceQueue<ClassSubstitutor> collected = new ReferenceQueue<>();
+    private int classesPooled;
+    private long loadersCreated;
+    private long loadersEvicted;
+    private long loadersUnloaded;
+    private long classesUnloaded;
+    private final LongAdder classesDefined = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ClassSubstitutorPool(int maximumLoaders, int maximumClasses) {
+        this(maximumLoaders, maximumClasses, ClassSubstitutorPool.class.getClassLoader());
+    }
+
+    /**
+     * @param maximumLoaders maximum number of pooled ClassSubstitutors
+     * @param maximumClasses maximum number of classes of pooled ClassSubstitutors; a ClassSubstitutor created for
+     *                       more classes is handed out, but not pooled
+     * @param parent         the class loader the ClassSubstitutors fall back to
+     */
+    public ClassSubstitutorPool(int maximumLoaders, int maximumClasses, ClassLoader parent) {
+        if (maximumLoaders <= 0 || maximumClasses <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Maximum numbers of loaders and classes must be positive, were %d and %d.", maximumLoaders, maximumClasses));
+        }
+
+        this.maximumLoaders = maximumLoaders;
+        this.maximumClasses = maximumClasses;
+        this.parent = parent;
+    }
+
+    /**
+     * @return a pooled ClassSubstitutor for the classes, or a new one if there's none
+     */
+    public ClassSubstitutor substitutorFor(Map<String, byte[]> classNamesToBytecode) {
+        String key = contentHash(classNamesToBytecode);
+        synchronized (this) {
+            expungeUnloaded();
+            PooledLoader existing = pooled.get(key);
+            if (existing != null) {
+                hits.increment();
+                return existing.substitutor;
+            }
+
+            misses.increment();
+            AtomicInteger definedClasses = new AtomicInteger();
+            ClassSubstitutor substitutor = new ClassSubstitutor(classNamesToBytecode, parent, () -> {
+                definedClasses.incrementAndGet();
+                classesDefined.increment();
+            });
+            alive.add(new LoaderReference(substitutor, definedClasses, collected));
+            loadersCreated++;
+
+            if (classNamesToBytecode.size() <= maximumClasses) {
+                pooled.put(key, new PooledLoader(substitutor, classNamesToBytecode.size()));
+                classesPooled += classNamesToBytecode.size();
+                evictExceeding();
+            }
+            return substitutor;
+        }
+    }
+
+    /**
+     * Loads the class with a pooled ClassSubstitutor for the classes, see {@link #substitutorFor(Map)}.
+     */
+    public Class<?> loadClass(String className, Map<String, byte[]> classNamesToBytecode) throws ClassNotFoundException {
+        return substitutorFor(classNamesToBytecode).loadClass(className);
+    }
+
+    /**
+     * Evicts all the pooled ClassSubstitutors.
+     */
+    public synchronized void evictAll() {
+        loadersEvicted += pooled.size();
+        pooled.clear();
+        classesPooled = 0;
+    }
+
+    public synchronized PoolStatistics getStatistics() {
+        expungeUnloaded();
+        return new PoolStatistics(pooled.size(), classesPooled, alive.size(), loadersCreated, loadersEvicted,
+                loadersUnloaded, classesDefined.sum(), classesUnloaded, hits.sum(), misses.sum());
+    }
+
+    private void evictExceeding() {
+        Iterator<PooledLoader> leastRecentlyUsed = pooled.values().iterator();
+        while ((pooled.size() > maximumLoaders || classesPooled > maximumClasses) && leastRecentlyUsed.hasNext()) {
+            classesPooled -= leastRecentlyUsed.next().classes;
+            leastRecentlyUsed.remove();
+            loadersEvicted++;
+        }
+    }
+
+    private void expungeUnloaded() {
+        for (Reference<? extends ClassSubstitutor> reference = collected.poll(); reference != null; reference = collected.poll()) {
+            LoaderReference loaderReference = (LoaderReference) reference;
+            if (alive.remove(loaderReference)) {
+                loadersUnloaded++;
+                classesUnloaded += loaderReference.definedClasses.get();
+            }
+        }
+    }
+
+    private static String contentHash(Map<String, byte[]> classNamesToBytecode) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Map.Entry<String, byte[]> entry : new TreeMap<>(classNamesToBytecode).entrySet()) {
+                byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                digest.update(ByteBuffer.allocate(2 * Integer.BYTES).putInt(name.length).putInt(entry.getValue().length).flip());
+                digest.update(name);
+                digest.update(entry.getValue());
+            }
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) { // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class PooledLoader {
+        private final ClassSubstitutor substitutor;
+        private final int classes;
+
+        private PooledLoader(ClassSubstitutor substitutor, int classes) {
+            this.substitutor = substitutor;
+            this.classes = classes;
+        }
+    }
+
+    // The counter of defined classes outlives the loader, so it can be read once the loader is collected.
+    private static class LoaderReference extends WeakReference<ClassSubstitutor> {
+        private final AtomicInteger definedClasses;
+
+        private LoaderReference(ClassSubstitutor substitutor, AtomicInteger definedClasses, ReferenceQueue<ClassSubstitutor> queue) {
+            super(substitutor, queue);
+            this.definedClasses = definedClasses;
+        }
+    }
+}
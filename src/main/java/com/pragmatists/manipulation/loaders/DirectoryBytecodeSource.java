@@ -0,0 +1,31 @@
+package com.pragmatists.manipulation.loaders;
+
+import javax.lang.model.SourceVersion;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * DirectoryBytecodeSource reads class files from a directory laid out like a class path entry, e.g.
+ * {@code target/classes}, when their classes are loaded.
+ */
+public class DirectoryBytecodeSource implements BytecodeSource {
+    private final Path root;
+
+    public DirectoryBytecodeSource(Path root) {
+        if (!Files.isDirectory(root)) {
+            throw new IllegalArgumentException(String.format("%s is not a directory.", root));
+        }
+        this.root = root;
+    }
+
+    @Override
+    public ByteBuffer bytecodeOf(String className) throws IOException {
+        if (!SourceVersion.isName(className)) { // keeps the class file within the directory
+            return null;
+        }
+        Path classFile = root.resolve(className.replace('.', '/') + ".class");
+        return Files.isRegularFile(classFile) ? ByteBuffer.wrap(Files.readAllBytes(classFile)) : null;
+    }
+}
@@ -0,0 +1,208 @@
+package com.pragmatists.manipulation.loaders;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * JarBytecodeSource reads class files from a memory-mapped jar. Only the central directory of the jar is read up
+ * front, to index the class files; a class file is read when its class is loaded. Stored (uncompressed) class files
+ * are passed to the class loader as slices of the mapped jar, without copying, and deflated ones are inflated
+ * straight from the mapped jar.
+ * <p>
+ * Entry names are decoded as UTF-8 when their language encoding flag is set, and as CP437 otherwise, as the ZIP format
+ * specifies. Jars bigger than 2 GB, ZIP64 jars and encrypted class files are not supported. Versioned class files of
+ * multi-release jars and the {@code module-info} and {@code package-info} class files, which don't define loadable
+ * classes, are ignored.
+ */
+public class JarBytecodeSource implements BytecodeSource {
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int MAXIMUM_COMMENT_SIZE = 0xffff;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int ENCRYPTED_FLAG = 1;
+    private static final int UTF_8_FLAG = 1 << 11;
+    private static final Charset CP437 = Charset.forName("IBM437");
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final String CLASS_FILE_SUFFIX = ".class";
+    private static final String META_INF = "META-INF/";
+    private static final String MODULE_INFO = "module-info" + CLASS_FILE_SUFFIX;
+    private static final String PACKAGE_INFO = "package-info" + CLASS_FILE_SUFFIX;
+
+    private final Path jar;
+    private final ByteBuffer mapped;
+    private final Map<String, Entry> classFiles = new HashMap<>();
+
+    public JarBytecodeSource(Path jar) throws IOException {
+        this.jar = jar;
+        try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.READ)) { // the mapping outlives the channel
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(String.format("%s is bigger than 2 GB.", jar));
+            }
+            this.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        indexClassFiles();
+    }
+
+    @Override
+    public ByteBuffer bytecodeOf(String className) throws IOException {
+        Entry entry = classFiles.get(className);
+        return entry == null ? null : read(entry);
+    }
+
+    /**
+     * @return number of class files in the jar
+     */
+    public int size() {
+        return classFiles.size();
+    }
+
+    private void indexClassFiles() throws IOException {
+        int endOfCentralDirectory = findEndOfCentralDirectory();
+        int entries = Short.toUnsignedInt(mapped.getShort(endOfCentralDirectory + 10));
+        long centralDirectoryOffset = Integer.toUnsignedLong(mapped.getInt(endOfCentralDirectory + 16));
+        if (entries == 0xffff || centralDirectoryOffset == 0xffffffffL) {
+            throw new IOException(String.format("%s is a ZIP64 archive.", jar));
+        }
+
+        int header = checkedOffset(centralDirectoryOffset);
+        for (int i = 0; i < entries; i++) {
+            if (header + CENTRAL_DIRECTORY_HEADER_SIZE > mapped.limit()
+                    || mapped.getInt(header) != CENTRAL_DIRECTORY_HEADER_SIGNATURE) {
+                throw new IOException(String.format("Invalid central directory of %s.", jar));
+            }
+            int flags = Short.toUnsignedInt(mapped.getShort(header + 8));
+            int method = Short.toUnsignedInt(mapped.getShort(header + 10));
+            long compressedSize = Integer.toUnsignedLong(mapped.getInt(header + 20));
+            long size = Integer.toUnsignedLong(mapped.getInt(header + 24));
+            int nameLength = Short.toUnsignedInt(mapped.getShort(header + 28));
+            int extraLength = Short.toUnsignedInt(mapped.getShort(header + 30));
+            int commentLength = Short.toUnsignedInt(mapped.getShort(header + 32));
+            long localHeaderOffset = Integer.toUnsignedLong(mapped.getInt(header + 42));
+
+            String name = name(header + CENTRAL_DIRECTORY_HEADER_SIZE, nameLength, flags);
+            if (isClassFile(name)) {
+                if ((flags & ENCRYPTED_FLAG) != 0) {
+                    throw new IOException(String.format("%s in %s is encrypted.", name, jar));
+                }
+                String className = name.substring(0, name.length() - CLASS_FILE_SUFFIX.length()).replace('/', '.');
+                classFiles.put(className, new Entry(method, checkedOffset(compressedSize), checkedSize(size),
+                        checkedOffset(localHeaderOffset)));
+            }
+            header += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+    }
+
+    private static boolean isClassFile(String name) {
+        String fileName = name.substring(name.lastIndexOf('/') + 1);
+        return name.endsWith(CLASS_FILE_SUFFIX) && !name.startsWith(META_INF)
+                && !fileName.equals(MODULE_INFO) && !fileName.equals(PACKAGE_INFO);
+    }
+
+    // The end of central directory record is followed only by the archive comment, which is at most 64 KB long.
+    private int findEndOfCentralDirectory() throws IOException {
+        int last = mapped.limit() - END_OF_CENTRAL_DIRECTORY_SIZE;
+        for (int offset = last; offset >= 0 && offset >= last - MAXIMUM_COMMENT_SIZE; offset--) {
+            if (mapped.getInt(offset) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                return offset;
+            }
+        }
+        throw new IOException(String.format("%s is not a jar.", jar));
+    }
+
+    private ByteBuffer read(Entry entry) throws IOException {
+        int header = entry.localHeaderOffset;
+        if (header + LOCAL_HEADER_SIZE > mapped.limit() || mapped.getInt(header) != LOCAL_HEADER_SIGNATURE) {
+            throw new IOException(String.format("Invalid local header in %s at %d.", jar, header));
+        }
+        int data = header + LOCAL_HEADER_SIZE
+                + Short.toUnsignedInt(mapped.getShort(header + 26)) + Short.toUnsignedInt(mapped.getShort(header + 28));
+        ByteBuffer compressed = slice(data, entry.compressedSize);
+
+        switch (entry.method) {
+            case STORED:
+                return compressed;
+            case DEFLATED:
+                return inflate(compressed, entry.size);
+            default:
+                throw new IOException(String.format("Unsupported compression method %d in %s.", entry.method, jar));
+        }
+    }
+
+    private ByteBuffer inflate(ByteBuffer compressed, int size) throws IOException {
+        Inflater inflater = new Inflater(true); // jar entries are raw deflate streams, without zlib headers
+        try {
+            inflater.setInput(compressed);
+            ByteBuffer inflated = ByteBuffer.allocate(size);
+            while (inflated.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(inflated) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+            }
+            if (inflated.hasRemaining()) {
+                throw new IOException(String.format("Truncated entry in %s.", jar));
+            }
+            return inflated.flip();
+        } catch (DataFormatException e) {
+            throw new IOException(String.format("Corrupted entry in %s.", jar), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // The mapped buffer is shared by threads, so its position and limit are never changed.
+    private ByteBuffer slice(int offset, int length) throws IOException {
+        if (offset + (long) length > mapped.limit()) {
+            throw new IOException(String.format("Entry at %d exceeds %s.", offset, jar));
+        }
+        ByteBuffer slice = mapped.duplicate();
+        slice.position(offset).limit(offset + length);
+        return slice.slice();
+    }
+
+    private String name(int offset, int length, int flags) throws IOException {
+        ByteBuffer name = slice(offset, length);
+        return ((flags & UTF_8_FLAG) != 0 ? StandardCharsets.UTF_8 : CP437).decode(name).toString();
+    }
+
+    private int checkedOffset(long offset) throws IOException {
+        if (offset > mapped.limit()) {
+            throw new IOException(String.format("Offset %d exceeds %s.", offset, jar));
+        }
+        return (int) offset;
+    }
+
+    private int checkedSize(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Entry of size %d in %s is too big.", size, jar));
+        }
+        return (int) size;
+    }
+
+    private static class Entry {
+        private final int method;
+        private final int compressedSize;
+        private final int size;
+        private final int localHeaderOffset;
+
+        private Entry(int method, int compressedSize, int size, int localHeaderOffset) {
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.pragmatists.manipulation.loaders;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * LookupClassDefiner defines classes with {@link MethodHandles.Lookup#defineClass(byte[])}, in the class loader and
+ * package of the lookup class. The classes are ordinary classes of the loader, so they're unloaded only with the
+ * loader, and each class name can be defined once.
+ */
+public class LookupClassDefiner implements ClassDefiner {
+    private final MethodHandles.Lookup lookup;
+
+    /**
+     * @param lookup lookup with {@link MethodHandles.Lookup#PACKAGE PACKAGE} access, e.g. {@code MethodHandles.lookup()}
+     *               called in a class of the package the classes are to be defined in
+     */
+    public LookupClassDefiner(MethodHandles.Lookup lookup) {
+        if ((lookup.lookupModes() & MethodHandles.Lookup.PACKAGE) == 0) {
+            throw new IllegalArgumentException(String.format("Lookup %s has no package access.", lookup));
+        }
+        this.lookup = lookup;
+    }
+
+    @Override
+    public Class<?> define(byte[] bytecode) {
+        try {
+            return lookup.defineClass(bytecode);
+        } catch (IllegalAccessException e) { // the access is checked in the constructor
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.pragmatists.manipulation.loaders;
+
+import lombok.Value;
+
+/**
+ * Metrics of a {@link ClassSubstitutorPool}. Loaders evicted from the pool stay alive until the garbage collector
+ * finds them unreachable, i.e. until the application drops all the references to their classes and instances.
+ */
+@Value
+public class PoolStatistics {
+    private final int loadersPooled;
+    private final int classesPooled;
+    private final int loadersAlive;
+    private final long loadersCreated;
+    private final long loadersEvicted;
+    private final long loadersUnloaded;
+    private final long classesDefined;
+    private final long classesUnloaded;
+    private final long hits;
+    private final long misses;
+}
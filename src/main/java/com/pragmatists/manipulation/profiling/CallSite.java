@@ -0,0 +1,25 @@
+package com.pragmatists.manipulation.profiling;
+
+import lombok.Value;
+
+/**
+ * CallSite describes a method invocation counted by {@link CallSiteCounters}.
+ */
+@Value
+public class CallSite {
+    private final int slot;
+    /**
+     * Name of the method containing the call site, as given to {@link CallSiteCounters#countCallsIn}
+     */
+    private final String caller;
+    /**
+     * Internal name of the invoked method's owner, e.g. {@code java/lang/String}
+     */
+    private final String owner;
+    private final String name;
+    private final String descriptor;
+    /**
+     * Source line of the call site, or {@code -1} if the class has no line numbers
+     */
+    private final int line;
+}
@@ -0,0 +1,12 @@
+package com.pragmatists.manipulation.profiling;
+
+import lombok.Value;
+
+/**
+ * CallSiteCount is the number of invocations made at a {@link CallSite} at the time it was read.
+ */
+@Value
+public class CallSiteCount {
+    private final CallSite callSite;
+    private final long count;
+}
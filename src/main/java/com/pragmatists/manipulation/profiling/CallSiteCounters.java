@@ -0,0 +1,114 @@
+package com.pragmatists.manipulation.profiling;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.bytecode.modification.MethodModification;
+import com.pragmatists.manipulation.config.Config;
+import lombok.Value;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CallSiteCounters count invocations made at call sites of chosen methods. A {@link MethodModification} returned by
+ * {@link #countCallsIn(String, String, String)} assigns each method invocation instruction of the method a slot in the
+ * preallocated {@link #COUNTS} table, and increments the slot inline before the invocation, without any calls or
+ * allocations. The increments are not atomic, so counts of call sites invoked concurrently may be slightly
+ * underestimated.
+ * <p>
+ * The table has {@link Config#CALL_SITE_COUNTERS_CAPACITY} slots. A call site keeps its slot when its class is
+ * modified again, e.g. retransformed or loaded by another class loader, so its counts add up. Call sites are told
+ * apart by their caller, the invoked method, the line and their order among identical invocations on the line. Counted
+ * classes read {@link #COUNTS}, so this class must be visible to their class loaders.
+ */
+public final class CallSiteCounters {
+    static final String INTERNAL_NAME = Type.getInternalName(CallSiteCounters.class);
+    static final String COUNTS_FIELD_NAME = "COUNTS";
+    static final String COUNTS_FIELD_DESCRIPTOR = "[J";
+
+    /**
+     * Incremented by the counted call sites, indexed by {@link CallSite#getSlot()}.
+     */
+    public static final long[] COUNTS = new long[Config.CALL_SITE_COUNTERS_CAPACITY];
+
+    private static final Object LOCK = new Object();
+    private static final Map<CallSiteKey, Integer> slotsByCallSite = new HashMap<>();
+    private static volatile CallSite[] callSites = new CallSite[0];
+
+    private CallSiteCounters() {
+    }
+
+    /**
+     * @param className  fully qualified name of the class declaring the method, used to describe the call sites
+     * @param methodName the name of the method whose call sites are to be counted
+     * @param descriptor descriptor of the method, or {@code null} if methodName is unique within the class
+     * @return modification counting invocations made at call sites of the method
+     */
+    public static MethodModification countCallsIn(String className, String methodName, String descriptor) {
+        String caller = className + '.' + methodName + (descriptor == null ? "" : descriptor);
+        return new MethodModification(methodName, descriptor, new Instructions(),
+                (mv, instructions) -> new CallSiteCountingMethodVisitor(mv, caller));
+    }
+
+    /**
+     * @param occurrence number of identical invocations preceding the call site on its line, in the code of the method
+     * @return slot of the call site, allocated when the call site is seen for the first time
+     * @throws IllegalStateException if there are no more slots
+     */
+    static int allocate(String caller, String owner, String name, String descriptor, int line, int occurrence) {
+        synchronized (LOCK) {
+            CallSiteKey key = new CallSiteKey(caller, owner, name, descriptor, line, occurrence);
+            Integer existing = slotsByCallSite.get(key);
+            if (existing != null) {
+                return existing;
+            }
+
+            int slot = callSites.length;
+            if (slot >= COUNTS.length) {
+                throw new IllegalStateException(String.format("All %d call site counters are in use.", COUNTS.length));
+            }
+
+            CallSite[] grown = Arrays.copyOf(callSites, slot + 1);
+            grown[slot] = new CallSite(slot, caller, owner, name, descriptor, line);
+            callSites = grown;
+            slotsByCallSite.put(key, slot);
+            return slot;
+        }
+    }
+
+    /**
+     * @return all the counted call sites, by slot
+     */
+    public static List<CallSite> getCallSites() {
+        return List.of(callSites);
+    }
+
+    /**
+     * @return current counts of all the counted call sites, by slot
+     */
+    public static List<CallSiteCount> snapshot() {
+        CallSite[] current = callSites;
+        List<CallSiteCount> counts = new ArrayList<>(current.length);
+        for (CallSite callSite : current) {
+            counts.add(new CallSiteCount(callSite, COUNTS[callSite.getSlot()]));
+        }
+        return counts;
+    }
+
+    public static void reset() {
+        Arrays.fill(COUNTS, 0, callSites.length, 0);
+    }
+
+    @Value
+    private static class CallSiteKey {
+        private final String caller;
+        private final String owner;
+        private final String name;
+        private final String descriptor;
+        private final int line;
+        private final int occurrence;
+    }
+}
@@ -0,0 +1,82 @@
+package com.pragmatists.manipulation.profiling;
+
+import com.pragmatists.manipulation.bytecode.modification.ModifyingMethodVisitor;
+import com.pragmatists.manipulation.config.Config;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.objectweb.asm.Opcodes.BIPUSH;
+import static org.objectweb.asm.Opcodes.DUP2;
+import static org.objectweb.asm.Opcodes.GETSTATIC;
+import static org.objectweb.asm.Opcodes.ICONST_0;
+import static org.objectweb.asm.Opcodes.LADD;
+import static org.objectweb.asm.Opcodes.LALOAD;
+import static org.objectweb.asm.Opcodes.LASTORE;
+import static org.objectweb.asm.Opcodes.LCONST_1;
+import static org.objectweb.asm.Opcodes.SIPUSH;
+
+/**
+ * CallSiteCountingMethodVisitor allocates a slot of {@link CallSiteCounters#COUNTS} for each method invocation
+ * instruction of the visited method, and injects {@code CallSiteCounters.COUNTS[slot]++} just before it.
+ */
+public class CallSiteCountingMethodVisitor extends ModifyingMethodVisitor {
+    private static final int COUNTING_STACK_SIZE = 6; // array and index twice, then the count and 1
+    private static final int UNKNOWN_LINE = -1;
+
+    private final String caller;
+    private final Map<String, Integer> occurrencesByLineAndInvocation = new HashMap<>();
+    private int line = UNKNOWN_LINE;
+
+    /**
+     * @param caller name of the visited method, used to describe its call sites
+     */
+    public CallSiteCountingMethodVisitor(MethodVisitor mv, String caller) {
+        super(Config.ASM_VERSION, mv);
+        this.caller = caller;
+    }
+
+    @Override
+    public void visitLineNumber(int line, Label start) {
+        this.line = line;
+        super.visitLineNumber(line, start);
+    }
+
+    @Override
+    public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+        // a line can have several line number entries, e.g. for the condition and the update of a for loop, so
+        // occurrences are counted across the whole method
+        String lineAndInvocation = line + " " + owner + '.' + name + descriptor;
+        int occurrence = occurrencesByLineAndInvocation.merge(lineAndInvocation, 1, Integer::sum) - 1;
+        int slot = CallSiteCounters.allocate(caller, owner, name, descriptor, line, occurrence);
+        super.visitFieldInsn(GETSTATIC, CallSiteCounters.INTERNAL_NAME, CallSiteCounters.COUNTS_FIELD_NAME,
+                CallSiteCounters.COUNTS_FIELD_DESCRIPTOR);
+        pushInt(slot);
+        super.visitInsn(DUP2);
+        super.visitInsn(LALOAD);
+        super.visitInsn(LCONST_1);
+        super.visitInsn(LADD);
+        super.visitInsn(LASTORE);
+
+        super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+    }
+
+    @Override
+    public void visitMaxs(int maxStack, int maxLocals) {
+        super.visitMaxs(maxStack + COUNTING_STACK_SIZE, maxLocals);
+    }
+
+    private void pushInt(int value) {
+        if (value <= 5) {
+            super.visitInsn(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            super.visitIntInsn(BIPUSH, value);
+        } else if (value <= Short.MAX_VALUE) {
+            super.visitIntInsn(SIPUSH, value);
+        } else {
+            super.visitLdcInsn(value);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.pragmatists.manipulation.profiling;
+
+import lombok.Value;
+
+import java.util.Arrays;
+
+/**
+ * HistogramSnapshot is the state of a {@link StripedHistogram} at the time it was taken.
+ */
+@Value
+public class HistogramSnapshot {
+    private final String name;
+    /**
+     * Counts of the durations by bucket, see {@link StripedHistogram}
+     */
+    private final long[] counts;
+    private final long totalNanos;
+
+    public long getCount() {
+        return Arrays.stream(counts).sum();
+    }
+
+    public double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    /**
+     * @param percentile percentile in the range {@code (0, 100]}
+     * @return upper bound of the bucket containing the percentile, 0 if nothing was recorded
+     */
+    public long getPercentileUpperBoundNanos(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException(String.format("Percentile must be in range (0, 100], was %s.", percentile));
+        }
+
+        long count = getCount();
+        long threshold = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length && count > 0; bucket++) {
+            seen += counts[bucket];
+            if (seen >= threshold) {
+                return upperBound(bucket);
+            }
+        }
+        return 0;
+    }
+
+    private static long upperBound(int bucket) {
+        return (1L << bucket) - 1; // Long.MAX_VALUE for the last bucket
+    }
+}
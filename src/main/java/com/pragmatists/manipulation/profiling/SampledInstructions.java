@@ -0,0 +1,170 @@
+package com.pragmatists.manipulation.profiling;
+
+import com.pragmatists.manipulation.bytecode.AppendInstruction;
+import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.config.Config;
+import lombok.EqualsAndHashCode;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.objectweb.asm.Opcodes.ACONST_NULL;
+import static org.objectweb.asm.Opcodes.ASTORE;
+import static org.objectweb.asm.Opcodes.BIPUSH;
+import static org.objectweb.asm.Opcodes.DCONST_0;
+import static org.objectweb.asm.Opcodes.DSTORE;
+import static org.objectweb.asm.Opcodes.DUP;
+import static org.objectweb.asm.Opcodes.FCONST_0;
+import static org.objectweb.asm.Opcodes.FSTORE;
+import static org.objectweb.asm.Opcodes.ICONST_0;
+import static org.objectweb.asm.Opcodes.IFEQ;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.ISTORE;
+import static org.objectweb.asm.Opcodes.LCONST_0;
+import static org.objectweb.asm.Opcodes.LSTORE;
+import static org.objectweb.asm.Opcodes.SIPUSH;
+
+/**
+ * Instructions guarded by a {@link Sampler}. A new label is used each time the instructions are appended, so they
+ * can be appended more than once to a method, e.g. before each of its returns.
+ * <p>
+ * Instructions sampled {@link #independently(Instructions, int) independently} ask the sampler on their own. Of a
+ * {@link SampledPair}, the {@link #deciding(Instructions, int, int) deciding} half asks the sampler and keeps the
+ * decision in a local variable, which the {@link #following(Instructions, int) following} half reads. The deciding
+ * half also initializes the local variables it stores before asking, so they are assigned on every path to the
+ * following half.
+ */
+@EqualsAndHashCode(callSuper = true)
+class SampledInstructions extends Instructions {
+    private static final int SAMPLING_CODE_SIZE = 9; // push of the id (at most ldc_w), invokestatic and ifeq
+    private static final int DECISION_CODE_SIZE = 5; // dup and istore (at most wide)
+    private static final int INITIALIZATION_CODE_SIZE = 5; // constant and store (at most wide) per local variable
+    private static final int NO_DECISION_LOCAL = -1;
+    private static final int NO_SAMPLER_ID = -1;
+
+    private final Instructions sampled;
+    private final int samplerId;
+    private final int decisionLocal;
+    private final boolean decides;
+
+    private SampledInstructions(Instructions sampled, int samplerId, int decisionLocal, boolean decides) {
+        super(sampled);
+        this.sampled = sampled;
+        this.samplerId = samplerId;
+        this.decisionLocal = decisionLocal;
+        this.decides = decides;
+    }
+
+    static SampledInstructions independently(Instructions sampled, int samplerId) {
+        return new SampledInstructions(sampled, samplerId, NO_DECISION_LOCAL, false);
+    }
+
+    static SampledInstructions deciding(Instructions sampled, int samplerId, int decisionLocal) {
+        return new SampledInstructions(sampled, samplerId, decisionLocal, true);
+    }
+
+    static SampledInstructions following(Instructions sampled, int decisionLocal) {
+        return new SampledInstructions(sampled, NO_SAMPLER_ID, decisionLocal, false);
+    }
+
+    @Override
+    public void appendMethodInstructions(MethodVisitor methodVisitor) {
+        Label skipped = new Label();
+        if (decides) {
+            initializeStoredLocals(methodVisitor);
+        }
+        if (samplerId == NO_SAMPLER_ID) {
+            methodVisitor.visitVarInsn(ILOAD, decisionLocal);
+        } else {
+            pushInt(methodVisitor, samplerId);
+            methodVisitor.visitMethodInsn(INVOKESTATIC, Sampler.INTERNAL_NAME, Sampler.SHOULD_SAMPLE_METHOD_NAME,
+                    Sampler.SHOULD_SAMPLE_METHOD_DESCRIPTOR, false);
+        }
+        if (decides) {
+            methodVisitor.visitInsn(DUP);
+            methodVisitor.visitVarInsn(ISTORE, decisionLocal);
+        }
+        methodVisitor.visitJumpInsn(IFEQ, skipped);
+        sampled.appendMethodInstructions(methodVisitor);
+        methodVisitor.visitLabel(skipped);
+    }
+
+    private static void pushInt(MethodVisitor methodVisitor, int value) {
+        if (value <= 5) {
+            methodVisitor.visitInsn(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            methodVisitor.visitIntInsn(BIPUSH, value);
+        } else if (value <= Short.MAX_VALUE) {
+            methodVisitor.visitIntInsn(SIPUSH, value);
+        } else {
+            methodVisitor.visitLdcInsn(value);
+        }
+    }
+
+    private void initializeStoredLocals(MethodVisitor methodVisitor) {
+        storedLocals().forEach((local, storeOpcode) -> {
+            methodVisitor.visitInsn(defaultValueOpcode(storeOpcode));
+            methodVisitor.visitVarInsn(storeOpcode, local);
+        });
+    }
+
+    private Map<Integer, Integer> storedLocals() {
+        Map<Integer, Integer> storeOpcodesByLocal = new LinkedHashMap<>();
+        sampled.appendMethodInstructions(new MethodVisitor(Config.ASM_VERSION) {
+            @Override
+            public void visitVarInsn(int opcode, int var) {
+                if (opcode >= ISTORE && opcode <= ASTORE) {
+                    storeOpcodesByLocal.putIfAbsent(var, opcode);
+                }
+            }
+        });
+        return storeOpcodesByLocal;
+    }
+
+    private static int defaultValueOpcode(int storeOpcode) {
+        switch (storeOpcode) {
+            case ISTORE:
+                return ICONST_0;
+            case LSTORE:
+                return LCONST_0;
+            case FSTORE:
+                return FCONST_0;
+            case DSTORE:
+                return DCONST_0;
+            default:
+                return ACONST_NULL;
+        }
+    }
+
+    @Override
+    public int getLocalsSize() {
+        if (decisionLocal == NO_DECISION_LOCAL) {
+            return sampled.getLocalsSize();
+        }
+
+        return Math.max(sampled.getLocalsSize(), decisionLocal + 1);
+    }
+
+    @Override
+    public int getCodeSizeEstimate() {
+        int codeSizeEstimate = sampled.getCodeSizeEstimate() + SAMPLING_CODE_SIZE;
+        if (decides) {
+            codeSizeEstimate += DECISION_CODE_SIZE + INITIALIZATION_CODE_SIZE * storedLocals().size();
+        }
+        return codeSizeEstimate;
+    }
+
+    @Override
+    public boolean hasTryCatchBlocks() {
+        return sampled.hasTryCatchBlocks();
+    }
+
+    @Override
+    public List<AppendInstruction> getInstructionAdditions() {
+        return List.of(this::appendMethodInstructions);
+    }
+}
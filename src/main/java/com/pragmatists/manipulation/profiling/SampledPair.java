@@ -0,0 +1,14 @@
+package com.pragmatists.manipulation.profiling;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import lombok.Value;
+
+/**
+ * Prepended and appended instructions sampled together by {@link Sampler#wrapPair(Instructions, Instructions, int)}:
+ * on each invocation either both halves run or neither does.
+ */
+@Value
+public class SampledPair {
+    private final Instructions prepended;
+    private final Instructions appended;
+}
@@ -0,0 +1,121 @@
+package com.pragmatists.manipulation.profiling;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import org.objectweb.asm.Type;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sampler makes injected instructions run only on some invocations of a method. {@link #wrap(Instructions, int)}
+ * guards the instructions with a call to {@link #shouldSample(int)}, which runs them on average once in N
+ * invocations, where N is the rate of the sampler. Rates are kept in a static table read on each invocation, so they
+ * can be changed with {@link #setRate(int, int)} at any time, without transforming the classes again.
+ * <p>
+ * Each wrapped instructions ask the sampler on their own, so instructions sharing local variables, e.g. a prepended
+ * one storing a start time and an appended one reading it, must be wrapped together with
+ * {@link #wrapPair(Instructions, Instructions, int)}. Wrapped separately, the appended ones could run when the prepended
+ * ones were skipped, and the method would not verify.
+ * <p>
+ * Sampled classes call {@link #shouldSample(int)}, so this class must be visible to their class loaders.
+ */
+public final class Sampler {
+    static final String INTERNAL_NAME = Type.getInternalName(Sampler.class);
+    static final String SHOULD_SAMPLE_METHOD_NAME = "shouldSample";
+    static final String SHOULD_SAMPLE_METHOD_DESCRIPTOR = "(I)Z";
+
+    private static final Object LOCK = new Object();
+    private static final Map<String, Integer> samplerIdsByName = new HashMap<>();
+    private static volatile int[] rates = new int[0];
+
+    private Sampler() {
+    }
+
+    /**
+     * @param samplerName name of the sampler; samplers registered more than once share their rate
+     * @param rate        the instructions run once in rate invocations; 1 runs them always, 0 never
+     * @return id of the sampler
+     */
+    public static int register(String samplerName, int rate) {
+        validate(rate);
+        synchronized (LOCK) {
+            Integer existing = samplerIdsByName.get(samplerName);
+            if (existing != null) {
+                return existing;
+            }
+
+            int samplerId = rates.length;
+            int[] grown = Arrays.copyOf(rates, samplerId + 1);
+            grown[samplerId] = rate;
+            rates = grown;
+            samplerIdsByName.put(samplerName, samplerId);
+            return samplerId;
+        }
+    }
+
+    /**
+     * @return instructions running the given ones only when {@link #shouldSample(int)} allows it
+     */
+    public static Instructions wrap(Instructions instructions, int samplerId) {
+        validate(samplerId, rates);
+        return SampledInstructions.independently(instructions, samplerId);
+    }
+
+    /**
+     * Samples instructions prepended to a method together with ones appended to it, which may read the local variables
+     * stored by the prepended ones. The prepended instructions make the sampling decision once per invocation and keep
+     * it in the local variable following the ones used by both, which must be free in the host method as well; the
+     * local variables they store are initialized first, so that they are assigned when the appended ones read them.
+     * Both halves have to be added to the method with the same local variable indices, i.e. not spliced separately.
+     *
+     * @return the wrapped prepended and appended instructions
+     */
+    public static SampledPair wrapPair(Instructions prepended, Instructions appended, int samplerId) {
+        validate(samplerId, rates);
+        int decisionLocal = Math.max(Math.max(prepended.getLocalsSize(), prepended.getParameterSlots()),
+                Math.max(appended.getLocalsSize(), appended.getParameterSlots()));
+        return new SampledPair(SampledInstructions.deciding(prepended, samplerId, decisionLocal),
+                SampledInstructions.following(appended, decisionLocal));
+    }
+
+    /**
+     * Changes the rate of a sampler; running sampled methods use the new rate on their next invocations.
+     */
+    public static void setRate(int samplerId, int rate) {
+        validate(rate);
+        synchronized (LOCK) {
+            validate(samplerId, rates);
+            int[] changed = rates.clone();
+            changed[samplerId] = rate;
+            rates = changed;
+        }
+    }
+
+    public static int getRate(int samplerId) {
+        int[] current = rates;
+        validate(samplerId, current);
+        return current[samplerId];
+    }
+
+    /**
+     * Called by the sampled methods.
+     */
+    public static boolean shouldSample(int samplerId) {
+        int rate = rates[samplerId];
+        return rate == 1 || rate > 1 && ThreadLocalRandom.current().nextInt(rate) == 0;
+    }
+
+    private static void validate(int rate) {
+        if (rate < 0) {
+            throw new IllegalArgumentException(String.format("Rate cannot be negative, was %d.", rate));
+        }
+    }
+
+    private static void validate(int samplerId, int[] rates) {
+        if (samplerId < 0 || samplerId >= rates.length) {
+            throw new IllegalArgumentException(String.format("No sampler is registered with id %d.", samplerId));
+        }
+    }
+}
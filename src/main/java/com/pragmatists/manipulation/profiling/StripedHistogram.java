@@ -0,0 +1,78 @@
+package com.pragmatists.manipulation.profiling;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * StripedHistogram counts recorded durations in buckets of powers of two: bucket {@code i} counts the durations in
+ * the range {@code [2^(i-1), 2^i)} nanoseconds, bucket {@code 0} counts zero and negative durations. Recording is
+ * lock-free and doesn't allocate. To limit contention, threads record into separate stripes, which are summed up only
+ * when a snapshot is taken.
+ */
+public class StripedHistogram {
+    static final int BUCKETS = Long.SIZE;
+    private static final int TOTAL_SLOT = BUCKETS;
+    private static final int STRIPE_SIZE = BUCKETS + 1;
+    private static final int MAXIMUM_STRIPES = 16;
+
+    private final String name;
+    private final int stripeMask;
+    private final AtomicLongArray slots;
+
+    public StripedHistogram(String name) {
+        this(name, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param name    name of the histogram, e.g. of the probed method
+     * @param stripes expected number of concurrently recording threads; rounded up to a power of two, up to 16
+     */
+    public StripedHistogram(String name, int stripes) {
+        int stripeCount = stripes <= 1 ? 1 : Math.min(MAXIMUM_STRIPES, Integer.highestOneBit(stripes - 1) << 1);
+        this.name = name;
+        this.stripeMask = stripeCount - 1;
+        this.slots = new AtomicLongArray(stripeCount * STRIPE_SIZE);
+    }
+
+    public void record(long nanos) {
+        int stripeOffset = ((int) Thread.currentThread().getId() & stripeMask) * STRIPE_SIZE;
+        slots.incrementAndGet(stripeOffset + bucket(nanos));
+        slots.addAndGet(stripeOffset + TOTAL_SLOT, nanos);
+    }
+
+    public HistogramSnapshot snapshot() {
+        return collect(false);
+    }
+
+    /**
+     * Takes a snapshot and resets the histogram. No recording is lost or counted twice, but the bucket count and the
+     * duration of a recording made during the reset may be split between this snapshot and the next one, as the slots
+     * are reset one by one, without stopping the recording threads.
+     */
+    public HistogramSnapshot snapshotAndReset() {
+        return collect(true);
+    }
+
+    public void reset() {
+        collect(true);
+    }
+
+    private HistogramSnapshot collect(boolean reset) {
+        long[] counts = new long[BUCKETS];
+        long totalNanos = 0;
+        for (int stripeOffset = 0; stripeOffset < slots.length(); stripeOffset += STRIPE_SIZE) {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                counts[bucket] += read(stripeOffset + bucket, reset);
+            }
+            totalNanos += read(stripeOffset + TOTAL_SLOT, reset);
+        }
+        return new HistogramSnapshot(name, counts, totalNanos);
+    }
+
+    private long read(int slot, boolean reset) {
+        return reset ? slots.getAndSet(slot, 0) : slots.get(slot);
+    }
+
+    static int bucket(long nanos) {
+        return nanos <= 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(nanos);
+    }
+}
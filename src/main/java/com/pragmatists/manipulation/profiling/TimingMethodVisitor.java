@@ -0,0 +1,81 @@
+package com.pragmatists.manipulation.profiling;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.bytecode.modification.AppendingMethodVisitor;
+import com.pragmatists.manipulation.bytecode.modification.ModifyingMethodVisitor;
+import com.pragmatists.manipulation.bytecode.modification.PrependingMethodVisitor;
+import com.pragmatists.manipulation.config.Config;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.tree.MethodNode;
+
+import static com.pragmatists.manipulation.bytecode.modification.LocalVariables.firstFreeLocal;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.LLOAD;
+import static org.objectweb.asm.Opcodes.LSTORE;
+import static org.objectweb.asm.Opcodes.LSUB;
+
+/**
+ * TimingMethodVisitor injects a timing probe (see {@link TimingProbes}) into the visited method. The start time is
+ * kept in a new local variable, so the method is buffered until its end to find a free local variable index. The
+ * probe is then injected by a {@link PrependingMethodVisitor} storing the start time, and an
+ * {@link AppendingMethodVisitor} recording the elapsed time before each return and, unless the method is a
+ * constructor, also when the method exits by throwing.
+ */
+public class TimingMethodVisitor extends ModifyingMethodVisitor {
+    private static final int PROBE_STACK_SIZE = 5; // probe id, current time and start time
+    private static final int START_TIME_SIZE = 2;
+
+    private final MethodVisitor originalMethodVisitor;
+    private final MethodNode method;
+    private final int probeId;
+    private final boolean recordingExceptionalExits;
+
+    /**
+     * @param recordingExceptionalExits whether exits by throwing are recorded too; must be {@code false} for
+     *                                  constructors
+     */
+    public TimingMethodVisitor(MethodVisitor mv, int probeId, boolean recordingExceptionalExits) {
+        super(Config.ASM_VERSION, new MethodNode(Config.ASM_VERSION));
+        this.originalMethodVisitor = mv;
+        this.method = (MethodNode) this.mv;
+        this.probeId = probeId;
+        this.recordingExceptionalExits = recordingExceptionalExits;
+    }
+
+    @Override
+    public void visitEnd() {
+        super.visitEnd();
+        if (method.instructions.size() == 0) { // abstract or native
+            method.accept(originalMethodVisitor);
+            return;
+        }
+
+        int startTimeIndex = firstFreeLocal(method);
+        method.maxLocals = startTimeIndex + START_TIME_SIZE;
+        method.maxStack += PROBE_STACK_SIZE;
+
+        // The start time is stored before the code covered by the handler of exceptional exits, which reads it.
+        MethodVisitor starting = new PrependingMethodVisitor(originalMethodVisitor, startingInstructions(startTimeIndex));
+        method.accept(new AppendingMethodVisitor(starting, recordingInstructions(startTimeIndex), recordingExceptionalExits));
+    }
+
+    private Instructions startingInstructions(int startTimeIndex) {
+        Instructions instructions = new Instructions();
+        MethodVisitor recorder = instructions.recorder();
+        recorder.visitMethodInsn(INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
+        recorder.visitVarInsn(LSTORE, startTimeIndex);
+        return instructions;
+    }
+
+    private Instructions recordingInstructions(int startTimeIndex) {
+        Instructions instructions = new Instructions();
+        MethodVisitor recorder = instructions.recorder();
+        recorder.visitLdcInsn(probeId);
+        recorder.visitMethodInsn(INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
+        recorder.visitVarInsn(LLOAD, startTimeIndex);
+        recorder.visitInsn(LSUB);
+        recorder.visitMethodInsn(INVOKESTATIC, TimingProbes.INTERNAL_NAME, TimingProbes.RECORD_METHOD_NAME,
+                TimingProbes.RECORD_METHOD_DESCRIPTOR, false);
+        return instructions;
+    }
+}
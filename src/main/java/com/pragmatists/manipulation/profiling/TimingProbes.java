@@ -0,0 +1,96 @@
+package com.pragmatists.manipulation.profiling;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.bytecode.modification.MethodModification;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * TimingProbes measure how long methods take. A probe is injected into a method by a {@link MethodModification}
+ * returned by {@link #probe(String, String, String)}: the method stores {@link System#nanoTime()} when it starts and
+ * records the elapsed time on each exit into the {@link StripedHistogram} of the probe. Recording is
+ * lock-free and doesn't allocate, so probes can be left in production code; their histograms are read with
+ * {@link #snapshot()} and {@link #snapshotAndReset()}.
+ * <p>
+ * Probed classes call {@link #record(int, long)}, so this class must be visible to their class loaders. Exits by
+ * throwing are recorded too, except for constructors.
+ */
+public final class TimingProbes {
+    static final String INTERNAL_NAME = Type.getInternalName(TimingProbes.class);
+    static final String RECORD_METHOD_NAME = "record";
+    static final String RECORD_METHOD_DESCRIPTOR = "(IJ)V";
+    private static final String CONSTRUCTOR_NAME = "<init>";
+
+    private static final Object LOCK = new Object();
+    private static final Map<String, Integer> probeIdsByName = new HashMap<>();
+    private static volatile StripedHistogram[] histograms = new StripedHistogram[0];
+
+    private TimingProbes() {
+    }
+
+    /**
+     * @param className  fully qualified name of the class declaring the probed method, used to name the probe
+     * @param methodName the name of the probed method
+     * @param descriptor descriptor of the probed method, or {@code null} if methodName is unique within the class
+     * @return modification injecting a probe into the method
+     */
+    public static MethodModification probe(String className, String methodName, String descriptor) {
+        String probeName = className + '.' + methodName + (descriptor == null ? "" : descriptor);
+        int probeId = register(probeName);
+        return new MethodModification(methodName, descriptor, new Instructions(),
+                (mv, instructions) -> new TimingMethodVisitor(mv, probeId, !CONSTRUCTOR_NAME.equals(methodName)));
+    }
+
+    /**
+     * @return id of the probe with the given name; probes registered more than once share their histogram
+     */
+    public static int register(String probeName) {
+        synchronized (LOCK) {
+            Integer existing = probeIdsByName.get(probeName);
+            if (existing != null) {
+                return existing;
+            }
+
+            int probeId = histograms.length;
+            StripedHistogram[] grown = Arrays.copyOf(histograms, probeId + 1);
+            grown[probeId] = new StripedHistogram(probeName);
+            histograms = grown;
+            probeIdsByName.put(probeName, probeId);
+            return probeId;
+        }
+    }
+
+    /**
+     * Called by the probed methods.
+     */
+    public static void record(int probeId, long elapsedNanos) {
+        histograms[probeId].record(elapsedNanos);
+    }
+
+    public static List<HistogramSnapshot> snapshot() {
+        return collect(StripedHistogram::snapshot);
+    }
+
+    public static List<HistogramSnapshot> snapshotAndReset() {
+        return collect(StripedHistogram::snapshotAndReset);
+    }
+
+    public static void reset() {
+        collect(StripedHistogram::snapshotAndReset);
+    }
+
+    private static List<HistogramSnapshot> collect(Function<StripedHistogram, HistogramSnapshot> snapshotTaker) {
+        StripedHistogram[] current = histograms;
+        List<HistogramSnapshot> snapshots = new ArrayList<>(current.length);
+        for (StripedHistogram histogram : current) {
+            snapshots.add(snapshotTaker.apply(histogram));
+        }
+        return snapshots;
+    }
+}
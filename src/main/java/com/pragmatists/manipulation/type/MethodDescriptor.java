@@ -0,0 +1,143 @@
+package com.pragmatists.manipulation.type;
+
+import com.pragmatists.manipulation.config.Config;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.objectweb.asm.Type;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.ISTORE;
+
+/**
+ * MethodDescriptor is a parsed method descriptor, with everything needed to load, store and return the values of the
+ * method computed up front. MethodDescriptors are interned: {@link #of(String)} and {@link #of(Class, Class...)}
+ * return the same instance for the same descriptor, so visitors run for each method of many classes don't parse or
+ * format descriptors again. Interned descriptors are never evicted, so only the first
+ * {@link Config#INTERNED_METHOD_DESCRIPTORS} distinct descriptors are interned; the others are parsed on every call,
+ * into instances which are equal, but not identical.
+ * <p>
+ * Argument slots are counted from the first argument, i.e. without {@code this}; see {@link #getParameterSlots(boolean)}
+ * for the slots taken by all the parameters of a method.
+ */
+@Getter
+@EqualsAndHashCode(of = "descriptor")
+@ToString(of = "descriptor")
+public final class MethodDescriptor {
+    private static final ConcurrentMap<String, MethodDescriptor> interned = new ConcurrentHashMap<>();
+
+    // Values are held by their classes, so caching them doesn't stop substituted classes from being unloaded.
+    private static final ClassValue<String> typeDescriptors = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return Type.getDescriptor(type);
+        }
+    };
+
+    private final String descriptor;
+    private final Type returnType;
+    private final int returnOpcode;
+    /**
+     * Number of local variable slots taken by the arguments.
+     */
+    private final int argumentsSize;
+    @Getter(AccessLevel.NONE)
+    private final Type[] argumentTypes;
+    @Getter(AccessLevel.NONE)
+    private final int[] argumentSlots;
+    @Getter(AccessLevel.NONE)
+    private final int[] loadOpcodes;
+    @Getter(AccessLevel.NONE)
+    private final int[] storeOpcodes;
+
+    private MethodDescriptor(String descriptor) {
+        this.descriptor = descriptor;
+        this.returnType = Type.getReturnType(descriptor);
+        this.returnOpcode = Types.correspondingReturnBytecode(returnType);
+        this.argumentTypes = Type.getArgumentTypes(descriptor);
+        this.argumentSlots = new int[argumentTypes.length];
+        this.loadOpcodes = new int[argumentTypes.length];
+        this.storeOpcodes = new int[argumentTypes.length];
+        int slot = 0;
+        for (int i = 0; i < argumentTypes.length; i++) {
+            argumentSlots[i] = slot;
+            loadOpcodes[i] = argumentTypes[i].getOpcode(ILOAD);
+            storeOpcodes[i] = argumentTypes[i].getOpcode(ISTORE);
+            slot += argumentTypes[i].getSize();
+        }
+        this.argumentsSize = slot;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the descriptor is not a valid method descriptor
+     */
+    public static MethodDescriptor of(String descriptor) {
+        MethodDescriptor methodDescriptor = interned.get(descriptor);
+        if (methodDescriptor != null) {
+            return methodDescriptor;
+        }
+
+        try {
+            if (interned.size() >= Config.INTERNED_METHOD_DESCRIPTORS) {
+                return new MethodDescriptor(descriptor);
+            }
+            return interned.computeIfAbsent(descriptor, MethodDescriptor::new);
+        } catch (RuntimeException e) { // ASM doesn't validate descriptors, so it fails in various ways
+            throw new IllegalArgumentException(String.format("'%s' is an invalid method descriptor.", descriptor), e);
+        }
+    }
+
+    /**
+     * @param returnType the return type, {@code null} for {@code void}
+     * @param paramTypes the parameter types
+     */
+    public static MethodDescriptor of(Class<?> returnType, Class<?>... paramTypes) {
+        StringBuilder descriptor = new StringBuilder().append('(');
+        for (Class<?> paramType : paramTypes) {
+            descriptor.append(typeDescriptors.get(paramType));
+        }
+        descriptor.append(')').append(returnType == null ? "V" : typeDescriptors.get(returnType));
+        return of(descriptor.toString());
+    }
+
+    public int getArgumentCount() {
+        return argumentTypes.length;
+    }
+
+    public Type getArgumentType(int argument) {
+        return argumentTypes[argument];
+    }
+
+    /**
+     * @return local variable slot of the argument, counted from the first argument
+     */
+    public int getArgumentSlot(int argument) {
+        return argumentSlots[argument];
+    }
+
+    /**
+     * @return opcode loading the argument, e.g. {@code ILOAD} for an {@code int}
+     */
+    public int getLoadOpcode(int argument) {
+        return loadOpcodes[argument];
+    }
+
+    /**
+     * @return opcode storing the argument, e.g. {@code ASTORE} for an object
+     */
+    public int getStoreOpcode(int argument) {
+        return storeOpcodes[argument];
+    }
+
+    /**
+     * @param isStatic whether the method is static, i.e. has no {@code this}
+     * @return number of local variable slots taken by the parameters of the method, including {@code this}
+     */
+    public int getParameterSlots(boolean isStatic) {
+        return isStatic ? argumentsSize : argumentsSize + 1;
+    }
+}
@@ -2,14 +2,9 @@ package com.pragmatists.manipulation.type;
 
 import org.objectweb.asm.Type;
 
-import java.util.Arrays;
-import java.util.stream.Collectors;
-
 import static org.objectweb.asm.Opcodes.*;
 
 public class Types {
-    private static final String DESCRIPTOR_FORMAT = "(%s)%s";
-
     public static int correspondingReturnBytecode(Type returnType) {
         int sort = returnType.getSort();
         switch (sort) {
@@ -59,14 +54,9 @@ public class Types {
      * @param returnType the return type, {@code null} for {@code void}
      * @param paramTypes the parameter types
      * @return the descriptor of a method with given parameter and return types
+     * @see MethodDescriptor#of(Class, Class...)
      */
     public static String methodDescriptor(Class returnType, Class... paramTypes) {
-        String paramTypeDescriptors = Arrays.stream(paramTypes)
-                .map(Type::getDescriptor)
-                .collect(Collectors.joining());
-
-        String returnTypeDescriptor = returnType == null ? Type.VOID_TYPE.getDescriptor() : Type.getDescriptor(returnType);
-
-        return String.format(DESCRIPTOR_FORMAT, paramTypeDescriptors, returnTypeDescriptor);
+        return MethodDescriptor.of(returnType, paramTypes).getDescriptor();
     }
 }
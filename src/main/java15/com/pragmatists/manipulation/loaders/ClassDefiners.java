@@ -0,0 +1,37 @@
+package com.pragmatists.manipulation.loaders;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Factories of {@link ClassDefiner}s. This is the version for Java 15 and later, see the base version for Java 11.
+ */
+public final class ClassDefiners {
+    private ClassDefiners() {
+    }
+
+    /**
+     * @param lookup lookup with package access in the package the classes are to be defined in
+     * @return ClassDefiner of ordinary classes in the package of the lookup class
+     */
+    public static ClassDefiner inPackageOf(MethodHandles.Lookup lookup) {
+        return new LookupClassDefiner(lookup);
+    }
+
+    /**
+     * Classes which are not referred to by name, e.g. generated implementations of interfaces, are defined as hidden
+     * classes, which are unloaded as soon as they're unreachable, without a class loader of their own.
+     *
+     * @param lookup lookup with package access in the package the classes are to be defined in
+     * @return ClassDefiner of hidden classes in the package of the lookup class
+     */
+    public static ClassDefiner throwaway(MethodHandles.Lookup lookup) {
+        return new HiddenClassDefiner(lookup);
+    }
+
+    /**
+     * @return whether {@link #throwaway(MethodHandles.Lookup)} defines hidden classes
+     */
+    public static boolean isDefiningHiddenClasses() {
+        return true;
+    }
+}
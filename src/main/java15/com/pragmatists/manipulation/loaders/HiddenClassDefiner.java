@@ -0,0 +1,29 @@
+package com.pragmatists.manipulation.loaders;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * HiddenClassDefiner defines hidden classes with {@link MethodHandles.Lookup#defineHiddenClass}, in the package of the
+ * lookup class. The classes are not strongly bound to the class loader, so they're unloaded once they're unreachable,
+ * and a class name can be defined any number of times. Hidden classes can't be referred to by name from other
+ * classes.
+ */
+class HiddenClassDefiner implements ClassDefiner {
+    private final MethodHandles.Lookup lookup;
+
+    HiddenClassDefiner(MethodHandles.Lookup lookup) {
+        if ((lookup.lookupModes() & MethodHandles.Lookup.PACKAGE) == 0) {
+            throw new IllegalArgumentException(String.format("Lookup %s has no package access.", lookup));
+        }
+        this.lookup = lookup;
+    }
+
+    @Override
+    public Class<?> define(byte[] bytecode) {
+        try {
+            return lookup.defineHiddenClass(bytecode, true).lookupClass();
+        } catch (IllegalAccessException e) { // the access is checked in the constructor
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.pragmatists.manipulation.agent;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.bytecode.extraction.InstructionsExtractor;
+import com.pragmatists.manipulation.bytecode.modification.MethodModification;
+import com.pragmatists.manipulation.bytecode.modification.PrependingMethodVisitor;
+import com.pragmatists.manipulation.loaders.ClassSubstitutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import test.PrintCaptor;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.ClassFileUtils.getBytecodeFromResources;
+
+class ModifyingClassFileTransformerTest {
+    private static final String MODIFIED_CLASS_NAME = "test.types.Modified";
+    private static final String MODIFIED_INTERNAL_NAME = "test/types/Modified";
+    private static final byte[] MODIFIED_CLASS_BYTECODE = getBytecodeFromResources("Modified.class");
+    private static final byte[] SOURCE_CLASS_BYTECODE = getBytecodeFromResources("Source.class");
+    private static final PrintStream ORIGINAL_OUT = System.out;
+
+    @AfterEach
+    void tearDown() {
+        System.setOut(ORIGINAL_OUT);
+    }
+
+    @Test
+    void shouldNotTransformClassesWithoutRules() {
+        ModificationRules rules = new ModificationRules()
+                .register(MODIFIED_CLASS_NAME, new MethodModification("foo", "()V", barInstructions(), PrependingMethodVisitor::new));
+        ModifyingClassFileTransformer transformer = new ModifyingClassFileTransformer(rules);
+
+        assertNull(transformer.transform(getClass().getClassLoader(), "test/types/Source", null, null, SOURCE_CLASS_BYTECODE));
+        assertNull(transformer.transform(getClass().getClassLoader(), null, null, null, SOURCE_CLASS_BYTECODE));
+    }
+
+    @Test
+    void shouldApplyRulesOfTransformedClass() throws Exception {
+        ModificationRules rules = new ModificationRules()
+                .register(MODIFIED_CLASS_NAME, new MethodModification("foo", "()V", barInstructions(), PrependingMethodVisitor::new));
+        ModifyingClassFileTransformer transformer = new ModifyingClassFileTransformer(rules);
+
+        byte[] transformed = transformer.transform(getClass().getClassLoader(), MODIFIED_INTERNAL_NAME, null, null, MODIFIED_CLASS_BYTECODE);
+
+        assertEquals(List.of("this is coming from source", "foo here"), invokeFoo(transformed));
+    }
+
+    @Test
+    void shouldLeaveClassUnmodifiedWhenModificationFails() {
+        ModificationRules rules = new ModificationRules()
+                .register(MODIFIED_CLASS_NAME, new MethodModification("foo", "()V", barInstructions(), (mv, instructions) -> {
+                    throw new IllegalArgumentException("broken rule");
+                }));
+        List<String> failedClasses = new ArrayList<>();
+        ModifyingClassFileTransformer transformer = new ModifyingClassFileTransformer(rules, (className, failure) -> {
+            assertEquals("broken rule", failure.getMessage());
+            failedClasses.add(className);
+        });
+
+        assertNull(transformer.transform(getClass().getClassLoader(), MODIFIED_INTERNAL_NAME, null, null, MODIFIED_CLASS_BYTECODE));
+        assertEquals(List.of(MODIFIED_INTERNAL_NAME), failedClasses);
+    }
+
+    @Test
+    void shouldKeepRulesInOrderOfRegistration() {
+        MethodModification first = new MethodModification("foo", barInstructions(), PrependingMethodVisitor::new);
+        MethodModification second = new MethodModification("foo", barInstructions(), PrependingMethodVisitor::new);
+
+        ModificationRules rules = new ModificationRules()
+                .register(MODIFIED_CLASS_NAME, first)
+                .register(MODIFIED_CLASS_NAME, second);
+
+        assertEquals(List.of(first, second), rules.modificationsFor(MODIFIED_INTERNAL_NAME));
+        assertEquals(List.of(), rules.modificationsFor("test/types/Source"));
+    }
+
+    private static List<String> invokeFoo(byte[] bytecode) throws Exception {
+        Class<?> modifiedClass = new ClassSubstitutor(Map.of(MODIFIED_CLASS_NAME, bytecode)).loadClass(MODIFIED_CLASS_NAME);
+        Object instance = modifiedClass.getConstructor().newInstance();
+        PrintCaptor captor = new PrintCaptor();
+        System.setOut(captor);
+        modifiedClass.getMethod("foo").invoke(instance);
+        return captor.getResults();
+    }
+
+    private static Instructions barInstructions() {
+        return new InstructionsExtractor("bar").extract(SOURCE_CLASS_BYTECODE).orElseThrow();
+    }
+}
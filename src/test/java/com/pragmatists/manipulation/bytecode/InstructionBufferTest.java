@@ -0,0 +1,131 @@
+package com.pragmatists.manipulation.bytecode;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.*;
+import static org.objectweb.asm.Opcodes.*;
+
+class InstructionBufferTest {
+    private static final String OWNER = "pkg/Owner";
+    private static final String NAME = "name";
+    private static final String DESCRIPTOR = "()V";
+
+    @Test
+    void shouldReplayRecordedInstructionsInOrder() {
+        InstructionBuffer buffer = new InstructionBuffer();
+        MethodVisitor recorder = buffer.recorder();
+        Label label = new Label();
+        Label[] labels = {label};
+        int[] keys = {1};
+        Handle handle = new Handle(H_INVOKESTATIC, OWNER, NAME, DESCRIPTOR, false);
+        Object[] bootstrapArguments = {"argument"};
+
+        recorder.visitLabel(label);
+        recorder.visitLineNumber(7, label);
+        recorder.visitInsn(ICONST_0);
+        recorder.visitIntInsn(BIPUSH, 42);
+        recorder.visitVarInsn(ISTORE, 1);
+        recorder.visitTypeInsn(NEW, OWNER);
+        recorder.visitFieldInsn(GETSTATIC, OWNER, NAME, "I");
+        recorder.visitMethodInsn(INVOKEINTERFACE, OWNER, NAME, DESCRIPTOR, true);
+        recorder.visitInvokeDynamicInsn(NAME, DESCRIPTOR, handle, bootstrapArguments);
+        recorder.visitJumpInsn(GOTO, label);
+        recorder.visitLdcInsn(3L);
+        recorder.visitIincInsn(1, -1);
+        recorder.visitTableSwitchInsn(0, 0, label, labels);
+        recorder.visitLookupSwitchInsn(label, keys, labels);
+        recorder.visitMultiANewArrayInsn("[[I", 2);
+        recorder.visitTryCatchBlock(label, label, label, null);
+        recorder.visitLocalVariable(NAME, "I", null, label, label, 1);
+        recorder.visitMaxs(2, 3);
+
+        MethodVisitor mv = mock(MethodVisitor.class);
+        buffer.replay(mv);
+
+        InOrder inOrder = inOrder(mv);
+        inOrder.verify(mv).visitLabel(label);
+        inOrder.verify(mv).visitLineNumber(7, label);
+        inOrder.verify(mv).visitInsn(ICONST_0);
+        inOrder.verify(mv).visitIntInsn(BIPUSH, 42);
+        inOrder.verify(mv).visitVarInsn(ISTORE, 1);
+        inOrder.verify(mv).visitTypeInsn(NEW, OWNER);
+        inOrder.verify(mv).visitFieldInsn(GETSTATIC, OWNER, NAME, "I");
+        inOrder.verify(mv).visitMethodInsn(INVOKEINTERFACE, OWNER, NAME, DESCRIPTOR, true);
+        inOrder.verify(mv).visitInvokeDynamicInsn(NAME, DESCRIPTOR, handle, bootstrapArguments);
+        inOrder.verify(mv).visitJumpInsn(GOTO, label);
+        inOrder.verify(mv).visitLdcInsn(3L);
+        inOrder.verify(mv).visitIincInsn(1, -1);
+        inOrder.verify(mv).visitTableSwitchInsn(0, 0, label, labels);
+        inOrder.verify(mv).visitLookupSwitchInsn(label, keys, labels);
+        inOrder.verify(mv).visitMultiANewArrayInsn("[[I", 2);
+        inOrder.verify(mv).visitTryCatchBlock(label, label, label, null);
+        inOrder.verify(mv).visitLocalVariable(NAME, "I", null, label, label, 1);
+        inOrder.verify(mv).visitMaxs(2, 3);
+        verifyNoMoreInteractions(mv);
+        assertEquals(18, buffer.size());
+    }
+
+    @Test
+    void shouldKeepOrderOfRecordedInstructionsAndAppendInstructions() {
+        InstructionBuffer buffer = new InstructionBuffer();
+        buffer.recorder().visitInsn(ICONST_1);
+        buffer.add(mv -> mv.visitInsn(ICONST_2));
+        buffer.recorder().visitInsn(ICONST_3);
+
+        MethodVisitor mv = mock(MethodVisitor.class);
+        buffer.replay(mv);
+
+        InOrder inOrder = inOrder(mv);
+        inOrder.verify(mv).visitInsn(ICONST_1);
+        inOrder.verify(mv).visitInsn(ICONST_2);
+        inOrder.verify(mv).visitInsn(ICONST_3);
+    }
+
+    @Test
+    void shouldCopyFrameArraysReusedByTheCaller() {
+        InstructionBuffer buffer = new InstructionBuffer();
+        Object[] locals = {INTEGER, LONG};
+        buffer.recorder().visitFrame(F_NEW, 2, locals, 0, new Object[0]);
+        locals[0] = FLOAT;
+
+        MethodVisitor mv = mock(MethodVisitor.class);
+        buffer.replay(mv);
+
+        verify(mv).visitFrame(F_NEW, 2, new Object[]{INTEGER, LONG}, 0, new Object[0]);
+    }
+
+    @Test
+    void shouldSplitIntoSingleEntryAppendInstructions() {
+        InstructionBuffer buffer = new InstructionBuffer();
+        buffer.recorder().visitInsn(ICONST_1);
+        buffer.recorder().visitVarInsn(ISTORE, 1);
+
+        AppendInstruction[] appendInstructions = buffer.toAppendInstructions();
+        MethodVisitor mv = mock(MethodVisitor.class);
+        appendInstructions[1].accept(mv);
+
+        assertEquals(2, appendInstructions.length);
+        verify(mv).visitVarInsn(ISTORE, 1);
+        verifyNoMoreInteractions(mv);
+    }
+
+    @Test
+    void buffersWithSameInstructionsShouldBeEqual() {
+        InstructionBuffer buffer = new InstructionBuffer();
+        buffer.recorder().visitLdcInsn("a");
+        InstructionBuffer same = new InstructionBuffer();
+        same.recorder().visitLdcInsn("a");
+        InstructionBuffer other = new InstructionBuffer();
+        other.recorder().visitLdcInsn("b");
+
+        assertEquals(buffer, same);
+        assertEquals(buffer.hashCode(), same.hashCode());
+        assertNotEquals(buffer, other);
+    }
+}
@@ -0,0 +1,186 @@
+package com.pragmatists.manipulation.bytecode;
+
+import com.pragmatists.manipulation.bytecode.characteristics.MethodCharacteristic;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.objectweb.asm.Opcodes.*;
+
+class InstructionsOptimizerTest {
+
+    @Test
+    void shouldFoldConstantArithmetic() {
+        Instructions instructions = new Instructions();
+        MethodVisitor recorder = instructions.recorder();
+        recorder.visitLdcInsn(40);
+        recorder.visitInsn(ICONST_1);
+        recorder.visitInsn(IADD);
+        recorder.visitInsn(ICONST_1);
+        recorder.visitInsn(IADD);
+        recorder.visitInsn(I2L);
+        recorder.visitLdcInsn(1000L);
+        recorder.visitInsn(LMUL);
+        recorder.visitInsn(LRETURN);
+
+        OptimizationResult result = InstructionsOptimizer.optimize(instructions);
+
+        MethodVisitor mv = mock(MethodVisitor.class);
+        result.getInstructions().appendMethodInstructions(mv);
+        InOrder inOrder = inOrder(mv);
+        inOrder.verify(mv).visitLdcInsn(42000L);
+        inOrder.verify(mv).visitInsn(LRETURN);
+        verifyNoMoreInteractions(mv);
+        assertEquals(12, result.getCodeSizeBefore());
+        assertEquals(4, result.getCodeSizeAfter());
+        assertEquals(8, result.getSavedBytes());
+    }
+
+    @Test
+    void shouldPushConstantsWithShortestInstructions() {
+        Instructions instructions = new Instructions();
+        MethodVisitor recorder = instructions.recorder();
+        recorder.visitLdcInsn(-1);
+        recorder.visitLdcInsn(100);
+        recorder.visitLdcInsn(1000);
+        recorder.visitLdcInsn(100_000);
+        recorder.visitIntInsn(BIPUSH, 3);
+        recorder.visitLdcInsn(1L);
+        recorder.visitLdcInsn(2f);
+        recorder.visitLdcInsn(-0f);
+        recorder.visitLdcInsn(1d);
+
+        MethodVisitor mv = mock(MethodVisitor.class);
+        InstructionsOptimizer.optimize(instructions).getInstructions().appendMethodInstructions(mv);
+
+        InOrder inOrder = inOrder(mv);
+        inOrder.verify(mv).visitInsn(ICONST_M1);
+        inOrder.verify(mv).visitIntInsn(BIPUSH, 100);
+        inOrder.verify(mv).visitIntInsn(SIPUSH, 1000);
+        inOrder.verify(mv).visitLdcInsn(100_000);
+        inOrder.verify(mv).visitInsn(ICONST_3);
+        inOrder.verify(mv).visitInsn(LCONST_1);
+        inOrder.verify(mv).visitInsn(FCONST_2);
+        inOrder.verify(mv).visitLdcInsn(-0f);
+        inOrder.verify(mv).visitInsn(DCONST_1);
+        verifyNoMoreInteractions(mv);
+    }
+
+    @Test
+    void shouldDropPoppedValuesAndDeadStores() {
+        Instructions instructions = new Instructions();
+        instructions.setMethodCharacteristic(new MethodCharacteristic(ACC_PUBLIC, "method", "(I)V"));
+        MethodVisitor recorder = instructions.recorder();
+        recorder.visitLdcInsn("unused");
+        recorder.visitInsn(POP);
+        recorder.visitVarInsn(ILOAD, 1);
+        recorder.visitInsn(ICONST_0);
+        recorder.visitInsn(IADD);
+        recorder.visitVarInsn(ISTORE, 2); // never read
+        recorder.visitLdcInsn(7L);
+        recorder.visitVarInsn(LSTORE, 3); // never read
+        recorder.visitVarInsn(ILOAD, 1);
+        recorder.visitVarInsn(ISTORE, 1); // self-assignment
+        recorder.visitIntInsn(BIPUSH, 5);
+        recorder.visitVarInsn(ISTORE, 1); // a parameter, might be read by the host method
+
+        MethodVisitor mv = mock(MethodVisitor.class);
+        InstructionsOptimizer.optimize(instructions).getInstructions().appendMethodInstructions(mv);
+
+        InOrder inOrder = inOrder(mv);
+        inOrder.verify(mv).visitInsn(ICONST_5);
+        inOrder.verify(mv).visitVarInsn(ISTORE, 1);
+        verifyNoMoreInteractions(mv);
+    }
+
+    @Test
+    void shouldNotFoldAcrossLabels() {
+        Instructions instructions = new Instructions();
+        Label label = new Label();
+        MethodVisitor recorder = instructions.recorder();
+        recorder.visitInsn(ICONST_1);
+        recorder.visitLabel(label);
+        recorder.visitInsn(ICONST_2);
+        recorder.visitInsn(IADD);
+
+        MethodVisitor mv = mock(MethodVisitor.class);
+        InstructionsOptimizer.optimize(instructions).getInstructions().appendMethodInstructions(mv);
+
+        InOrder inOrder = inOrder(mv);
+        inOrder.verify(mv).visitInsn(ICONST_1);
+        inOrder.verify(mv).visitLabel(label);
+        inOrder.verify(mv).visitInsn(ICONST_2);
+        inOrder.verify(mv).visitInsn(IADD);
+        verifyNoMoreInteractions(mv);
+    }
+
+    @Test
+    void shouldNotFoldDivisionByZero() {
+        Instructions instructions = new Instructions();
+        MethodVisitor recorder = instructions.recorder();
+        recorder.visitInsn(ICONST_1);
+        recorder.visitInsn(ICONST_0);
+        recorder.visitInsn(IDIV);
+
+        MethodVisitor mv = mock(MethodVisitor.class);
+        InstructionsOptimizer.optimize(instructions).getInstructions().appendMethodInstructions(mv);
+
+        InOrder inOrder = inOrder(mv);
+        inOrder.verify(mv).visitInsn(ICONST_1);
+        inOrder.verify(mv).visitInsn(ICONST_0);
+        inOrder.verify(mv).visitInsn(IDIV);
+        verifyNoMoreInteractions(mv);
+    }
+
+    @Test
+    void shouldKeepAppendInstructionsAndStoresWhenThereAreAny() {
+        AppendInstruction appendInstruction = mv -> mv.visitVarInsn(ILOAD, 2);
+        Instructions instructions = new Instructions();
+        instructions.recorder().visitInsn(ICONST_4);
+        instructions.recorder().visitVarInsn(ISTORE, 2);
+        instructions.collectInstruction(appendInstruction);
+
+        MethodVisitor mv = mock(MethodVisitor.class);
+        InstructionsOptimizer.optimize(instructions).getInstructions().appendMethodInstructions(mv);
+
+        InOrder inOrder = inOrder(mv);
+        inOrder.verify(mv).visitInsn(ICONST_4);
+        inOrder.verify(mv).visitVarInsn(ISTORE, 2);
+        inOrder.verify(mv).visitVarInsn(ILOAD, 2);
+        verifyNoMoreInteractions(mv);
+    }
+
+    @Test
+    void shouldKeepPoppedClassConstants() {
+        Instructions instructions = new Instructions();
+        MethodVisitor recorder = instructions.recorder();
+        recorder.visitLdcInsn(Type.getType("Lmissing/Type;")); // loading the class might fail
+        recorder.visitInsn(POP);
+
+        MethodVisitor mv = mock(MethodVisitor.class);
+        InstructionsOptimizer.optimize(instructions).getInstructions().appendMethodInstructions(mv);
+
+        InOrder inOrder = inOrder(mv);
+        inOrder.verify(mv).visitLdcInsn(Type.getType("Lmissing/Type;"));
+        inOrder.verify(mv).visitInsn(POP);
+        verifyNoMoreInteractions(mv);
+    }
+
+    @Test
+    void shouldRejectInstructionsWhichAreNotRecorded() {
+        Instructions instructions = new Instructions();
+        instructions.recorder().visitInsn(ICONST_1);
+
+        assertThrows(IllegalArgumentException.class, () -> InstructionsOptimizer.optimize(instructions.splicedAt(0)));
+        assertThrows(IllegalArgumentException.class, () -> InstructionsOptimizer.optimize(new Instructions() {
+        }));
+    }
+}
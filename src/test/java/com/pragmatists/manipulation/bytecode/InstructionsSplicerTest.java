@@ -0,0 +1,105 @@
+package com.pragmatists.manipulation.bytecode;
+
+import com.pragmatists.manipulation.bytecode.characteristics.MethodCharacteristic;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_STATIC;
+import static org.objectweb.asm.Opcodes.GOTO;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.ISTORE;
+import static org.objectweb.asm.Opcodes.LSTORE;
+
+class InstructionsSplicerTest {
+
+    @Test
+    void shouldUseFreshLabelsForEachSplice() {
+        Instructions instructions = new Instructions();
+        Label label = new Label();
+        MethodVisitor recorder = instructions.recorder();
+        recorder.visitLabel(label);
+        recorder.visitJumpInsn(GOTO, label);
+
+        MethodVisitor mv = mock(MethodVisitor.class);
+        instructions.splice(mv, 0);
+        instructions.splice(mv, 0);
+
+        ArgumentCaptor<Label> visited = ArgumentCaptor.forClass(Label.class);
+        ArgumentCaptor<Label> jumpedTo = ArgumentCaptor.forClass(Label.class);
+        verify(mv, times(2)).visitLabel(visited.capture());
+        verify(mv, times(2)).visitJumpInsn(anyInt(), jumpedTo.capture());
+        assertNotSame(label, visited.getAllValues().get(0));
+        assertNotSame(visited.getAllValues().get(0), visited.getAllValues().get(1));
+        assertSame(visited.getAllValues().get(0), jumpedTo.getAllValues().get(0));
+        assertSame(visited.getAllValues().get(1), jumpedTo.getAllValues().get(1));
+    }
+
+    @Test
+    void shouldKeepParametersAndMoveOtherLocalsAboveFirstFreeLocal() {
+        Instructions instructions = new Instructions();
+        instructions.setMethodCharacteristic(new MethodCharacteristic(ACC_PUBLIC, "method", "(I)V"));
+        MethodVisitor recorder = instructions.recorder();
+        recorder.visitVarInsn(ILOAD, 1);
+        recorder.visitVarInsn(ISTORE, 2);
+        recorder.visitVarInsn(LSTORE, 3);
+        recorder.visitIincInsn(2, 1);
+        recorder.visitMaxs(2, 5);
+
+        MethodVisitor mv = mock(MethodVisitor.class);
+        instructions.splice(mv, 7);
+
+        verify(mv).visitVarInsn(ILOAD, 1);
+        verify(mv).visitVarInsn(ISTORE, 7);
+        verify(mv).visitVarInsn(LSTORE, 8);
+        verify(mv).visitIincInsn(7, 1);
+        verify(mv, never()).visitMaxs(anyInt(), anyInt());
+        assertEquals(2, instructions.getParameterSlots());
+        assertEquals(5, instructions.getLocalsSize());
+    }
+
+    @Test
+    void shouldMoveParametersToParametersBase() {
+        Instructions instructions = new Instructions();
+        instructions.setMethodCharacteristic(new MethodCharacteristic(ACC_PUBLIC | ACC_STATIC, "method", "(JI)V"));
+        MethodVisitor recorder = instructions.recorder();
+        recorder.visitVarInsn(ILOAD, 2);
+        recorder.visitVarInsn(ISTORE, 3);
+
+        MethodVisitor mv = mock(MethodVisitor.class);
+        instructions.splice(mv, 4, 10);
+
+        verify(mv).visitVarInsn(ILOAD, 6);
+        verify(mv).visitVarInsn(ISTORE, 10);
+        verify(mv, never()).visitFrame(anyInt(), anyInt(), any(), anyInt(), any());
+    }
+
+    @Test
+    void splicedInstructionsShouldShareRecordedInstructions() {
+        Instructions instructions = new Instructions();
+        Instructions spliced = instructions.splicedAt(3);
+        instructions.recorder().visitVarInsn(ILOAD, 0);
+        spliced.recorder().visitVarInsn(ISTORE, 1);
+
+        MethodVisitor mv = mock(MethodVisitor.class);
+        spliced.appendMethodInstructions(mv);
+
+        InOrder inOrder = inOrder(mv);
+        inOrder.verify(mv).visitVarInsn(ILOAD, 3);
+        inOrder.verify(mv).visitVarInsn(ISTORE, 4);
+        assertEquals(2, instructions.getInstructionAdditions().size());
+    }
+}
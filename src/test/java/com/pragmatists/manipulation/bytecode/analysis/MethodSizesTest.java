@@ -0,0 +1,40 @@
+package com.pragmatists.manipulation.bytecode.analysis;
+
+import examples.classes.AnInterface;
+import org.junit.jupiter.api.Test;
+import test.types.Inlined;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static test.ClassFileUtils.getBytecode;
+
+class MethodSizesTest {
+
+    @Test
+    void shouldReadCodeSizesOfMethods() {
+        Map<String, Integer> sizes = MethodSizes.of(getBytecode(Inlined.class));
+
+        assertEquals(5, sizes.get("<init>()V")); // aload_0, invokespecial, return
+        assertEquals(4, sizes.get("square(I)I")); // iload_0, iload_0, imul, ireturn
+        assertEquals(List.of("<init>()V", "square(I)I", "weighted(JID)J", "clamp(I)I", "describe(I)Ljava/lang/String;"),
+                List.copyOf(sizes.keySet()));
+    }
+
+    @Test
+    void shouldLeaveOutAbstractMethods() {
+        assertEquals(Map.of(), MethodSizes.of(getBytecode(AnInterface.class)));
+    }
+
+    @Test
+    void shouldReportCrossedThresholds() {
+        InliningBudget budget = InliningBudget.HOTSPOT_DEFAULTS;
+
+        assertEquals(List.of(), budget.crossedThresholds(10, 35));
+        assertEquals(List.of(InliningThreshold.MAX_INLINE_SIZE), budget.crossedThresholds(35, 36));
+        assertEquals(List.of(InliningThreshold.MAX_INLINE_SIZE, InliningThreshold.FREQ_INLINE_SIZE), budget.crossedThresholds(30, 400));
+        assertEquals(List.of(InliningThreshold.HUGE_METHOD_LIMIT), budget.crossedThresholds(7000, 9000));
+        assertEquals(List.of(), budget.crossedThresholds(400, 30));
+    }
+}
@@ -0,0 +1,117 @@
+package com.pragmatists.manipulation.bytecode.extraction;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.util.Textifier;
+import org.objectweb.asm.util.TraceMethodVisitor;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static test.ClassFileUtils.getBytecodeFromResources;
+
+class BulkInstructionsExtractorTest {
+    private static final String TARGET_CLASS_NAME = "test.types.Target";
+    private static final String SOURCE_CLASS_NAME = "test.types.Source";
+    private static final String MODIFIED_CLASS_NAME = "test.types.Modified";
+    private static final Map<String, byte[]> BYTECODE = Map.of(
+            TARGET_CLASS_NAME, getBytecodeFromResources("Target.class"),
+            SOURCE_CLASS_NAME, getBytecodeFromResources("Source.class"),
+            MODIFIED_CLASS_NAME, getBytecodeFromResources("Modified.class"));
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void shouldExtractSelectedMethodsOfManyClasses() {
+        MethodSelector getClassId = MethodSelector.of(TARGET_CLASS_NAME, "getClassId", "()Ljava/lang/String;");
+        MethodSelector getClassId2 = MethodSelector.of(TARGET_CLASS_NAME, "getClassId2");
+        MethodSelector bar = MethodSelector.of(SOURCE_CLASS_NAME, "bar");
+        MethodSelector foo = MethodSelector.of(MODIFIED_CLASS_NAME, "foo", "(Ljava/lang/Boolean;)V");
+
+        Map<MethodSelector, Instructions> result =
+                new BulkInstructionsExtractor(pool).extract(BYTECODE, List.of(getClassId, getClassId2, bar, foo));
+
+        assertEquals(4, result.size());
+        assertEquals(text(extractSingle(TARGET_CLASS_NAME, "getClassId", "()Ljava/lang/String;")), text(result.get(getClassId)));
+        assertEquals(text(extractSingle(TARGET_CLASS_NAME, "getClassId2", null)), text(result.get(getClassId2)));
+        assertEquals(text(extractSingle(SOURCE_CLASS_NAME, "bar", null)), text(result.get(bar)));
+        assertEquals(text(extractSingle(MODIFIED_CLASS_NAME, "foo", "(Ljava/lang/Boolean;)V")), text(result.get(foo)));
+        assertEquals("getClassId2", result.get(getClassId2).getMethodCharacteristic().getName());
+    }
+
+    @Test
+    void shouldNotMapSelectorsOfMissingMethodsOrClasses() {
+        MethodSelector missingMethod = MethodSelector.of(TARGET_CLASS_NAME, "missing");
+        MethodSelector wrongDescriptor = MethodSelector.of(TARGET_CLASS_NAME, "getClassId", "()V");
+        MethodSelector missingClass = MethodSelector.of("test.types.Missing", "getClassId");
+        MethodSelector bar = MethodSelector.of(SOURCE_CLASS_NAME, "bar");
+
+        Map<MethodSelector, Instructions> result =
+                new BulkInstructionsExtractor(pool).extract(BYTECODE, List.of(missingMethod, wrongDescriptor, missingClass, bar));
+
+        assertEquals(1, result.size());
+        assertTrue(result.containsKey(bar));
+        assertFalse(result.containsKey(missingClass));
+    }
+
+    @Test
+    void shouldBeSafeToShareBetweenThreads() throws Exception {
+        BulkInstructionsExtractor extractor = new BulkInstructionsExtractor(pool);
+        List<MethodSelector> selectors = List.of(
+                MethodSelector.of(TARGET_CLASS_NAME, "getClassId"),
+                MethodSelector.of(SOURCE_CLASS_NAME, "bar"));
+        String expected = text(extractor.extract(BYTECODE, selectors).get(selectors.get(0)));
+
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int j = 0; j < 50; j++) {
+                        Map<MethodSelector, Instructions> result = extractor.extract(BYTECODE, selectors);
+                        assertEquals(2, result.size());
+                        assertEquals(expected, text(result.get(selectors.get(0))));
+                    }
+                } catch (Throwable t) {
+                    synchronized (failures) {
+                        failures.add(t);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.isEmpty(), failures::toString);
+    }
+
+    private static Instructions extractSingle(String className, String methodName, String descriptor) {
+        return new InstructionsExtractor(methodName, descriptor)
+                .extract(BYTECODE.get(className))
+                .orElseThrow();
+    }
+
+    private static String text(Instructions instructions) {
+        Textifier textifier = new Textifier();
+        instructions.appendMethodInstructions(new TraceMethodVisitor(textifier));
+        StringWriter writer = new StringWriter();
+        textifier.print(new PrintWriter(writer));
+        return writer.toString();
+    }
+}
@@ -0,0 +1,80 @@
+package com.pragmatists.manipulation.bytecode.extraction;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.bytecode.characteristics.ClassCharacteristic;
+import com.pragmatists.manipulation.bytecode.generation.ClassBytecodeGenerator;
+import com.pragmatists.manipulation.bytecode.generation.MethodGenerator;
+import com.pragmatists.manipulation.loaders.ClassSubstitutor;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import test.control.IfTest;
+import test.control.MultipleReturnsTest;
+import test.control.TryCatchTest;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.V11;
+import static test.ClassFileUtils.getBytecode;
+
+class WholeMethodExtractingMethodVisitorIT {
+    private static final String GENERATED_CLASS_NAME = "GeneratedClass";
+
+    @Test
+    void shouldExtractMethodWithMultipleReturns() throws ReflectiveOperationException {
+        Method classify = generateMethod(MultipleReturnsTest.class, "classify", int.class);
+        Object instance = classify.getDeclaringClass().getConstructor().newInstance();
+
+        assertEquals("negative", classify.invoke(instance, -1));
+        assertEquals("composite", classify.invoke(instance, 9));
+        assertEquals("prime", classify.invoke(instance, 7));
+        assertEquals("unlucky", classify.invoke(instance, 13));
+    }
+
+    @Test
+    void shouldExtractSimpleIf() throws ReflectiveOperationException {
+        Method choose = generateMethod(IfTest.class, "choose", boolean.class);
+        Object instance = choose.getDeclaringClass().getConstructor().newInstance();
+
+        assertEquals("left", choose.invoke(instance, false));
+        assertEquals("right", choose.invoke(instance, true));
+    }
+
+    @Test
+    void shouldExtractTryCatch() throws ReflectiveOperationException {
+        Method tryCatch = generateMethod(TryCatchTest.class, "tryCatch", boolean.class);
+        Object instance = tryCatch.getDeclaringClass().getConstructor().newInstance();
+
+        assertEquals(new RuntimeException().toString(), tryCatch.invoke(instance, true));
+        assertEquals("not thrown", tryCatch.invoke(instance, false));
+    }
+
+    private Method generateMethod(Class<?> testClass, String methodName, Class<?>... parameterTypes) throws ReflectiveOperationException {
+        Instructions instructions = new InstructionsExtractor(methodName, null, ExtractingMethodVisitorProvider.wholeMethod())
+                .extract(getBytecode(testClass))
+                .orElseThrow();
+
+        byte[] bytecode = ClassBytecodeGenerator.builder()
+                .characteristic(getClassCharacteristic())
+                .methodGenerators(Arrays.asList(
+                        MethodGenerator.DEFAULT_CONSTRUCTOR_OF_OBJECT_SUBCLASS,
+                        MethodGenerator.from(instructions)))
+                .build()
+                .generate(new ClassWriter(ClassWriter.COMPUTE_FRAMES));
+        Class<?> generatedClass = new ClassSubstitutor(Map.of(GENERATED_CLASS_NAME, bytecode)).loadClass(GENERATED_CLASS_NAME);
+        return generatedClass.getDeclaredMethod(methodName, parameterTypes);
+    }
+
+    private ClassCharacteristic getClassCharacteristic() {
+        return ClassCharacteristic.builder()
+                .javaVersion(V11)
+                .accessFlag(ACC_PUBLIC)
+                .name(GENERATED_CLASS_NAME)
+                .superName(Object.class.getName())
+                .interfaces(new String[0])
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.pragmatists.manipulation.bytecode.generation;
+
+import com.pragmatists.manipulation.bytecode.characteristics.ClassCharacteristic;
+import com.pragmatists.manipulation.bytecode.characteristics.MethodCharacteristic;
+import org.junit.jupiter.api.Test;
+import test.PrintCaptor;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+
+import static com.pragmatists.manipulation.bytecode.generation.MethodGenerator.DEFAULT_CONSTRUCTOR_OF_OBJECT_SUBCLASS;
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.V11;
+
+class ClassBytecodeGeneratorTest {
+    private static final String CLASS_NAME = "pkg.GeneratedClass";
+    private static final String METHOD_NAME = "foo";
+    private static final String INVALID_METHOD_NAME = "foo;bar";
+
+    @Test
+    void shouldNotPrintAnythingByDefault() {
+        PrintStream originalOut = System.out;
+        PrintCaptor printCaptor = new PrintCaptor();
+        System.setOut(printCaptor);
+        try {
+            byte[] bytecode = generator(METHOD_NAME, null).generate();
+
+            assertTrue(bytecode.length > 0);
+            assertTrue(printCaptor.getResults().isEmpty());
+        } finally {
+            System.setOut(originalOut);
+        }
+    }
+
+    @Test
+    void shouldNotCheckByDefault() {
+        assertDoesNotThrow(() -> generator(INVALID_METHOD_NAME, GenerationDiagnostics.none()).generate());
+    }
+
+    @Test
+    void shouldCheckGeneratedClass() {
+        ClassBytecodeGenerator generator = generator(INVALID_METHOD_NAME, GenerationDiagnostics.checkOnly());
+
+        assertThrows(IllegalArgumentException.class, generator::generate);
+    }
+
+    @Test
+    void shouldTraceGeneratedClassToSink() {
+        StringWriter sink = new StringWriter();
+
+        generator(METHOD_NAME, GenerationDiagnostics.trace(new PrintWriter(sink))).generate();
+
+        String trace = sink.toString();
+        assertTrue(trace.contains("public class pkg/GeneratedClass"));
+        assertTrue(trace.contains("public foo()Ljava/lang/String;"));
+    }
+
+    private ClassBytecodeGenerator generator(String methodName, GenerationDiagnostics diagnostics) {
+        ClassCharacteristic classCharacteristic = ClassCharacteristic.builder()
+                .javaVersion(V11)
+                .accessFlag(ACC_PUBLIC)
+                .name(CLASS_NAME)
+                .superName(Object.class.getName())
+                .interfaces(new String[0])
+                .build();
+
+        MethodGenerator method = MethodGenerator.builder()
+                .methodCharacteristic(new MethodCharacteristic(ACC_PUBLIC, methodName, emptyList(), String.class))
+                .methodBodyWriter(mv -> mv.visitLdcInsn("bar"))
+                .build();
+
+        return ClassBytecodeGenerator.builder()
+                .characteristic(classCharacteristic)
+                .methodGenerators(List.of(DEFAULT_CONSTRUCTOR_OF_OBJECT_SUBCLASS, method))
+                .diagnostics(diagnostics)
+                .build();
+    }
+}
@@ -0,0 +1,106 @@
+package com.pragmatists.manipulation.bytecode.hierarchy;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.objectweb.asm.Opcodes.*;
+
+class ClassHierarchyTest {
+    private static final String OBJECT = "java/lang/Object";
+    private static final String BASE = "pkg/Base";
+    private static final String A = "pkg/A";
+    private static final String B = "pkg/B";
+    private static final String C = "pkg/C";
+    private static final String AN_INTERFACE = "pkg/AnInterface";
+
+    // None of these classes can be loaded by any class loader.
+    private static final Map<String, byte[]> CLASS_FILES = Map.of(
+            BASE, classHeader(BASE, OBJECT, ACC_PUBLIC),
+            A, classHeader(A, BASE, ACC_PUBLIC),
+            B, classHeader(B, BASE, ACC_PUBLIC),
+            C, classHeader(C, A, ACC_PUBLIC),
+            AN_INTERFACE, classHeader(AN_INTERFACE, OBJECT, ACC_PUBLIC | ACC_INTERFACE | ACC_ABSTRACT)
+    );
+
+    private final ClassHierarchy classHierarchy = new ClassHierarchy(CLASS_FILES::get);
+
+    @Test
+    void shouldFindCommonSuperClassOfSiblings() {
+        assertEquals(BASE, classHierarchy.getCommonSuperClass(A, B));
+    }
+
+    @Test
+    void shouldFindCommonSuperClassWhenOneTypeExtendsTheOther() {
+        assertEquals(A, classHierarchy.getCommonSuperClass(A, C));
+        assertEquals(A, classHierarchy.getCommonSuperClass(C, A));
+        assertEquals(BASE, classHierarchy.getCommonSuperClass(C, B));
+    }
+
+    @Test
+    void shouldTreatInterfacesAsObject() {
+        assertEquals(OBJECT, classHierarchy.getCommonSuperClass(A, AN_INTERFACE));
+    }
+
+    @Test
+    void shouldFindCommonSuperClassOfJdkClasses() {
+        ClassHierarchy jdkHierarchy = ClassHierarchy.ofClassLoader(getClass().getClassLoader());
+
+        assertEquals("java/util/AbstractList", jdkHierarchy.getCommonSuperClass("java/util/ArrayList", "java/util/Vector"));
+    }
+
+    @Test
+    void shouldThrowWhenClassFileCannotBeFound() {
+        assertThrows(TypeNotPresentException.class, () -> classHierarchy.getCommonSuperClass(A, "pkg/Missing"));
+    }
+
+    @Test
+    void shouldReportCacheHitsAndMisses() {
+        classHierarchy.getCommonSuperClass(A, B);
+        classHierarchy.getCommonSuperClass(A, B);
+        classHierarchy.getCommonSuperClass(A, C);
+
+        assertEquals(1, classHierarchy.getStatistics().getHits());
+        assertEquals(2, classHierarchy.getStatistics().getMisses());
+    }
+
+    @Test
+    void classWriterShouldComputeFramesUsingDeclaredTypesAndHierarchy() {
+        HierarchyAwareClassWriter classWriter = new HierarchyAwareClassWriter(ClassWriter.COMPUTE_FRAMES, classHierarchy);
+        classWriter.declareType("pkg/D", B, false);
+        classWriter.visit(V11, ACC_PUBLIC, "pkg/Generated", null, OBJECT, null);
+        MethodVisitor mv = classWriter.visitMethod(ACC_PUBLIC | ACC_STATIC, "choose", "(ZLpkg/C;Lpkg/D;)Ljava/lang/Object;", null, null);
+        mv.visitCode();
+        Label otherwise = new Label();
+        Label end = new Label();
+        mv.visitVarInsn(ILOAD, 0);
+        mv.visitJumpInsn(IFEQ, otherwise);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitJumpInsn(GOTO, end);
+        mv.visitLabel(otherwise);
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitLabel(end);
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        classWriter.visitEnd();
+
+        classWriter.toByteArray();
+
+        // pkg/D is declared only for this writer, so the resolution isn't cached.
+        assertEquals(0, classHierarchy.getStatistics().getRequests());
+        assertEquals(BASE, classHierarchy.getCommonSuperClass(A, B));
+    }
+
+    private static byte[] classHeader(String name, String superName, int access) {
+        ClassWriter classWriter = new ClassWriter(0);
+        classWriter.visit(V11, access, name, null, superName, null);
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+}
@@ -8,9 +8,12 @@ import org.mockito.MockitoAnnotations;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodVisitor;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class InstructionsModifierTest {
@@ -36,6 +39,15 @@ class InstructionsModifierTest {
     @Mock
     private ModifyingMethodVisitorProvider modifyingMethodVisitorProvider;
 
+    @Mock
+    private Instructions otherInstructions;
+
+    @Mock
+    private ModifyingMethodVisitor otherInjectingMethodVisitor;
+
+    @Mock
+    private ModifyingMethodVisitorProvider otherModifyingMethodVisitorProvider;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
@@ -47,6 +59,10 @@ class InstructionsModifierTest {
 
         when(modifyingMethodVisitorProvider.apply(methodVisitorFromClassVisitor, instructions))
                 .thenReturn(injectingMethodVisitor);
+        when(otherModifyingMethodVisitorProvider.apply(methodVisitorFromClassVisitor, otherInstructions))
+                .thenReturn(otherInjectingMethodVisitor);
+        when(otherModifyingMethodVisitorProvider.apply(injectingMethodVisitor, otherInstructions))
+                .thenReturn(otherInjectingMethodVisitor);
     }
 
     @Test
@@ -81,4 +97,44 @@ class InstructionsModifierTest {
 
         assertEquals(methodVisitorFromClassVisitor, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldUseInjectingMethodVisitorsOfModificationsMatchingDifferentMethods() {
+        InstructionsModifier instructionsModifier = new InstructionsModifier(List.of(
+                new MethodModification(METHOD_NAME, DESCRIPTOR, instructions, modifyingMethodVisitorProvider),
+                new MethodModification(SOME_OTHER_METHOD_NAME, DESCRIPTOR, otherInstructions, otherModifyingMethodVisitorProvider)
+        ), classVisitor);
+
+        MethodVisitor result = instructionsModifier.visitMethod(ACCESS_FLAG, METHOD_NAME, DESCRIPTOR, null, EXCEPTIONS);
+        MethodVisitor otherResult = instructionsModifier.visitMethod(ACCESS_FLAG, SOME_OTHER_METHOD_NAME, DESCRIPTOR, null, EXCEPTIONS);
+
+        assertEquals(injectingMethodVisitor, result);
+        assertEquals(otherInjectingMethodVisitor, otherResult);
+    }
+
+    @Test
+    void shouldChainInjectingMethodVisitorsOfModificationsMatchingTheSameMethodInOrder() {
+        InstructionsModifier instructionsModifier = new InstructionsModifier(List.of(
+                new MethodModification(METHOD_NAME, DESCRIPTOR, instructions, modifyingMethodVisitorProvider),
+                new MethodModification(METHOD_NAME, otherInstructions, otherModifyingMethodVisitorProvider)
+        ), classVisitor);
+
+        MethodVisitor result = instructionsModifier.visitMethod(ACCESS_FLAG, METHOD_NAME, DESCRIPTOR, null, EXCEPTIONS);
+
+        verify(otherModifyingMethodVisitorProvider).apply(injectingMethodVisitor, otherInstructions);
+        assertEquals(otherInjectingMethodVisitor, result);
+    }
+
+    @Test
+    void shouldSkipModificationsWithDifferentDescriptorWhenChaining() {
+        InstructionsModifier instructionsModifier = new InstructionsModifier(List.of(
+                new MethodModification(METHOD_NAME, SOME_OTHER_DESCRIPTOR, instructions, modifyingMethodVisitorProvider),
+                new MethodModification(METHOD_NAME, otherInstructions, otherModifyingMethodVisitorProvider)
+        ), classVisitor);
+
+        MethodVisitor result = instructionsModifier.visitMethod(ACCESS_FLAG, METHOD_NAME, DESCRIPTOR, null, EXCEPTIONS);
+
+        verify(otherModifyingMethodVisitorProvider).apply(methodVisitorFromClassVisitor, otherInstructions);
+        assertEquals(otherInjectingMethodVisitor, result);
+    }
+}
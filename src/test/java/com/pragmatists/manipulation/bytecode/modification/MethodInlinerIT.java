@@ -0,0 +1,121 @@
+package com.pragmatists.manipulation.bytecode.modification;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.bytecode.extraction.ExtractingMethodVisitorProvider;
+import com.pragmatists.manipulation.bytecode.extraction.InstructionsExtractor;
+import com.pragmatists.manipulation.loaders.ClassSubstitutor;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import test.types.Inlined;
+import test.types.InliningCaller;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static test.ClassFileUtils.getBytecode;
+
+class MethodInlinerIT {
+    private static final String INLINED = Inlined.class.getName();
+    private static final String CALLER = InliningCaller.class.getName();
+
+    @Test
+    void invocationsShouldBeReplacedWithInlinedBodies() throws ReflectiveOperationException {
+        MethodInliner inliner = new MethodInliner();
+        assertTrue(inliner.inline(INLINED, "square", "(I)I", extract("square", "(I)I")));
+        assertTrue(inliner.inline(INLINED, "clamp", "(I)I", extract("clamp", "(I)I")));
+        assertTrue(inliner.inline(INLINED, "weighted", "(JID)J", extract("weighted", "(JID)J")));
+
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(getBytecode(InliningCaller.class),
+                List.of(inliner.inlineCallsIn("compute", "(I)J")), WritingStrategy.COPY_UNMODIFIED_METHODS);
+        Class<?> caller = new ClassSubstitutor(Map.of(CALLER, bytecode)).loadClass(CALLER);
+        Method compute = caller.getMethod("compute", int.class);
+        Object instance = caller.getConstructor(Inlined.class).newInstance(new Inlined());
+
+        assertEquals(List.of(), invocations(bytecode, "compute"));
+        InliningCaller original = new InliningCaller(new Inlined());
+        for (int x : new int[]{-5, 0, 7, 150}) {
+            assertEquals(original.compute(x), compute.invoke(instance, x));
+        }
+    }
+
+    @Test
+    void inlinedInstanceMethodShouldThrowOnNullReceiver() throws ReflectiveOperationException {
+        MethodInliner inliner = new MethodInliner();
+        inliner.inline(INLINED, "clamp", "(I)I", extract("clamp", "(I)I"));
+
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(getBytecode(InliningCaller.class),
+                List.of(inliner.inlineCallsIn("compute", "(I)J")), WritingStrategy.COPY_UNMODIFIED_METHODS);
+        Class<?> caller = new ClassSubstitutor(Map.of(CALLER, bytecode)).loadClass(CALLER);
+        Object instance = caller.getConstructor(Inlined.class).newInstance((Inlined) null);
+
+        InvocationTargetException thrown = assertThrows(InvocationTargetException.class,
+                () -> caller.getMethod("compute", int.class).invoke(instance, 1));
+        assertEquals(NullPointerException.class, thrown.getCause().getClass());
+    }
+
+    @Test
+    void methodsAboveTheMaximumCodeSizeShouldNotBeInlined() throws ReflectiveOperationException {
+        MethodInliner inliner = new MethodInliner();
+        assertFalse(inliner.inline(INLINED, "describe", "(I)Ljava/lang/String;", extract("describe", "(I)Ljava/lang/String;")));
+
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(getBytecode(InliningCaller.class),
+                List.of(inliner.inlineCallsIn("describe", "(I)Ljava/lang/String;")), WritingStrategy.COPY_UNMODIFIED_METHODS);
+
+        assertEquals(List.of("describe"), invocations(bytecode, "describe"));
+    }
+
+    @Test
+    void maximumCodeSizeShouldBeConfigurable() throws ReflectiveOperationException {
+        MethodInliner inliner = new MethodInliner(100);
+        assertTrue(inliner.inline(INLINED, "describe", "(I)Ljava/lang/String;", extract("describe", "(I)Ljava/lang/String;")));
+
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(getBytecode(InliningCaller.class),
+                List.of(inliner.inlineCallsIn("describe", "(I)Ljava/lang/String;")), WritingStrategy.COPY_UNMODIFIED_METHODS);
+        Class<?> caller = new ClassSubstitutor(Map.of(CALLER, bytecode)).loadClass(CALLER);
+        Object instance = caller.getConstructor(Inlined.class).newInstance(new Inlined());
+
+        assertEquals(List.of("<init>", "append", "append", "append", "toString"), invocations(bytecode, "describe"));
+        assertEquals("0, 1, 2", caller.getMethod("describe", int.class).invoke(instance, 2));
+    }
+
+    @Test
+    void bodyShouldBeExtractedFromTheInlinedMethod() {
+        MethodInliner inliner = new MethodInliner();
+
+        assertThrows(IllegalArgumentException.class, () -> inliner.inline(INLINED, "square", "(J)J", extract("square", "(I)I")));
+    }
+
+    private Instructions extract(String methodName, String descriptor) {
+        return new InstructionsExtractor(methodName, descriptor, ExtractingMethodVisitorProvider.wholeMethod())
+                .extract(getBytecode(Inlined.class))
+                .orElseThrow();
+    }
+
+    private List<String> invocations(byte[] bytecode, String methodName) {
+        ClassNode classNode = new ClassNode();
+        new ClassReader(bytecode).accept(classNode, 0);
+        List<String> invoked = new ArrayList<>();
+        for (MethodNode method : classNode.methods) {
+            if (!method.name.equals(methodName)) {
+                continue;
+            }
+            for (AbstractInsnNode instruction = method.instructions.getFirst(); instruction != null; instruction = instruction.getNext()) {
+                if (instruction instanceof MethodInsnNode && !((MethodInsnNode) instruction).owner.equals("java/util/Objects")) {
+                    invoked.add(((MethodInsnNode) instruction).name);
+                }
+            }
+        }
+        return invoked;
+    }
+}
@@ -1,14 +1,23 @@
 package com.pragmatists.manipulation.bytecode.modification;
 
 import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.bytecode.analysis.InliningBudget;
+import com.pragmatists.manipulation.bytecode.analysis.InliningThreshold;
+import com.pragmatists.manipulation.bytecode.analysis.MethodSizeChange;
+import com.pragmatists.manipulation.bytecode.extraction.ExtractingMethodVisitorProvider;
 import com.pragmatists.manipulation.bytecode.extraction.InstructionsExtractor;
 import com.pragmatists.manipulation.loaders.ClassSubstitutor;
 import org.junit.jupiter.api.Test;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.util.TraceClassVisitor;
 import test.PrintCaptor;
+import test.types.Exiting;
+import test.types.Inlined;
+import test.types.Looping;
 import test.types.Modified;
 
 import java.io.PrintWriter;
@@ -20,7 +29,10 @@ import java.util.List;
 import java.util.Map;
 
 import static com.pragmatists.manipulation.type.Types.methodDescriptor;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static test.ClassFileUtils.getBytecode;
 import static test.ClassFileUtils.getBytecodeFromResources;
 
 class ModifyingMethodVisitorsIT {
@@ -80,6 +92,132 @@ class ModifyingMethodVisitorsIT {
         assertEquals("foo here", results.get(1));
     }
 
+    @Test
+    void bytecodeOfSeveralMethodsShouldBeModifiedInOnePass() throws IllegalAccessException, InvocationTargetException, InstantiationException, NoSuchMethodException, ClassNotFoundException {
+        Instructions instructionsFromBarMethod = extractInstructionsFromSourceMethod();
+
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(TARGET_CLASS_BYTECODE, List.of(
+                new MethodModification(MODIFIED_METHOD_WITH_SINGLE_RETURN, methodDescriptor(null), instructionsFromBarMethod, PrependingMethodVisitor::new),
+                new MethodModification(MODIFIED_METHOD_WITH_MULTIPLE_RETURNS, methodDescriptor(null, Boolean.class), instructionsFromBarMethod, AppendingMethodVisitor::new),
+                new MethodModification(MODIFIED_METHOD_WITH_MULTIPLE_RETURNS, methodDescriptor(null, Boolean.class), instructionsFromBarMethod, PrependingMethodVisitor::new)
+        ));
+        Class<?> modifiedClass = loadModifiedClass(bytecode);
+
+        List<String> results1 = captureSoutPrintlnResults(modifiedClass, MODIFIED_METHOD_WITH_SINGLE_RETURN);
+        assertEquals(List.of("this is coming from source", "foo here"), results1);
+
+        List<String> results2 = captureSoutPrintlnResults(modifiedClass, MODIFIED_METHOD_WITH_MULTIPLE_RETURNS, true);
+        assertEquals(List.of("this is coming from source", "foo: true", "this is coming from source"), results2);
+    }
+
+    @Test
+    void bytecodeShouldBeCorrectlyModifiedWhenCopyingUnmodifiedMethods() throws IllegalAccessException, InvocationTargetException, InstantiationException, NoSuchMethodException, ClassNotFoundException {
+        Instructions instructionsFromBarMethod = extractInstructionsFromSourceMethod();
+
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(TARGET_CLASS_BYTECODE, List.of(
+                new MethodModification(MODIFIED_METHOD_WITH_SINGLE_RETURN, methodDescriptor(null), instructionsFromBarMethod, AppendingMethodVisitor::new)
+        ), WritingStrategy.COPY_UNMODIFIED_METHODS);
+        Class<?> modifiedClass = loadModifiedClass(bytecode);
+
+        List<String> results1 = captureSoutPrintlnResults(modifiedClass, MODIFIED_METHOD_WITH_SINGLE_RETURN);
+        assertEquals(List.of("foo here", "this is coming from source"), results1);
+
+        List<String> results2 = captureSoutPrintlnResults(modifiedClass, MODIFIED_METHOD_WITH_MULTIPLE_RETURNS, false);
+        assertEquals(List.of("foo: false"), results2);
+    }
+
+    @Test
+    void unmodifiedMethodsShouldBeCopiedAsTheyAre() {
+        Instructions instructionsFromBarMethod = extractInstructionsFromSourceMethod();
+
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(TARGET_CLASS_BYTECODE, List.of(
+                new MethodModification("methodNotPresentInModified", instructionsFromBarMethod, AppendingMethodVisitor::new)
+        ), WritingStrategy.COPY_UNMODIFIED_METHODS);
+
+        assertArrayEquals(TARGET_CLASS_BYTECODE, bytecode);
+    }
+
+    @Test
+    void bytecodeShouldBeAppendedOnEveryExit() throws ReflectiveOperationException {
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(getBytecode(Exiting.class),
+                List.of(new MethodModification("exit", "(I)Ljava/lang/String;", exitPrintingInstructions(), AppendingMethodVisitor.onEveryExit())));
+        Class<?> modifiedClass = new ClassSubstitutor(Map.of(Exiting.class.getName(), bytecode)).loadClass(Exiting.class.getName());
+        Object exiting = getConstructor(modifiedClass).newInstance();
+        Method exitMethod = modifiedClass.getMethod("exit", int.class);
+
+        PrintCaptor resultCaptor = new PrintCaptor();
+        System.setOut(resultCaptor);
+        assertEquals("returned", exitMethod.invoke(exiting, 0));
+        InvocationTargetException thrown = assertThrows(InvocationTargetException.class, () -> exitMethod.invoke(exiting, 1));
+        assertEquals("caught", exitMethod.invoke(exiting, 2));
+
+        assertEquals(IllegalStateException.class, thrown.getCause().getClass());
+        assertEquals(List.of("exit", "exit", "exit"), resultCaptor.getResults());
+    }
+
+    @Test
+    void bytecodeShouldNotBeAppendedOnExitsByThrowingByDefault() throws ReflectiveOperationException {
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(getBytecode(Exiting.class),
+                List.of(new MethodModification("exit", "(I)Ljava/lang/String;", exitPrintingInstructions(), AppendingMethodVisitor::new)));
+        Class<?> modifiedClass = new ClassSubstitutor(Map.of(Exiting.class.getName(), bytecode)).loadClass(Exiting.class.getName());
+        Object exiting = getConstructor(modifiedClass).newInstance();
+        Method exitMethod = modifiedClass.getMethod("exit", int.class);
+
+        PrintCaptor resultCaptor = new PrintCaptor();
+        System.setOut(resultCaptor);
+        assertThrows(InvocationTargetException.class, () -> exitMethod.invoke(exiting, 1));
+
+        assertEquals(List.of(), resultCaptor.getResults());
+    }
+
+    @Test
+    void extractedMethodShouldBeSplicedOnEveryExit() throws ReflectiveOperationException {
+        Instructions loop = new InstructionsExtractor("loop", "()V", ExtractingMethodVisitorProvider.wholeMethod())
+                .extract(getBytecode(Looping.class))
+                .orElseThrow();
+
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(getBytecode(Exiting.class), List.of(new MethodModification(
+                "exit", "(I)Ljava/lang/String;", loop, SplicingMethodVisitor.splicing(AppendingMethodVisitor.onEveryExit()))));
+        Class<?> modifiedClass = new ClassSubstitutor(Map.of(Exiting.class.getName(), bytecode)).loadClass(Exiting.class.getName());
+        Object exiting = getConstructor(modifiedClass).newInstance();
+        Method exitMethod = modifiedClass.getMethod("exit", int.class);
+
+        PrintCaptor resultCaptor = new PrintCaptor();
+        System.setOut(resultCaptor);
+        assertEquals("returned", exitMethod.invoke(exiting, 0));
+        assertThrows(InvocationTargetException.class, () -> exitMethod.invoke(exiting, 1));
+        assertEquals("caught", exitMethod.invoke(exiting, 2));
+
+        assertEquals(List.of("loop 0", "loop 1", "loop 0", "loop 1", "loop 0", "loop 1"), resultCaptor.getResults());
+    }
+
+    @Test
+    void methodSizeChangesShouldBeReported() {
+        InliningBudget budget = new InliningBudget(10, 20, 8000, false);
+
+        ModificationResult result = InstructionsModifier.modifyMethodsInClassfile(getBytecode(Inlined.class),
+                List.of(new MethodModification("square", "(I)I", exitPrintingInstructions(), PrependingMethodVisitor::new)),
+                WritingStrategy.COPY_UNMODIFIED_METHODS, budget);
+
+        assertEquals(List.of(new MethodSizeChange("square", "(I)I", 4, 12, List.of(InliningThreshold.MAX_INLINE_SIZE))),
+                result.getMethodSizeChanges());
+        assertEquals(result.getMethodSizeChanges(), result.getThresholdCrossings());
+    }
+
+    @Test
+    void modificationShouldFailWhenCrossingThresholdsOfFailingBudget() {
+        InliningBudget budget = new InliningBudget(10, 30, 8000, false).failingOnCrossing();
+        byte[] originalBytecode = getBytecode(Inlined.class);
+
+        assertThrows(InliningBudgetExceededException.class, () -> InstructionsModifier.modifyMethodsInClassfile(originalBytecode,
+                List.of(new MethodModification("square", "(I)I", exitPrintingInstructions(), PrependingMethodVisitor::new)),
+                WritingStrategy.COPY_UNMODIFIED_METHODS, budget));
+        ModificationResult withinBudget = InstructionsModifier.modifyMethodsInClassfile(originalBytecode,
+                List.of(new MethodModification("clamp", "(I)I", exitPrintingInstructions(), PrependingMethodVisitor::new)),
+                WritingStrategy.COPY_UNMODIFIED_METHODS, budget);
+        assertEquals(List.of(), withinBudget.getThresholdCrossings());
+    }
+
     private List<String> captureSoutPrintlnResults(Class<?> modifiedClass, String modifiedMethodName, Object... params) throws InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
         Constructor constructor = getConstructor(modifiedClass);
         Object o = constructor.newInstance();
@@ -120,6 +258,15 @@ class ModifyingMethodVisitorsIT {
         return classWriter.toByteArray();
     }
 
+    private Instructions exitPrintingInstructions() {
+        Instructions instructions = new Instructions();
+        MethodVisitor recorder = instructions.recorder();
+        recorder.visitFieldInsn(Opcodes.GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
+        recorder.visitLdcInsn("exit");
+        recorder.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/PrintStream", "println", "(Ljava/lang/String;)V", false);
+        return instructions;
+    }
+
     private Instructions extractInstructionsFromSourceMethod() {
         InstructionsExtractor instructionsExtractor = new InstructionsExtractor(SOURCE_METHOD);
         return instructionsExtractor.extract(SOURCE_CLASS_BYTECODE).get();
@@ -0,0 +1,66 @@
+package com.pragmatists.manipulation.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest {
+    @Test
+    void shouldComputeValueOnlyOnce() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2);
+        AtomicInteger computations = new AtomicInteger();
+
+        Integer first = cache.get("a", key -> computations.incrementAndGet());
+        Integer second = cache.get("a", key -> computations.incrementAndGet());
+
+        assertEquals(1, first);
+        assertEquals(1, second);
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntry() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.getIfPresent("a");
+
+        cache.put("c", "C");
+
+        assertEquals(Optional.of("A"), cache.getIfPresent("a"));
+        assertEquals(Optional.empty(), cache.getIfPresent("b"));
+        assertEquals(Optional.of("C"), cache.getIfPresent("c"));
+    }
+
+    @Test
+    void shouldNotCacheNullValues() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2);
+
+        assertNull(cache.get("a", key -> null));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldCountHitsMissesAndEvictions() {
+        BoundedCache<String, String> cache = new BoundedCache<>(1);
+        cache.get("a", key -> "A");
+        cache.get("a", key -> "A");
+        cache.get("b", key -> "B");
+
+        CacheStatistics statistics = cache.statistics();
+
+        assertEquals(1, statistics.getHits());
+        assertEquals(2, statistics.getMisses());
+        assertEquals(1, statistics.getEvictions());
+        assertEquals(1, statistics.getSize());
+    }
+
+    @Test
+    void shouldRejectNonPositiveMaximumSize() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedCache<>(0));
+    }
+}
@@ -0,0 +1,214 @@
+package com.pragmatists.manipulation.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.ClassFileUtils.getBytecodeFromResources;
+
+class PersistentBytecodeStoreTest {
+    private static final long MAXIMUM_SIZE = 1024 * 1024;
+    private static final byte[] BYTECODE = {1, 2, 3, 4, 5};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldKeepBytecodeBetweenOpenings() throws IOException {
+        Path file = directory.resolve("store");
+        try (PersistentBytecodeStore store = PersistentBytecodeStore.open(file, MAXIMUM_SIZE)) {
+            store.put("hash", "recipe", BYTECODE);
+        }
+
+        try (PersistentBytecodeStore store = PersistentBytecodeStore.open(file, MAXIMUM_SIZE)) {
+            assertArrayEquals(BYTECODE, store.get("hash", "recipe").orElseThrow());
+            assertEquals(Optional.empty(), store.get("hash", "other recipe"));
+            assertEquals(Optional.empty(), store.get("other hash", "recipe"));
+        }
+    }
+
+    @Test
+    void shouldReadRecordsAppendedAfterOpening() throws IOException {
+        try (PersistentBytecodeStore store = PersistentBytecodeStore.open(directory.resolve("store"), MAXIMUM_SIZE)) {
+            store.put("first", "recipe", BYTECODE);
+            assertArrayEquals(BYTECODE, store.get("first", "recipe").orElseThrow());
+
+            store.put("second", "recipe", new byte[]{6});
+            assertArrayEquals(new byte[]{6}, store.get("second", "recipe").orElseThrow());
+        }
+    }
+
+    @Test
+    void shouldReturnLatestRecordOfKey() throws IOException {
+        Path file = directory.resolve("store");
+        try (PersistentBytecodeStore store = PersistentBytecodeStore.open(file, MAXIMUM_SIZE)) {
+            store.put("hash", "recipe", BYTECODE);
+            store.put("hash", "recipe", new byte[]{6, 7});
+        }
+
+        try (PersistentBytecodeStore store = PersistentBytecodeStore.open(file, MAXIMUM_SIZE)) {
+            assertArrayEquals(new byte[]{6, 7}, store.get("hash", "recipe").orElseThrow());
+            assertEquals(1, store.entries());
+        }
+    }
+
+    @Test
+    void shouldTruncateDamagedTail() throws IOException {
+        Path file = directory.resolve("store");
+        long sizeWithFirstRecord;
+        try (PersistentBytecodeStore store = PersistentBytecodeStore.open(file, MAXIMUM_SIZE)) {
+            store.put("first", "recipe", BYTECODE);
+            sizeWithFirstRecord = store.getFileSize();
+            store.put("second", "recipe", BYTECODE);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 1);
+        }
+
+        try (PersistentBytecodeStore store = PersistentBytecodeStore.open(file, MAXIMUM_SIZE)) {
+            assertArrayEquals(BYTECODE, store.get("first", "recipe").orElseThrow());
+            assertEquals(Optional.empty(), store.get("second", "recipe"));
+            assertEquals(sizeWithFirstRecord, store.getFileSize());
+            assertEquals(sizeWithFirstRecord, Files.size(file));
+        }
+    }
+
+    @Test
+    void shouldDropRecordsWithWrongChecksum() throws IOException {
+        Path file = directory.resolve("store");
+        try (PersistentBytecodeStore store = PersistentBytecodeStore.open(file, MAXIMUM_SIZE)) {
+            store.put("hash", "recipe", BYTECODE);
+        }
+        byte[] content = Files.readAllBytes(file);
+        content[content.length - 5]++; // the last byte of the bytecode
+        Files.write(file, content);
+
+        try (PersistentBytecodeStore store = PersistentBytecodeStore.open(file, MAXIMUM_SIZE)) {
+            assertEquals(Optional.empty(), store.get("hash", "recipe"));
+            assertEquals(0, store.entries());
+        }
+    }
+
+    @Test
+    void shouldCompactSupersededRecords() throws IOException {
+        try (PersistentBytecodeStore store = PersistentBytecodeStore.open(directory.resolve("store"), MAXIMUM_SIZE)) {
+            store.put("hash", "recipe", BYTECODE);
+            long sizeWithOneRecord = store.getFileSize();
+            store.put("hash", "recipe", BYTECODE);
+
+            store.compact();
+
+            assertEquals(sizeWithOneRecord, store.getFileSize());
+            assertArrayEquals(BYTECODE, store.get("hash", "recipe").orElseThrow());
+        }
+    }
+
+    @Test
+    void shouldEvictOldestRecordsWhenFull() throws IOException {
+        long maximumSize = 1000;
+        try (PersistentBytecodeStore store = PersistentBytecodeStore.open(directory.resolve("store"), maximumSize)) {
+            for (int i = 0; i < 10; i++) {
+                store.put("hash" + i, "recipe", new byte[100]);
+            }
+
+            assertTrue(store.getFileSize() <= maximumSize);
+            assertEquals(Optional.empty(), store.get("hash0", "recipe"));
+            assertTrue(store.get("hash9", "recipe").isPresent());
+        }
+    }
+
+    @Test
+    void shouldNotOverwriteFilesWhichAreNotStores() throws IOException {
+        Path file = Files.write(directory.resolve("not a store"), new byte[]{'t', 'e', 'x', 't', '\n'});
+
+        assertThrows(IOException.class, () -> PersistentBytecodeStore.open(file, MAXIMUM_SIZE));
+        assertArrayEquals(new byte[]{'t', 'e', 'x', 't', '\n'}, Files.readAllBytes(file));
+    }
+
+    @Test
+    void shouldRejectMaximumSizeLargerThanMapping() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PersistentBytecodeStore.open(directory.resolve("store"), Integer.MAX_VALUE + 1L));
+    }
+
+    @Test
+    void shouldKeepRecordsWhenCompactionFails() throws IOException {
+        Path file = directory.resolve("store");
+        Files.createDirectories(directory.resolve("store.compacting").resolve("in the way"));
+        try (PersistentBytecodeStore store = PersistentBytecodeStore.open(file, MAXIMUM_SIZE)) {
+            store.put("hash", "recipe", BYTECODE);
+            store.put("hash", "recipe", new byte[]{6, 7});
+
+            assertThrows(UncheckedIOException.class, store::compact);
+
+            assertArrayEquals(new byte[]{6, 7}, store.get("hash", "recipe").orElseThrow());
+            store.put("other hash", "recipe", BYTECODE);
+            assertArrayEquals(BYTECODE, store.get("other hash", "recipe").orElseThrow());
+        }
+    }
+
+    @Test
+    void shouldNotOpenFileUsedByAnotherStore() throws IOException {
+        Path file = directory.resolve("store");
+        try (PersistentBytecodeStore store = PersistentBytecodeStore.open(file, MAXIMUM_SIZE)) {
+            store.put("hash", "recipe", BYTECODE);
+
+            assertThrows(IOException.class, () -> PersistentBytecodeStore.open(file, MAXIMUM_SIZE));
+
+            store.compact(); // replaces the file, but keeps it locked
+            assertThrows(IOException.class, () -> PersistentBytecodeStore.open(file, MAXIMUM_SIZE));
+        }
+        try (PersistentBytecodeStore store = PersistentBytecodeStore.open(file, MAXIMUM_SIZE)) {
+            assertArrayEquals(BYTECODE, store.get("hash", "recipe").orElseThrow());
+        }
+    }
+
+    @Test
+    void transformationCacheShouldTransformClassesWhenStoreFails() throws IOException {
+        PersistentBytecodeStore store = PersistentBytecodeStore.open(directory.resolve("store"), MAXIMUM_SIZE);
+        store.close(); // reading and appending fail from now on
+        byte[] original = getBytecodeFromResources("Target.class");
+        AtomicInteger transformations = new AtomicInteger();
+        BytecodeTransformation identity = BytecodeTransformation.of("identity", bytecode -> {
+            transformations.incrementAndGet();
+            return bytecode;
+        });
+        TransformationCache cache = new TransformationCache(16, store);
+
+        assertArrayEquals(original, cache.transform(original, identity).getBytecode());
+        assertArrayEquals(original, cache.transform(original, identity).getBytecode());
+        assertEquals(1, transformations.get());
+    }
+
+    @Test
+    void shouldServeAsSecondTierOfTransformationCache() throws IOException {
+        Path file = directory.resolve("store");
+        byte[] original = getBytecodeFromResources("Target.class");
+        AtomicInteger transformations = new AtomicInteger();
+        BytecodeTransformation identity = BytecodeTransformation.of("identity", bytecode -> {
+            transformations.incrementAndGet();
+            return bytecode;
+        });
+
+        try (PersistentBytecodeStore store = PersistentBytecodeStore.open(file, MAXIMUM_SIZE)) {
+            new TransformationCache(16, store).transform(original, identity);
+        }
+        TransformedClass transformed;
+        try (PersistentBytecodeStore store = PersistentBytecodeStore.open(file, MAXIMUM_SIZE)) {
+            transformed = new TransformationCache(16, store).transform(original, identity);
+        }
+
+        assertEquals(1, transformations.get());
+        assertEquals("test.types.Target", transformed.getClassName());
+        assertArrayEquals(original, transformed.getBytecode());
+    }
+}
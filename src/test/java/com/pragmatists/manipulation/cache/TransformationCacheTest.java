@@ -0,0 +1,94 @@
+package com.pragmatists.manipulation.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.ClassFileUtils.getBytecodeFromResources;
+
+class TransformationCacheTest {
+    private static final byte[] TARGET_BYTECODE = getBytecodeFromResources("Target.class");
+    private static final byte[] SOURCE_BYTECODE = getBytecodeFromResources("Source.class");
+
+    @Test
+    void shouldTransformSameContentWithSameRecipeOnlyOnce() {
+        TransformationCache cache = new TransformationCache();
+        AtomicInteger transformations = new AtomicInteger();
+        BytecodeTransformation identity = BytecodeTransformation.of("identity", bytecode -> {
+            transformations.incrementAndGet();
+            return bytecode;
+        });
+
+        TransformedClass first = cache.transform(TARGET_BYTECODE, identity);
+        TransformedClass second = cache.transform(TARGET_BYTECODE.clone(), identity);
+
+        assertEquals(first, second);
+        assertEquals(1, transformations.get());
+        assertEquals(new CacheStatistics(1, 1, 0, 1), cache.getStatistics());
+    }
+
+    @Test
+    void shouldTransformAgainWithDifferentRecipe() {
+        TransformationCache cache = new TransformationCache();
+        AtomicInteger transformations = new AtomicInteger();
+
+        cache.transform(TARGET_BYTECODE, BytecodeTransformation.of("first", bytecode -> {
+            transformations.incrementAndGet();
+            return bytecode;
+        }));
+        cache.transform(TARGET_BYTECODE, BytecodeTransformation.of("second", bytecode -> {
+            transformations.incrementAndGet();
+            return bytecode;
+        }));
+
+        assertEquals(2, transformations.get());
+    }
+
+    @Test
+    void shouldParseMetadataOfTransformedClass() {
+        TransformedClass transformed = new TransformationCache()
+                .transform(TARGET_BYTECODE, BytecodeTransformation.of("identity", bytecode -> bytecode));
+
+        assertEquals("test.types.Target", transformed.getClassName());
+        assertEquals("java.lang.Object", transformed.getSuperClassName());
+        assertEquals(List.of("test.types.Clazz"), transformed.getInterfaceNames());
+        assertArrayEquals(TARGET_BYTECODE, transformed.getBytecode());
+    }
+
+    @Test
+    void shouldNotShareCachedBytecodeWithCallers() {
+        TransformationCache cache = new TransformationCache();
+        BytecodeTransformation identity = BytecodeTransformation.of("identity", bytecode -> bytecode);
+
+        cache.transform(TARGET_BYTECODE, identity).getBytecode()[0] = 0;
+
+        assertArrayEquals(TARGET_BYTECODE, cache.transform(TARGET_BYTECODE, identity).getBytecode());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedResults() {
+        TransformationCache cache = new TransformationCache(1);
+        BytecodeTransformation identity = BytecodeTransformation.of("identity", bytecode -> bytecode);
+
+        cache.transform(TARGET_BYTECODE, identity);
+        cache.transform(SOURCE_BYTECODE, identity);
+
+        assertEquals(1, cache.getStatistics().getEvictions());
+        assertEquals(1, cache.getStatistics().getSize());
+    }
+
+    @Test
+    void shouldTransformAllClasses() {
+        TransformationCache cache = new TransformationCache();
+
+        Map<String, byte[]> transformed = cache.transformAll(
+                Map.of("test.types.Target", TARGET_BYTECODE, "test.types.Source", SOURCE_BYTECODE),
+                BytecodeTransformation.of("identity", bytecode -> bytecode));
+
+        assertArrayEquals(TARGET_BYTECODE, transformed.get("test.types.Target"));
+        assertArrayEquals(SOURCE_BYTECODE, transformed.get("test.types.Source"));
+    }
+}
@@ -0,0 +1,135 @@
+package com.pragmatists.manipulation.invocation;
+
+import com.pragmatists.manipulation.loaders.ClassSubstitutor;
+import examples.classes.Calculator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import test.types.Inlined;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static test.ClassFileUtils.getBytecode;
+
+class DirectInvokersIT {
+    private static Class<?> calculator;
+    private static Class<?> inlined;
+
+    @BeforeAll
+    static void loadSubstitutedClasses() throws ClassNotFoundException {
+        ClassSubstitutor classSubstitutor = new ClassSubstitutor(Map.of(
+                Calculator.class.getName(), getBytecode(Calculator.class),
+                Inlined.class.getName(), getBytecode(Inlined.class)));
+        calculator = classSubstitutor.loadClass(Calculator.class.getName());
+        inlined = classSubstitutor.loadClass(Inlined.class.getName());
+    }
+
+    @Test
+    void shouldInvokeInstanceMethodOfSubstitutedClass() throws ReflectiveOperationException {
+        Adding adding = DirectInvokers.invoker(Adding.class, calculator.getMethod("add", long.class, long.class));
+
+        assertEquals("7", adding.add(calculator.getConstructor().newInstance(), 3L, 4L));
+        assertNotSame(calculator.getClassLoader(), adding.getClass().getClassLoader());
+    }
+
+    @Test
+    void shouldInvokeStaticMethodWithPrimitiveArguments() throws NoSuchMethodException {
+        Weighting weighting = DirectInvokers.invoker(Weighting.class, inlined.getMethod("weighted", long.class, int.class, double.class));
+
+        assertEquals(15L, weighting.weighted(10L, 3, 0.5));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldBoxAndUnboxErasedTypes() throws ReflectiveOperationException {
+        Function<Object, Object> square = DirectInvokers.invoker(Function.class, inlined.getMethod("square", int.class));
+        BiFunction<Object, Object, Object> clamp = DirectInvokers.invoker(BiFunction.class, inlined.getMethod("clamp", int.class));
+
+        assertEquals(49, square.apply(7));
+        assertThrows(ClassCastException.class, () -> square.apply("7"));
+        assertThrows(NullPointerException.class, () -> square.apply(null));
+        assertEquals(100, clamp.apply(inlined.getConstructor().newInstance(), 130));
+    }
+
+    @Test
+    void shouldDropResultForVoidInterfaceMethod() throws NoSuchMethodException {
+        @SuppressWarnings("unchecked")
+        Consumer<Object> describe = DirectInvokers.invoker(Consumer.class, inlined.getMethod("describe", int.class));
+
+        describe.accept(3);
+    }
+
+    @Test
+    void shouldInvokeMethodsOfBootstrapClasses() throws NoSuchMethodException {
+        IntBinaryOperator max = DirectInvokers.invoker(IntBinaryOperator.class, Math.class.getMethod("max", int.class, int.class));
+
+        assertEquals(5, max.applyAsInt(3, 5));
+    }
+
+    @Test
+    void shouldCacheInvokersPerTargetAndInterface() throws NoSuchMethodException {
+        Weighting first = DirectInvokers.invoker(Weighting.class, inlined.getMethod("weighted", long.class, int.class, double.class));
+        Weighting second = DirectInvokers.invoker(Weighting.class, inlined.getMethod("weighted", long.class, int.class, double.class));
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void shouldImplementMethodsOverriddenWithMoreSpecificReturnType() throws NoSuchMethodException {
+        DefaultLocale defaultLocale = DirectInvokers.invoker(DefaultLocale.class, Locale.class.getMethod("getDefault"));
+        Supplier<Locale> supplier = defaultLocale;
+
+        assertEquals(Locale.getDefault(), defaultLocale.get());
+        assertEquals(Locale.getDefault(), supplier.get());
+    }
+
+    @Test
+    void shouldDefineInvokersOfTargetsOfClassLoaderWithSingleClassLoader() throws NoSuchMethodException {
+        Adding adding = DirectInvokers.invoker(Adding.class, calculator.getMethod("add", long.class, long.class));
+        Weighting weighting = DirectInvokers.invoker(Weighting.class, inlined.getMethod("weighted", long.class, int.class, double.class));
+
+        assertSame(adding.getClass().getClassLoader(), weighting.getClass().getClassLoader());
+    }
+
+    @Test
+    void shouldRejectMismatchingInterfaces() throws NoSuchMethodException {
+        assertThrows(IllegalArgumentException.class,
+                () -> DirectInvokers.invoker(IntUnaryOperator.class, inlined.getMethod("weighted", long.class, int.class, double.class)));
+        assertThrows(IllegalArgumentException.class,
+                () -> DirectInvokers.invoker(Weighting.class, Math.class.getMethod("max", long.class, long.class)));
+        assertThrows(IllegalArgumentException.class,
+                () -> DirectInvokers.invoker(List.class, inlined.getMethod("square", int.class)));
+        assertThrows(IllegalArgumentException.class,
+                () -> DirectInvokers.invoker(IntUnaryOperator.class, Integer.class.getDeclaredMethod("stringSize", int.class)));
+        assertThrows(IllegalArgumentException.class,
+                () -> DirectInvokers.invoker(LongSquaring.class, inlined.getMethod("square", int.class)));
+    }
+
+    public interface Adding {
+        String add(Object calculator, long x, long y);
+    }
+
+    public interface Weighting {
+        long weighted(long value, int weight, double factor);
+    }
+
+    public interface LongSquaring {
+        Long square(Long value);
+    }
+
+    public interface DefaultLocale extends Supplier<Locale> {
+        @Override
+        Locale get();
+    }
+}
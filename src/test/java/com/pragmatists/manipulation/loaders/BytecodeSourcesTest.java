@@ -0,0 +1,178 @@
+package com.pragmatists.manipulation.loaders;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import test.ClassFileUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BytecodeSourcesTest {
+    private static final String STORED_CLASS = "sourced.Stored";
+    private static final String DEFLATED_CLASS = "sourced.Deflated";
+
+    @TempDir
+    Path temporaryDirectory;
+
+    @Test
+    void jarSourceShouldSliceStoredAndInflateDeflatedClassFiles() throws IOException {
+        Path jar = writeJar();
+
+        JarBytecodeSource source = (JarBytecodeSource) BytecodeSources.jar(jar);
+
+        assertEquals(2, source.size());
+        ByteBuffer stored = source.bytecodeOf(STORED_CLASS);
+        assertTrue(stored.isDirect()); // a slice of the mapped jar
+        assertArrayEquals(generateSupplier(STORED_CLASS, "stored"), toArray(stored));
+        assertArrayEquals(generateSupplier(DEFLATED_CLASS, "deflated"), toArray(source.bytecodeOf(DEFLATED_CLASS)));
+        assertNull(source.bytecodeOf("META-INF.Ignored"));
+        assertNull(source.bytecodeOf("module-info"));
+        assertNull(source.bytecodeOf("sourced.package-info"));
+        assertNull(source.bytecodeOf("sourced.Missing"));
+    }
+
+    @Test
+    void classSubstitutorShouldLoadClassesFromJar() throws Exception {
+        ClassSubstitutor classSubstitutor = new ClassSubstitutor(BytecodeSources.jar(writeJar()));
+
+        assertEquals("stored", instantiate(classSubstitutor.loadClass(STORED_CLASS)).get());
+        assertEquals("deflated", instantiate(classSubstitutor.loadClass(DEFLATED_CLASS)).get());
+        assertSame(classSubstitutor, classSubstitutor.loadClass(STORED_CLASS).getClassLoader());
+        assertSame(String.class, classSubstitutor.loadClass(String.class.getName()));
+    }
+
+    @Test
+    void classSubstitutorShouldLoadClassesFromDirectory() throws Exception {
+        Path classFile = temporaryDirectory.resolve("sourced/Stored.class");
+        Files.createDirectories(classFile.getParent());
+        Files.write(classFile, generateSupplier(STORED_CLASS, "from directory"));
+
+        ClassSubstitutor classSubstitutor = new ClassSubstitutor(BytecodeSources.directory(temporaryDirectory));
+
+        assertEquals("from directory", instantiate(classSubstitutor.loadClass(STORED_CLASS)).get());
+        assertThrows(ClassNotFoundException.class, () -> classSubstitutor.loadClass(DEFLATED_CLASS));
+    }
+
+    @Test
+    void lazySourceShouldBeAskedOnlyForLoadedClasses() throws Exception {
+        List<String> requested = new ArrayList<>();
+        ClassSubstitutor classSubstitutor = new ClassSubstitutor(BytecodeSources.lazy(className -> {
+            requested.add(className);
+            return STORED_CLASS.equals(className) ? generateSupplier(STORED_CLASS, "lazy") : null;
+        }));
+
+        classSubstitutor.loadClass(STORED_CLASS);
+        classSubstitutor.loadClass(STORED_CLASS);
+
+        assertEquals(STORED_CLASS, requested.get(0));
+        assertEquals(1, requested.stream().filter(STORED_CLASS::equals).count());
+    }
+
+    @Test
+    void mapSourceShouldReleaseDefinedClasses() throws IOException {
+        BytecodeSource source = BytecodeSources.of(Map.of(STORED_CLASS, generateSupplier(STORED_CLASS, "mapped")));
+
+        assertArrayEquals(generateSupplier(STORED_CLASS, "mapped"), toArray(source.bytecodeOf(STORED_CLASS)));
+        source.release(STORED_CLASS);
+
+        assertNull(source.bytecodeOf(STORED_CLASS));
+    }
+
+    @Test
+    void jarSourceShouldRejectOtherFiles() throws IOException {
+        Path notJar = Files.write(temporaryDirectory.resolve("not.jar"), new byte[]{1, 2, 3});
+
+        assertThrows(IOException.class, () -> BytecodeSources.jar(notJar));
+    }
+
+    @Test
+    void jarSourceShouldDecodeNamesAsUtf8OnlyWhenFlagged() throws IOException {
+        Path utf8Jar = temporaryDirectory.resolve("utf8.jar");
+        try (ZipOutputStream output = new JarOutputStream(Files.newOutputStream(utf8Jar))) { // sets the UTF-8 flag
+            write(output, new ZipEntry("sourced/Zo\u00eb.class"), generateSupplier("sourced.Zo\u00eb", "utf8"));
+        }
+        Path cp437Jar = temporaryDirectory.resolve("cp437.jar");
+        try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(cp437Jar), Charset.forName("IBM437"))) {
+            write(output, new ZipEntry("sourced/Caf\u00e9.class"), generateSupplier("sourced.Caf\u00e9", "cp437"));
+        }
+
+        assertArrayEquals(generateSupplier("sourced.Zo\u00eb", "utf8"),
+                toArray(BytecodeSources.jar(utf8Jar).bytecodeOf("sourced.Zo\u00eb")));
+        assertArrayEquals(generateSupplier("sourced.Caf\u00e9", "cp437"),
+                toArray(BytecodeSources.jar(cp437Jar).bytecodeOf("sourced.Caf\u00e9")));
+    }
+
+    @Test
+    void jarSourceShouldRejectEncryptedClassFiles() throws IOException {
+        byte[] jar = Files.readAllBytes(writeJar());
+        for (int offset = 0; offset + 8 < jar.length; offset++) { // flag every central directory header as encrypted
+            if (jar[offset] == 'P' && jar[offset + 1] == 'K' && jar[offset + 2] == 1 && jar[offset + 3] == 2) {
+                jar[offset + 8] |= 1;
+            }
+        }
+        Path encrypted = Files.write(temporaryDirectory.resolve("encrypted.jar"), jar);
+
+        IOException exception = assertThrows(IOException.class, () -> BytecodeSources.jar(encrypted));
+        assertTrue(exception.getMessage().contains("encrypted"));
+    }
+
+    private Path writeJar() throws IOException {
+        Path jar = temporaryDirectory.resolve("classes.jar");
+        try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+            byte[] stored = generateSupplier(STORED_CLASS, "stored");
+            JarEntry storedEntry = new JarEntry("sourced/Stored.class");
+            storedEntry.setMethod(ZipEntry.STORED);
+            storedEntry.setSize(stored.length);
+            CRC32 crc = new CRC32();
+            crc.update(stored);
+            storedEntry.setCrc(crc.getValue());
+            write(output, storedEntry, stored);
+
+            write(output, new JarEntry("sourced/Deflated.class"), generateSupplier(DEFLATED_CLASS, "deflated"));
+            write(output, new JarEntry("META-INF/Ignored.class"), generateSupplier("META-INF.Ignored", "ignored"));
+            write(output, new JarEntry("module-info.class"), generateSupplier("module-info", "ignored"));
+            write(output, new JarEntry("sourced/package-info.class"), generateSupplier("sourced.package-info", "ignored"));
+        }
+        return jar;
+    }
+
+    private static void write(ZipOutputStream output, ZipEntry entry, byte[] content) throws IOException {
+        output.putNextEntry(entry);
+        output.write(content);
+        output.closeEntry();
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] array = new byte[buffer.remaining()];
+        buffer.duplicate().get(array);
+        return array;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Object> instantiate(Class<?> loadedClass) throws ReflectiveOperationException {
+        return (Supplier<Object>) loadedClass.getConstructor().newInstance();
+    }
+
+    private static byte[] generateSupplier(String className, String supplied) {
+        return ClassFileUtils.generateSupplier(className, "java.lang.Object", get -> get.visitLdcInsn(supplied));
+    }
+}
@@ -0,0 +1,104 @@
+package com.pragmatists.manipulation.loaders;
+
+import com.pragmatists.manipulation.bytecode.characteristics.ClassCharacteristic;
+import com.pragmatists.manipulation.bytecode.characteristics.MethodCharacteristic;
+import com.pragmatists.manipulation.bytecode.generation.ClassBytecodeGenerator;
+import com.pragmatists.manipulation.bytecode.generation.MethodGenerator;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+
+import java.lang.invoke.MethodHandles;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.pragmatists.manipulation.bytecode.generation.MethodGenerator.DEFAULT_CONSTRUCTOR_OF_OBJECT_SUBCLASS;
+import static com.pragmatists.manipulation.type.Types.internalName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.V11;
+
+class ClassDefinersTest {
+    private static final String PACKAGE_NAME = ClassDefinersTest.class.getPackageName();
+
+    @Test
+    void shouldDefineClassInPackageOfLookup() throws ReflectiveOperationException {
+        ClassDefiner classDefiner = ClassDefiners.inPackageOf(MethodHandles.lookup());
+
+        Class<?> definedClass = classDefiner.define(generateSupplier(PACKAGE_NAME + ".DefinedInPackage", "defined"));
+
+        assertEquals(ClassDefinersTest.class.getClassLoader(), definedClass.getClassLoader());
+        assertEquals(PACKAGE_NAME, definedClass.getPackageName());
+        assertEquals("defined", ((Supplier<?>) definedClass.getConstructor().newInstance()).get());
+    }
+
+    @Test
+    void shouldDefineThrowawayClass() throws ReflectiveOperationException {
+        ClassDefiner classDefiner = ClassDefiners.throwaway(MethodHandles.lookup());
+
+        Class<?> definedClass = classDefiner.define(generateSupplier(PACKAGE_NAME + ".Throwaway", "throwaway"));
+
+        assertEquals(ClassDefinersTest.class.getClassLoader(), definedClass.getClassLoader());
+        assertEquals("throwaway", ((Supplier<?>) definedClass.getConstructor().newInstance()).get());
+    }
+
+    @Test
+    void shouldDefineHiddenClassesWithVersionForJava15() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 15);
+        Path classes = Path.of(ClassDefiners.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Path java15Classes = classes.resolve("META-INF/versions/15");
+        assertTrue(Files.isDirectory(java15Classes));
+
+        // the versioned classes come first, as they do in the multi-release jar
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{java15Classes.toUri().toURL(), classes.toUri().toURL()},
+                ClassLoader.getPlatformClassLoader())) {
+            Class<?> classDefiners = loader.loadClass(ClassDefiners.class.getName());
+            Object classDefiner = classDefiners.getMethod("throwaway", MethodHandles.Lookup.class)
+                    .invoke(null, MethodHandles.lookup());
+            Class<?> definedClass = (Class<?>) loader.loadClass(ClassDefiner.class.getName())
+                    .getMethod("define", byte[].class)
+                    .invoke(classDefiner, generateSupplier(PACKAGE_NAME + ".Hidden", "hidden"));
+
+            assertEquals(true, classDefiners.getMethod("isDefiningHiddenClasses").invoke(null));
+            assertEquals(true, Class.class.getMethod("isHidden").invoke(definedClass));
+            assertEquals("hidden", ((Supplier<?>) definedClass.getConstructor().newInstance()).get());
+        }
+    }
+
+    @Test
+    void shouldNotDefineClassInOtherPackage() {
+        ClassDefiner classDefiner = ClassDefiners.inPackageOf(MethodHandles.lookup());
+
+        assertThrows(IllegalArgumentException.class, () -> classDefiner.define(generateSupplier("other.Defined", "other")));
+    }
+
+    @Test
+    void shouldRequirePackageAccess() {
+        assertThrows(IllegalArgumentException.class, () -> ClassDefiners.inPackageOf(MethodHandles.publicLookup()));
+    }
+
+    private byte[] generateSupplier(String className, String value) {
+        MethodCharacteristic get = new MethodCharacteristic(ACC_PUBLIC, "get", Collections.emptyList(), Object.class);
+        return ClassBytecodeGenerator.builder()
+                .characteristic(ClassCharacteristic.builder()
+                        .javaVersion(V11)
+                        .accessFlag(ACC_PUBLIC)
+                        .name(className)
+                        .superName(Object.class.getName())
+                        .interfaces(new String[]{internalName(Supplier.class)})
+                        .build())
+                .methodGenerators(List.of(DEFAULT_CONSTRUCTOR_OF_OBJECT_SUBCLASS, MethodGenerator.builder()
+                        .methodCharacteristic(get)
+                        .methodBodyWriter(mv -> mv.visitLdcInsn(value))
+                        .build()))
+                .build()
+                .generate(new ClassWriter(ClassWriter.COMPUTE_FRAMES));
+    }
+}
@@ -0,0 +1,109 @@
+package com.pragmatists.manipulation.loaders;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.objectweb.asm.Opcodes.*;
+import static test.ClassFileUtils.generateClass;
+import static test.ClassFileUtils.generateSupplier;
+
+class ClassSubstitutorConcurrencyIT {
+    private static final int CLASSES = 2000;
+    private static final int SUPER_CLASSES = 16;
+    private static final int THREADS = 16;
+
+    @Test
+    void classesReferringToEachOtherShouldBeLoadedConcurrently() throws Exception {
+        ClassSubstitutor classSubstitutor = new ClassSubstitutor(generateClasses());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<Map<String, Class<?>>>> loaders = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            long seed = thread;
+            loaders.add(() -> {
+                List<Integer> order = new ArrayList<>();
+                for (int i = 0; i < CLASSES; i++) {
+                    order.add(i);
+                }
+                Collections.shuffle(order, new Random(seed));
+
+                start.await();
+                Map<String, Class<?>> loaded = new HashMap<>();
+                for (int i : order) {
+                    Class<?> loadedClass = classSubstitutor.loadClass(className(i));
+                    @SuppressWarnings("unchecked")
+                    Supplier<Object> instance = (Supplier<Object>) loadedClass.getConstructor().newInstance();
+                    Object next = instance.get(); // loads the next class, which might be being loaded by another thread
+                    loaded.put(className(i), loadedClass);
+                    loaded.put(next.getClass().getName(), next.getClass());
+                }
+                return loaded;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Map<String, Class<?>>>> results = new ArrayList<>();
+            for (Callable<Map<String, Class<?>>> loader : loaders) {
+                results.add(executor.submit(loader));
+            }
+            start.countDown();
+
+            Map<String, Class<?>> first = results.get(0).get(1, TimeUnit.MINUTES);
+            assertEquals(CLASSES, first.size());
+            for (Future<Map<String, Class<?>>> result : results) {
+                Map<String, Class<?>> loaded = result.get(1, TimeUnit.MINUTES);
+                first.forEach((name, loadedClass) -> assertSame(loadedClass, loaded.get(name)));
+            }
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        }
+    }
+
+    /**
+     * Class {@code Ci} extends {@code Base(i % 16)} and implements a supplier of a new instance of {@code C(i + 1)}.
+     */
+    private static Map<String, byte[]> generateClasses() {
+        Map<String, byte[]> classes = new HashMap<>();
+        for (int i = 0; i < SUPER_CLASSES; i++) {
+            classes.put(superClassName(i), generateClass(superClassName(i), "java.lang.Object"));
+        }
+        for (int i = 0; i < CLASSES; i++) {
+            String suppliedClass = internal(className((i + 1) % CLASSES));
+            classes.put(className(i), generateSupplier(className(i), superClassName(i % SUPER_CLASSES), get -> {
+                get.visitTypeInsn(NEW, suppliedClass);
+                get.visitInsn(DUP);
+                get.visitMethodInsn(INVOKESPECIAL, suppliedClass, "<init>", "()V", false);
+            }));
+        }
+        return classes;
+    }
+
+    private static String className(int i) {
+        return "stress.C" + i;
+    }
+
+    private static String superClassName(int i) {
+        return "stress.Base" + i;
+    }
+
+    private static String internal(String className) {
+        return className.replace('.', '/');
+    }
+}
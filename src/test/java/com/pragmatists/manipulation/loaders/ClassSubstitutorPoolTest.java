@@ -0,0 +1,100 @@
+package com.pragmatists.manipulation.loaders;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static test.ClassFileUtils.generateClass;
+
+class ClassSubstitutorPoolTest {
+    private static final long UNLOADING_TIMEOUT_MILLIS = 10_000;
+
+    @Test
+    void shouldReuseSubstitutorForTheSameClasses() throws ClassNotFoundException {
+        ClassSubstitutorPool pool = new ClassSubstitutorPool(4, 16);
+
+        ClassSubstitutor first = pool.substitutorFor(Map.of("pooled.A", generateClass("pooled.A", "java.lang.Object")));
+        ClassSubstitutor second = pool.substitutorFor(Map.of("pooled.A", generateClass("pooled.A", "java.lang.Object")));
+        Class<?> loadedClass = pool.loadClass("pooled.A", Map.of("pooled.A", generateClass("pooled.A", "java.lang.Object")));
+
+        assertSame(first, second);
+        assertSame(first, loadedClass.getClassLoader());
+        PoolStatistics statistics = pool.getStatistics();
+        assertEquals(1, statistics.getMisses());
+        assertEquals(2, statistics.getHits());
+        assertEquals(1, statistics.getClassesDefined());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedSubstitutorsOverLoaderLimit() {
+        ClassSubstitutorPool pool = new ClassSubstitutorPool(2, 16);
+        ClassSubstitutor a = pool.substitutorFor(Map.of("pooled.A", generateClass("pooled.A", "java.lang.Object")));
+        pool.substitutorFor(Map.of("pooled.B", generateClass("pooled.B", "java.lang.Object")));
+
+        pool.substitutorFor(Map.of("pooled.A", generateClass("pooled.A", "java.lang.Object"))); // B is now the least recently used
+        pool.substitutorFor(Map.of("pooled.C", generateClass("pooled.C", "java.lang.Object")));
+
+        assertSame(a, pool.substitutorFor(Map.of("pooled.A", generateClass("pooled.A", "java.lang.Object"))));
+        PoolStatistics statistics = pool.getStatistics();
+        assertEquals(2, statistics.getLoadersPooled());
+        assertEquals(1, statistics.getLoadersEvicted());
+        assertEquals(3, statistics.getLoadersCreated());
+    }
+
+    @Test
+    void shouldEvictSubstitutorsOverClassLimit() {
+        ClassSubstitutorPool pool = new ClassSubstitutorPool(8, 3);
+        ClassSubstitutor first = pool.substitutorFor(Map.of(
+                "pooled.A", generateClass("pooled.A", "java.lang.Object"), "pooled.B", generateClass("pooled.B", "java.lang.Object")));
+
+        pool.substitutorFor(Map.of("pooled.C", generateClass("pooled.C", "java.lang.Object"), "pooled.D", generateClass("pooled.D", "java.lang.Object")));
+
+        assertNotSame(first, pool.substitutorFor(Map.of(
+                "pooled.A", generateClass("pooled.A", "java.lang.Object"), "pooled.B", generateClass("pooled.B", "java.lang.Object"))));
+        PoolStatistics statistics = pool.getStatistics();
+        assertEquals(1, statistics.getLoadersPooled());
+        assertEquals(2, statistics.getClassesPooled());
+        assertEquals(2, statistics.getLoadersEvicted());
+    }
+
+    @Test
+    void shouldNotPoolSubstitutorForMoreClassesThanLimit() {
+        ClassSubstitutorPool pool = new ClassSubstitutorPool(8, 1);
+        Map<String, byte[]> classes = Map.of("pooled.A", generateClass("pooled.A", "java.lang.Object"), "pooled.B", generateClass("pooled.B", "java.lang.Object"));
+
+        assertNotSame(pool.substitutorFor(classes), pool.substitutorFor(classes));
+        assertEquals(0, pool.getStatistics().getLoadersPooled());
+    }
+
+    @Test
+    void shouldValidateLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new ClassSubstitutorPool(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ClassSubstitutorPool(1, 0));
+    }
+
+    @Test
+    void evictedSubstitutorsShouldBeUnloaded() throws Exception {
+        ClassSubstitutorPool pool = new ClassSubstitutorPool(1, 16);
+        for (int i = 0; i < 3; i++) {
+            String className = "pooled.Unloaded" + i;
+            pool.loadClass(className, Map.of(className, generateClass(className, "java.lang.Object"))).getConstructor().newInstance();
+        }
+
+        long deadline = System.currentTimeMillis() + UNLOADING_TIMEOUT_MILLIS;
+        while (pool.getStatistics().getLoadersUnloaded() < 2 && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        PoolStatistics statistics = pool.getStatistics();
+        assertTrue(statistics.getLoadersUnloaded() >= 2, statistics::toString);
+        assertEquals(statistics.getLoadersCreated() - statistics.getLoadersUnloaded(), statistics.getLoadersAlive());
+        assertEquals(statistics.getLoadersUnloaded(), statistics.getClassesUnloaded());
+        assertEquals(3, statistics.getClassesDefined());
+    }
+}
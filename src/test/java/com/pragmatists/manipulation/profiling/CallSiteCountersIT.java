@@ -0,0 +1,118 @@
+package com.pragmatists.manipulation.profiling;
+
+import com.pragmatists.manipulation.bytecode.modification.InstructionsModifier;
+import com.pragmatists.manipulation.loaders.ClassSubstitutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import test.PrintCaptor;
+import test.types.Stepping;
+
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+import static test.ClassFileUtils.getBytecode;
+import static test.ClassFileUtils.getBytecodeFromResources;
+
+class CallSiteCountersIT {
+    private static final String MODIFIED_CLASS_NAME = "test.types.Modified";
+    private static final String CALLER = MODIFIED_CLASS_NAME + ".foo(Ljava/lang/Boolean;)V";
+    private static final byte[] MODIFIED_CLASS_BYTECODE = getBytecodeFromResources("Modified.class");
+    private static final String STEPPING_CLASS_NAME = Stepping.class.getName();
+    private static final byte[] STEPPING_CLASS_BYTECODE = getBytecode(Stepping.class);
+    private static final PrintStream ORIGINAL_OUT = System.out;
+
+    @AfterEach
+    void tearDown() {
+        System.setOut(ORIGINAL_OUT);
+    }
+
+    @Test
+    void shouldCountInvocationsOfEveryCallSite() throws Exception {
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(MODIFIED_CLASS_BYTECODE,
+                List.of(CallSiteCounters.countCallsIn(MODIFIED_CLASS_NAME, "foo", "(Ljava/lang/Boolean;)V")));
+        Class<?> modifiedClass = new ClassSubstitutor(Map.of(MODIFIED_CLASS_NAME, bytecode)).loadClass(MODIFIED_CLASS_NAME);
+        Object instance = modifiedClass.getConstructor().newInstance();
+        Method foo = modifiedClass.getMethod("foo", Boolean.class);
+
+        System.setOut(new PrintCaptor());
+        foo.invoke(instance, true);
+        foo.invoke(instance, true);
+        foo.invoke(instance, false);
+
+        List<CallSiteCount> counts = CallSiteCounters.snapshot().stream()
+                .filter(count -> count.getCallSite().getCaller().equals(CALLER))
+                .collect(toList());
+        assertEquals(3, counts.size());
+
+        CallSiteCount booleanValue = counts.get(0);
+        assertEquals("java/lang/Boolean", booleanValue.getCallSite().getOwner());
+        assertEquals("booleanValue", booleanValue.getCallSite().getName());
+        assertEquals("()Z", booleanValue.getCallSite().getDescriptor());
+        assertEquals(3, booleanValue.getCount());
+
+        CallSiteCount printlnOfTrue = counts.get(1);
+        CallSiteCount printlnOfFalse = counts.get(2);
+        assertEquals("println", printlnOfTrue.getCallSite().getName());
+        assertEquals(2, printlnOfTrue.getCount());
+        assertEquals(1, printlnOfFalse.getCount());
+        assertTrue(booleanValue.getCallSite().getLine() > 0);
+        assertTrue(printlnOfTrue.getCallSite().getLine() > booleanValue.getCallSite().getLine());
+        assertTrue(printlnOfFalse.getCallSite().getLine() > printlnOfTrue.getCallSite().getLine());
+
+        assertEquals(counts.get(1).getCallSite(), CallSiteCounters.getCallSites().get(printlnOfTrue.getCallSite().getSlot()));
+    }
+
+    @Test
+    void shouldCountIdenticalInvocationsInForHeaderSeparately() throws Exception {
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(STEPPING_CLASS_BYTECODE,
+                List.of(CallSiteCounters.countCallsIn(STEPPING_CLASS_NAME, "sum", "(I)I")));
+        Class<?> steppingClass = new ClassSubstitutor(Map.of(STEPPING_CLASS_NAME, bytecode)).loadClass(STEPPING_CLASS_NAME);
+
+        assertEquals(6, steppingClass.getMethod("sum", int.class).invoke(steppingClass.getConstructor().newInstance(), 4));
+
+        List<CallSiteCount> counts = CallSiteCounters.snapshot().stream()
+                .filter(count -> count.getCallSite().getCaller().equals(STEPPING_CLASS_NAME + ".sum(I)I"))
+                .collect(toList());
+        assertEquals(2, counts.size());
+        assertEquals(counts.get(0).getCallSite().getLine(), counts.get(1).getCallSite().getLine());
+        assertEquals(1, counts.get(0).getCount());
+        assertEquals(4, counts.get(1).getCount());
+    }
+
+    @Test
+    void shouldReuseSlotsWhenClassIsModifiedAgain() {
+        byte[] first = InstructionsModifier.modifyMethodsInClassfile(MODIFIED_CLASS_BYTECODE,
+                List.of(CallSiteCounters.countCallsIn(MODIFIED_CLASS_NAME, "foo", "(Ljava/lang/Boolean;)V")));
+        List<CallSite> callSites = callSitesOf(CALLER);
+
+        byte[] second = InstructionsModifier.modifyMethodsInClassfile(MODIFIED_CLASS_BYTECODE,
+                List.of(CallSiteCounters.countCallsIn(MODIFIED_CLASS_NAME, "foo", "(Ljava/lang/Boolean;)V")));
+
+        assertEquals(3, callSites.size());
+        assertEquals(callSites, callSitesOf(CALLER));
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    void shouldResetCounts() throws Exception {
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(MODIFIED_CLASS_BYTECODE,
+                List.of(CallSiteCounters.countCallsIn(MODIFIED_CLASS_NAME, "foo", "()V")));
+        Class<?> modifiedClass = new ClassSubstitutor(Map.of(MODIFIED_CLASS_NAME, bytecode)).loadClass(MODIFIED_CLASS_NAME);
+        System.setOut(new PrintCaptor());
+        modifiedClass.getMethod("foo").invoke(modifiedClass.getConstructor().newInstance());
+
+        CallSiteCounters.reset();
+
+        assertTrue(CallSiteCounters.snapshot().stream().allMatch(count -> count.getCount() == 0));
+    }
+
+    private static List<CallSite> callSitesOf(String caller) {
+        return CallSiteCounters.getCallSites().stream()
+                .filter(callSite -> callSite.getCaller().equals(caller))
+                .collect(toList());
+    }
+}
@@ -0,0 +1,151 @@
+package com.pragmatists.manipulation.profiling;
+
+import com.pragmatists.manipulation.bytecode.Instructions;
+import com.pragmatists.manipulation.bytecode.modification.AppendingMethodVisitor;
+import com.pragmatists.manipulation.bytecode.modification.InstructionsModifier;
+import com.pragmatists.manipulation.bytecode.modification.MethodModification;
+import com.pragmatists.manipulation.bytecode.modification.PrependingMethodVisitor;
+import com.pragmatists.manipulation.loaders.ClassSubstitutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.MethodVisitor;
+import test.PrintCaptor;
+
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ASTORE;
+import static org.objectweb.asm.Opcodes.GETSTATIC;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.NOP;
+import static test.ClassFileUtils.getBytecodeFromResources;
+
+class SamplerIT {
+    private static final String MODIFIED_CLASS_NAME = "test.types.Modified";
+    private static final byte[] MODIFIED_CLASS_BYTECODE = getBytecodeFromResources("Modified.class");
+    private static final String FOO_DESCRIPTOR = "(Ljava/lang/Boolean;)V";
+    private static final int STORED_LOCAL = 2;
+    private static final PrintStream ORIGINAL_OUT = System.out;
+
+    @AfterEach
+    void tearDown() {
+        System.setOut(ORIGINAL_OUT);
+    }
+
+    @Test
+    void shouldRunInstructionsAccordingToRateChangedAtRuntime() throws Exception {
+        int samplerId = Sampler.register("SamplerIT.changedAtRuntime", 1);
+        Method foo = loadSampledFoo(samplerId);
+        Object instance = foo.getDeclaringClass().getConstructor().newInstance();
+
+        assertEquals(5, countSamples(foo, instance, true, 5));
+
+        Sampler.setRate(samplerId, 0);
+        assertEquals(0, countSamples(foo, instance, false, 5));
+
+        Sampler.setRate(samplerId, 4);
+        int samples = countSamples(foo, instance, false, 4000);
+        assertTrue(samples > 700 && samples < 1300, () -> "Expected about 1000 samples, was " + samples);
+    }
+
+    @Test
+    void shouldShareRateOfSamplersWithSameName() {
+        int samplerId = Sampler.register("SamplerIT.shared", 10);
+
+        assertEquals(samplerId, Sampler.register("SamplerIT.shared", 20));
+        assertEquals(10, Sampler.getRate(samplerId));
+        assertThrows(IllegalArgumentException.class, () -> Sampler.setRate(samplerId, -1));
+    }
+
+    @Test
+    void shouldRejectUnregisteredSamplers() {
+        int unregistered = Sampler.register("SamplerIT.unregistered", 1) + 1;
+
+        assertThrows(IllegalArgumentException.class, () -> Sampler.setRate(unregistered, 1));
+        assertThrows(IllegalArgumentException.class, () -> Sampler.getRate(-1));
+        assertThrows(IllegalArgumentException.class, () -> Sampler.wrap(printingInstructions(), Integer.MAX_VALUE));
+    }
+
+    @Test
+    void sampledInstructionsShouldShareRecordedInstructions() {
+        Instructions instructions = printingInstructions();
+        Instructions sampled = Sampler.wrap(instructions, Sampler.register("SamplerIT.sharing", 1));
+        sampled.recorder().visitInsn(NOP);
+
+        assertEquals(4, instructions.getInstructionAdditions().size());
+    }
+
+    @Test
+    void shouldSamplePairSharingLocalVariableOncePerInvocation() throws Exception {
+        int samplerId = Sampler.register("SamplerIT.pair", 2);
+        SampledPair pair = Sampler.wrapPair(storingInstructions(), printingStoredInstructions(), samplerId);
+        Method foo = loadFoo(pair.getPrepended(), pair.getAppended());
+        Object instance = foo.getDeclaringClass().getConstructor().newInstance();
+
+        int samples = countSamples(foo, instance, true, 2000);
+        assertTrue(samples > 800 && samples < 1200, () -> "Expected about 1000 samples, was " + samples);
+    }
+
+    @Test
+    void separatelySampledInstructionsSharingLocalVariableShouldNotVerify() {
+        int samplerId = Sampler.register("SamplerIT.separate", 2);
+
+        assertThrows(VerifyError.class, () -> loadFoo(Sampler.wrap(storingInstructions(), samplerId),
+                Sampler.wrap(printingStoredInstructions(), samplerId)).getDeclaringClass().getConstructor().newInstance());
+    }
+
+    private static Method loadSampledFoo(int samplerId) throws Exception {
+        Instructions sampled = Sampler.wrap(printingInstructions(), samplerId);
+        return loadFoo(List.of(new MethodModification("foo", FOO_DESCRIPTOR, sampled, AppendingMethodVisitor::new)));
+    }
+
+    private static Method loadFoo(Instructions prepended, Instructions appended) throws Exception {
+        return loadFoo(List.of(new MethodModification("foo", FOO_DESCRIPTOR, prepended, PrependingMethodVisitor::new),
+                new MethodModification("foo", FOO_DESCRIPTOR, appended, AppendingMethodVisitor::new)));
+    }
+
+    private static Method loadFoo(List<MethodModification> modifications) throws Exception {
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(MODIFIED_CLASS_BYTECODE, modifications);
+        Class<?> modifiedClass = new ClassSubstitutor(Map.of(MODIFIED_CLASS_NAME, bytecode)).loadClass(MODIFIED_CLASS_NAME);
+        return modifiedClass.getMethod("foo", Boolean.class);
+    }
+
+    private static int countSamples(Method foo, Object instance, boolean flag, int invocations) throws Exception {
+        PrintCaptor captor = new PrintCaptor();
+        System.setOut(captor);
+        for (int i = 0; i < invocations; i++) {
+            foo.invoke(instance, flag);
+        }
+        return (int) captor.getResults().stream().filter("sampled"::equals).count();
+    }
+
+    private static Instructions printingInstructions() {
+        Instructions instructions = new Instructions();
+        MethodVisitor recorder = instructions.recorder();
+        recorder.visitFieldInsn(GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
+        recorder.visitLdcInsn("sampled");
+        recorder.visitMethodInsn(INVOKEVIRTUAL, "java/io/PrintStream", "println", "(Ljava/lang/String;)V", false);
+        return instructions;
+    }
+
+    private static Instructions storingInstructions() {
+        Instructions instructions = new Instructions();
+        MethodVisitor recorder = instructions.recorder();
+        recorder.visitLdcInsn("sampled");
+        recorder.visitVarInsn(ASTORE, STORED_LOCAL);
+        return instructions;
+    }
+
+    private static Instructions printingStoredInstructions() {
+        Instructions instructions = new Instructions();
+        MethodVisitor recorder = instructions.recorder();
+        recorder.visitFieldInsn(GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
+        recorder.visitVarInsn(ALOAD, STORED_LOCAL);
+        recorder.visitMethodInsn(INVOKEVIRTUAL, "java/io/PrintStream", "println", "(Ljava/lang/String;)V", false);
+        return instructions;
+    }
+}
@@ -0,0 +1,68 @@
+package com.pragmatists.manipulation.profiling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedHistogramTest {
+    @Test
+    void shouldCountDurationsInPowerOfTwoBuckets() {
+        assertEquals(0, StripedHistogram.bucket(0));
+        assertEquals(0, StripedHistogram.bucket(-5));
+        assertEquals(1, StripedHistogram.bucket(1));
+        assertEquals(2, StripedHistogram.bucket(2));
+        assertEquals(2, StripedHistogram.bucket(3));
+        assertEquals(11, StripedHistogram.bucket(1024));
+        assertEquals(63, StripedHistogram.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    void shouldSummarizeRecordedDurations() {
+        StripedHistogram histogram = new StripedHistogram("test", 4);
+        histogram.record(100);
+        histogram.record(100);
+        histogram.record(1000);
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals("test", snapshot.getName());
+        assertEquals(3, snapshot.getCount());
+        assertEquals(1200, snapshot.getTotalNanos());
+        assertEquals(400.0, snapshot.getMeanNanos());
+        assertEquals(127, snapshot.getPercentileUpperBoundNanos(50));
+        assertEquals(1023, snapshot.getPercentileUpperBoundNanos(100));
+    }
+
+    @Test
+    void shouldResetWhenSnapshotTaken() {
+        StripedHistogram histogram = new StripedHistogram("test");
+        histogram.record(100);
+
+        assertEquals(1, histogram.snapshotAndReset().getCount());
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getPercentileUpperBoundNanos(99));
+    }
+
+    @Test
+    void shouldNotLoseConcurrentRecordings() throws InterruptedException {
+        StripedHistogram histogram = new StripedHistogram("test", 4);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    histogram.record(j);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80_000, histogram.snapshot().getCount());
+    }
+}
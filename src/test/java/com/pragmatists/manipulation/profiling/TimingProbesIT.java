@@ -0,0 +1,85 @@
+package com.pragmatists.manipulation.profiling;
+
+import com.pragmatists.manipulation.bytecode.modification.InstructionsModifier;
+import com.pragmatists.manipulation.bytecode.modification.WritingStrategy;
+import com.pragmatists.manipulation.loaders.ClassSubstitutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import test.PrintCaptor;
+import test.types.Exiting;
+
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.ClassFileUtils.getBytecode;
+import static test.ClassFileUtils.getBytecodeFromResources;
+
+class TimingProbesIT {
+    private static final String MODIFIED_CLASS_NAME = "test.types.Modified";
+    private static final byte[] MODIFIED_CLASS_BYTECODE = getBytecodeFromResources("Modified.class");
+    private static final PrintStream ORIGINAL_OUT = System.out;
+
+    @AfterEach
+    void tearDown() {
+        System.setOut(ORIGINAL_OUT);
+    }
+
+    @Test
+    void shouldRecordEveryReturnOfProbedMethods() throws Exception {
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(MODIFIED_CLASS_BYTECODE, List.of(
+                TimingProbes.probe(MODIFIED_CLASS_NAME, "foo", "()V"),
+                TimingProbes.probe(MODIFIED_CLASS_NAME, "foo", "(Ljava/lang/Boolean;)V")),
+                WritingStrategy.COPY_UNMODIFIED_METHODS);
+        TimingProbes.reset();
+
+        Class<?> modifiedClass = new ClassSubstitutor(Map.of(MODIFIED_CLASS_NAME, bytecode)).loadClass(MODIFIED_CLASS_NAME);
+        Object instance = modifiedClass.getConstructor().newInstance();
+        PrintCaptor captor = new PrintCaptor();
+        System.setOut(captor);
+        modifiedClass.getMethod("foo").invoke(instance);
+        modifiedClass.getMethod("foo", Boolean.class).invoke(instance, true);
+        modifiedClass.getMethod("foo", Boolean.class).invoke(instance, false);
+        modifiedClass.getMethod("foo", Boolean.class).invoke(instance, false);
+
+        assertEquals(List.of("foo here", "foo: true", "foo: false", "foo: false"), captor.getResults());
+        assertEquals(1, snapshotOf(MODIFIED_CLASS_NAME + ".foo()V", TimingProbes.snapshot()).getCount());
+        HistogramSnapshot withFlag = snapshotOf(MODIFIED_CLASS_NAME + ".foo(Ljava/lang/Boolean;)V", TimingProbes.snapshotAndReset());
+        assertEquals(3, withFlag.getCount());
+        assertTrue(withFlag.getTotalNanos() > 0);
+        assertEquals(0, snapshotOf(MODIFIED_CLASS_NAME + ".foo(Ljava/lang/Boolean;)V", TimingProbes.snapshot()).getCount());
+    }
+
+    @Test
+    void shouldRecordExitsByThrowing() throws Exception {
+        String probeName = Exiting.class.getName() + ".exit(I)Ljava/lang/String;";
+        byte[] bytecode = InstructionsModifier.modifyMethodsInClassfile(getBytecode(Exiting.class),
+                List.of(TimingProbes.probe(Exiting.class.getName(), "exit", "(I)Ljava/lang/String;")));
+        Class<?> modifiedClass = new ClassSubstitutor(Map.of(Exiting.class.getName(), bytecode)).loadClass(Exiting.class.getName());
+        Object instance = modifiedClass.getConstructor().newInstance();
+        Method exit = modifiedClass.getMethod("exit", int.class);
+        snapshotOf(probeName, TimingProbes.snapshotAndReset());
+
+        exit.invoke(instance, 0);
+        assertThrows(InvocationTargetException.class, () -> exit.invoke(instance, 1));
+        exit.invoke(instance, 2);
+
+        assertEquals(3, snapshotOf(probeName, TimingProbes.snapshot()).getCount());
+    }
+
+    @Test
+    void shouldShareHistogramOfProbesWithSameName() {
+        assertEquals(TimingProbes.register("shared probe"), TimingProbes.register("shared probe"));
+        assertNotEquals(TimingProbes.register("shared probe"), TimingProbes.register("other probe"));
+    }
+
+    private static HistogramSnapshot snapshotOf(String probeName, List<HistogramSnapshot> snapshots) {
+        return snapshots.stream()
+                .filter(snapshot -> snapshot.getName().equals(probeName))
+                .findFirst()
+                .orElseThrow();
+    }
+}
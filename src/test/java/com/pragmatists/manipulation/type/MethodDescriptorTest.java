@@ -0,0 +1,59 @@
+package com.pragmatists.manipulation.type;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Type;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.objectweb.asm.Opcodes.*;
+
+class MethodDescriptorTest {
+    @Test
+    void shouldInternDescriptors() {
+        MethodDescriptor parsed = MethodDescriptor.of("(JLjava/lang/String;)I");
+
+        assertSame(parsed, MethodDescriptor.of("(JLjava/lang/String;)I"));
+        assertSame(parsed, MethodDescriptor.of(int.class, long.class, String.class));
+    }
+
+    @Test
+    void shouldComputeArgumentLayout() {
+        MethodDescriptor descriptor = MethodDescriptor.of(void.class, int.class, long.class, String.class, double.class, int[].class);
+
+        assertEquals("(IJLjava/lang/String;D[I)V", descriptor.getDescriptor());
+        assertEquals(5, descriptor.getArgumentCount());
+        assertEquals(7, descriptor.getArgumentsSize());
+        int[] slots = {0, 1, 3, 4, 6};
+        int[] loadOpcodes = {ILOAD, LLOAD, ALOAD, DLOAD, ALOAD};
+        int[] storeOpcodes = {ISTORE, LSTORE, ASTORE, DSTORE, ASTORE};
+        for (int i = 0; i < slots.length; i++) {
+            assertEquals(slots[i], descriptor.getArgumentSlot(i));
+            assertEquals(loadOpcodes[i], descriptor.getLoadOpcode(i));
+            assertEquals(storeOpcodes[i], descriptor.getStoreOpcode(i));
+        }
+        assertEquals(Type.getType(String.class), descriptor.getArgumentType(2));
+    }
+
+    @Test
+    void shouldComputeParameterSlotsWithAndWithoutThis() {
+        MethodDescriptor descriptor = MethodDescriptor.of("(DI)V");
+
+        assertEquals(3, descriptor.getParameterSlots(true));
+        assertEquals(4, descriptor.getParameterSlots(false));
+    }
+
+    @Test
+    void shouldComputeReturnOpcode() {
+        assertEquals(RETURN, MethodDescriptor.of(void.class).getReturnOpcode());
+        assertEquals(IRETURN, MethodDescriptor.of(boolean.class).getReturnOpcode());
+        assertEquals(LRETURN, MethodDescriptor.of(long.class).getReturnOpcode());
+        assertEquals(ARETURN, MethodDescriptor.of(Object[].class).getReturnOpcode());
+        assertEquals(Type.DOUBLE_TYPE, MethodDescriptor.of("()D").getReturnType());
+    }
+
+    @Test
+    void shouldRejectInvalidDescriptors() {
+        assertThrows(IllegalArgumentException.class, () -> MethodDescriptor.of("(Q)V"));
+    }
+}
@@ -1,7 +1,13 @@
 package test;
 
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.function.Consumer;
+
+import static org.objectweb.asm.Opcodes.*;
 
 public class ClassFileUtils {
     private static final String CLASS_FILE_EXTENSION = ".class";
@@ -15,6 +21,48 @@ public class ClassFileUtils {
         return getBytecode(ClassLoader.getSystemClassLoader().getResourceAsStream(classFileName));
     }
 
+    /**
+     * @return bytecode of a public class with a public no-arg constructor
+     */
+    public static byte[] generateClass(String className, String superClassName) {
+        return generateClass(className, superClassName, null);
+    }
+
+    /**
+     * @param supplied writes instructions pushing the supplied object
+     * @return bytecode of a public class with a public no-arg constructor, implementing {@link java.util.function.Supplier}
+     */
+    public static byte[] generateSupplier(String className, String superClassName, Consumer<MethodVisitor> supplied) {
+        return generateClass(className, superClassName, supplied);
+    }
+
+    private static byte[] generateClass(String className, String superClassName, Consumer<MethodVisitor> supplied) {
+        String superName = superClassName.replace('.', '/');
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+        classWriter.visit(V11, ACC_PUBLIC, className.replace('.', '/'), null, superName,
+                supplied == null ? new String[0] : new String[]{"java/util/function/Supplier"});
+
+        MethodVisitor constructor = classWriter.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(ALOAD, 0);
+        constructor.visitMethodInsn(INVOKESPECIAL, superName, "<init>", "()V", false);
+        constructor.visitInsn(RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        if (supplied != null) {
+            MethodVisitor get = classWriter.visitMethod(ACC_PUBLIC, "get", "()Ljava/lang/Object;", null, null);
+            get.visitCode();
+            supplied.accept(get);
+            get.visitInsn(ARETURN);
+            get.visitMaxs(0, 0);
+            get.visitEnd();
+        }
+
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
     private static byte[] getBytecode(InputStream is) {
         try {
             return is.readAllBytes();
@@ -0,0 +1,24 @@
+package test.control;
+
+public class MultipleReturnsTest {
+    public String classify(int number) {
+        if (number < 0) {
+            return "negative";
+        }
+
+        for (int i = 2; i < number; i++) {
+            if (number % i == 0) {
+                return "composite";
+            }
+        }
+
+        try {
+            if (number == 13) {
+                throw new IllegalArgumentException("unlucky");
+            }
+            return "prime";
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+}
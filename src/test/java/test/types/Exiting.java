@@ -0,0 +1,18 @@
+package test.types;
+
+public class Exiting {
+    public String exit(int mode) {
+        if (mode == 0) {
+            return "returned";
+        }
+        if (mode == 1) {
+            throw new IllegalStateException("thrown");
+        }
+
+        try {
+            throw new IllegalArgumentException("caught");
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+}
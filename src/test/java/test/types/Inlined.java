@@ -0,0 +1,30 @@
+package test.types;
+
+public class Inlined {
+    public static int square(int x) {
+        return x * x;
+    }
+
+    public static long weighted(long value, int weight, double factor) {
+        long weighted = value * weight;
+        return (long) (weighted * factor);
+    }
+
+    public int clamp(int value) {
+        if (value < 0) {
+            return 0;
+        }
+        if (value > 100) {
+            return 100;
+        }
+        return value;
+    }
+
+    public static String describe(int value) {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < value; i++) {
+            description.append(i).append(", ");
+        }
+        return description.append(value).toString();
+    }
+}
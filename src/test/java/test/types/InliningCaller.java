@@ -0,0 +1,18 @@
+package test.types;
+
+public class InliningCaller {
+    private final Inlined inlined;
+
+    public InliningCaller(Inlined inlined) {
+        this.inlined = inlined;
+    }
+
+    public long compute(int x) {
+        int local = x + 1;
+        return Inlined.square(x) + inlined.clamp(local) + Inlined.weighted(x, Inlined.square(local), 0.5);
+    }
+
+    public String describe(int x) {
+        return Inlined.describe(x);
+    }
+}
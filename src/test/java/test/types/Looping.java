@@ -0,0 +1,9 @@
+package test.types;
+
+public class Looping {
+    public void loop() {
+        for (int i = 0; i < 2; i++) {
+            System.out.println("loop " + i);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package test.types;
+
+public class Stepping {
+    public int sum(int limit) {
+        int sum = 0;
+        for (int i = next(-1); i < limit; i = next(i)) {
+            sum += i;
+        }
+        return sum;
+    }
+
+    private static int next(int i) {
+        return i + 1;
+    }
+}